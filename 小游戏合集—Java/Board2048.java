@@ -0,0 +1,327 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * 2048位棋盘引擎（纯静态工具类，不依赖任何界面组件）
+ * 棋盘用一个long表示：每格4位存放数字的指数（0表示空，1表示2，2表示4……），
+ * 第r行占第16r~16r+15位，行内第c列占第4c~4c+3位。
+ * 移动通过65536项的行/列查表完成，单次移动只有几次查表和位运算，不分配任何对象。
+ */
+public final class Board2048 {
+    /** 方向常量：上 */
+    public static final int UP = 0;
+    /** 方向常量：下 */
+    public static final int DOWN = 1;
+    /** 方向常量：左 */
+    public static final int LEFT = 2;
+    /** 方向常量：右 */
+    public static final int RIGHT = 3;
+
+    /** 每行左移结果与原行的异或差值（下标为16位行值） */
+    private static final char[] ROW_LEFT = new char[65536];
+    /** 每行右移结果与原行的异或差值 */
+    private static final char[] ROW_RIGHT = new char[65536];
+    /** 每列上移结果与原列的异或差值（已展开为列布局，下标为转置后的16位行值） */
+    private static final long[] COL_UP = new long[65536];
+    /** 每列下移结果与原列的异或差值（已展开为列布局） */
+    private static final long[] COL_DOWN = new long[65536];
+    /** 每行左移（或右移）产生的合并得分（合并出的数字之和） */
+    private static final int[] MERGE_SCORE = new int[65536];
+
+    static {
+        int[] line = new int[4];
+        for (int row = 0; row < 65536; row++) {
+            for (int c = 0; c < 4; c++) {
+                line[c] = (row >>> (4 * c)) & 0xF;
+            }
+            MERGE_SCORE[row] = slideLeft(line);
+            int result = 0;
+            for (int c = 0; c < 4; c++) {
+                result |= line[c] << (4 * c);
+            }
+            int reversedRow = reverseRow(row);
+            int reversedResult = reverseRow(result);
+            ROW_LEFT[row] = (char) (row ^ result);
+            ROW_RIGHT[reversedRow] = (char) (reversedRow ^ reversedResult);
+            COL_UP[row] = unpackColumn(row) ^ unpackColumn(result);
+            COL_DOWN[reversedRow] = unpackColumn(reversedRow) ^ unpackColumn(reversedResult);
+        }
+    }
+
+    private Board2048() {
+    }
+
+    /**
+     * 把一行指数向左滑动并合并（每个数字每次移动最多合并一次），结果写回原数组
+     * 合并上限为15（4位能表示的最大指数，即32768）
+     * @param line 4个格子的指数
+     * @return 本次合并得分
+     */
+    private static int slideLeft(int[] line) {
+        int score = 0;
+        int target = 0;
+        int pending = 0; // 等待与下一个数字比较的指数（0表示没有）
+        for (int c = 0; c < 4; c++) {
+            int value = line[c];
+            if (value == 0) continue;
+            if (pending == 0) {
+                pending = value;
+            } else if (pending == value && value < 15) {
+                line[target++] = value + 1;
+                score += 1 << (value + 1);
+                pending = 0;
+            } else {
+                line[target++] = pending;
+                pending = value;
+            }
+        }
+        if (pending != 0) line[target++] = pending;
+        while (target < 4) line[target++] = 0;
+        return score;
+    }
+
+    /**
+     * 翻转一行中4个格子的顺序
+     * @param row 16位行值
+     * @return 翻转后的行值
+     */
+    private static int reverseRow(int row) {
+        return ((row >>> 12) & 0xF) | ((row >>> 4) & 0xF0) | ((row << 4) & 0xF00) | ((row << 12) & 0xF000);
+    }
+
+    /**
+     * 把16位行值展开为棋盘第0列的布局（第c个格子放到第c行）
+     * @param row 16位行值
+     * @return 展开后的long
+     */
+    private static long unpackColumn(int row) {
+        long r = row;
+        return (r & 0xFL) | ((r & 0xF0L) << 12) | ((r & 0xF00L) << 24) | ((r & 0xF000L) << 36);
+    }
+
+    /**
+     * 转置棋盘（行列互换）
+     * @param board 棋盘
+     * @return 转置后的棋盘
+     */
+    public static long transpose(long board) {
+        long a1 = board & 0xF0F00F0FF0F00F0FL;
+        long a2 = board & 0x0000F0F00000F0F0L;
+        long a3 = board & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    /**
+     * 按指定方向移动并合并
+     * @param board 棋盘
+     * @param direction 方向（UP/DOWN/LEFT/RIGHT）
+     * @return 移动后的棋盘（与原棋盘相等表示这一步无效）
+     */
+    public static long move(long board, int direction) {
+        switch (direction) {
+            case UP: {
+                long t = transpose(board);
+                board ^= COL_UP[(int) (t & 0xFFFF)];
+                board ^= COL_UP[(int) ((t >>> 16) & 0xFFFF)] << 4;
+                board ^= COL_UP[(int) ((t >>> 32) & 0xFFFF)] << 8;
+                board ^= COL_UP[(int) ((t >>> 48) & 0xFFFF)] << 12;
+                return board;
+            }
+            case DOWN: {
+                long t = transpose(board);
+                board ^= COL_DOWN[(int) (t & 0xFFFF)];
+                board ^= COL_DOWN[(int) ((t >>> 16) & 0xFFFF)] << 4;
+                board ^= COL_DOWN[(int) ((t >>> 32) & 0xFFFF)] << 8;
+                board ^= COL_DOWN[(int) ((t >>> 48) & 0xFFFF)] << 12;
+                return board;
+            }
+            case LEFT:
+                board ^= (long) ROW_LEFT[(int) (board & 0xFFFF)];
+                board ^= (long) ROW_LEFT[(int) ((board >>> 16) & 0xFFFF)] << 16;
+                board ^= (long) ROW_LEFT[(int) ((board >>> 32) & 0xFFFF)] << 32;
+                board ^= (long) ROW_LEFT[(int) ((board >>> 48) & 0xFFFF)] << 48;
+                return board;
+            case RIGHT:
+                board ^= (long) ROW_RIGHT[(int) (board & 0xFFFF)];
+                board ^= (long) ROW_RIGHT[(int) ((board >>> 16) & 0xFFFF)] << 16;
+                board ^= (long) ROW_RIGHT[(int) ((board >>> 32) & 0xFFFF)] << 32;
+                board ^= (long) ROW_RIGHT[(int) ((board >>> 48) & 0xFFFF)] << 48;
+                return board;
+            default:
+                throw new IllegalArgumentException("无效方向: " + direction);
+        }
+    }
+
+    /**
+     * 计算按指定方向移动产生的合并得分（合并出的数字之和）
+     * @param board 移动前的棋盘
+     * @param direction 方向
+     * @return 合并得分
+     */
+    public static int mergeScore(long board, int direction) {
+        long lines = direction == UP || direction == DOWN ? transpose(board) : board;
+        // 左右（上下）滑动合并出的数字相同，只是位置相反，因此共用一张表
+        int score = 0;
+        for (int i = 0; i < 4; i++) {
+            int line = (int) ((lines >>> (16 * i)) & 0xFFFF);
+            score += MERGE_SCORE[direction == LEFT || direction == UP ? line : reverseRow(line)];
+        }
+        return score;
+    }
+
+    /**
+     * 计算一次移动中每个格子的去向（供界面动画使用，只在每次移动时调用一次，不分配对象）
+     * 格子下标为4*行+列。
+     * @param board 移动前的棋盘
+     * @param direction 方向
+     * @param destinations 长度16的输出数组：有数字的格子写入其移动后的格子下标，空格子写入-1
+     * @return 合并产生的格子掩码（第i位为1表示移动后第i格由两个数字合并而成）
+     */
+    public static int computeTransitions(long board, int direction, int[] destinations) {
+        int mergedMask = 0;
+        for (int line = 0; line < 4; line++) {
+            int target = 0;
+            int pendingCell = -1;
+            int pendingValue = 0;
+            for (int k = 0; k < 4; k++) {
+                int cell = lineCell(direction, line, k);
+                int value = (int) ((board >>> (4 * cell)) & 0xF);
+                destinations[cell] = -1;
+                if (value == 0) continue;
+                if (pendingValue == 0) {
+                    pendingCell = cell;
+                    pendingValue = value;
+                } else if (pendingValue == value && value < 15) {
+                    int to = lineCell(direction, line, target++);
+                    destinations[pendingCell] = to;
+                    destinations[cell] = to;
+                    mergedMask |= 1 << to;
+                    pendingValue = 0;
+                } else {
+                    destinations[pendingCell] = lineCell(direction, line, target++);
+                    pendingCell = cell;
+                    pendingValue = value;
+                }
+            }
+            if (pendingValue != 0) {
+                destinations[pendingCell] = lineCell(direction, line, target);
+            }
+        }
+        return mergedMask;
+    }
+
+    /**
+     * 沿移动方向的第line条线上第k个格子（k=0为最靠近移动方向的一端）的下标
+     */
+    private static int lineCell(int direction, int line, int k) {
+        switch (direction) {
+            case UP: return 4 * k + line;
+            case DOWN: return 4 * (3 - k) + line;
+            case LEFT: return 4 * line + k;
+            default: return 4 * line + 3 - k;
+        }
+    }
+
+    /**
+     * 读取指定格子的指数
+     * @param board 棋盘
+     * @param row 行（0-3）
+     * @param col 列（0-3）
+     * @return 指数（0表示空）
+     */
+    public static int get(long board, int row, int col) {
+        return (int) ((board >>> (16 * row + 4 * col)) & 0xF);
+    }
+
+    /**
+     * 设置指定格子的指数
+     * @param board 棋盘
+     * @param row 行（0-3）
+     * @param col 列（0-3）
+     * @param exponent 指数（0-15）
+     * @return 新棋盘
+     */
+    public static long set(long board, int row, int col, int exponent) {
+        int shift = 16 * row + 4 * col;
+        return (board & ~(0xFL << shift)) | ((long) exponent << shift);
+    }
+
+    /**
+     * 统计空白格子数
+     * @param board 棋盘
+     * @return 空格数（0-16）
+     */
+    public static int countEmpty(long board) {
+        long x = board;
+        x |= (x >>> 2) & 0x3333333333333333L;
+        x |= x >>> 1;
+        return Long.bitCount(~x & 0x1111111111111111L);
+    }
+
+    /**
+     * 在第k个空白格子放入指定指数
+     * @param board 棋盘
+     * @param k 空格序号（按格子下标从小到大数，0开始）
+     * @param exponent 指数（1表示2，2表示4）
+     * @return 新棋盘（k超出空格数时原样返回）
+     */
+    public static long placeTile(long board, int k, int exponent) {
+        for (int shift = 0; shift < 64; shift += 4) {
+            if (((board >>> shift) & 0xF) == 0) {
+                if (k == 0) return board | ((long) exponent << shift);
+                k--;
+            }
+        }
+        return board;
+    }
+
+    /**
+     * 在随机空白格子生成2（90%概率）或4（10%概率）
+     * @param board 棋盘
+     * @param random 随机数生成器
+     * @return 新棋盘（没有空格时原样返回）
+     */
+    public static long addRandomTile(long board, RandomGenerator random) {
+        int empty = countEmpty(board);
+        if (empty == 0) return board;
+        int k = random.nextInt(empty);
+        return placeTile(board, k, random.nextInt(10) == 0 ? 2 : 1);
+    }
+
+    /**
+     * 判断是否还能移动（存在空格或存在可合并的相邻数字）
+     * @param board 棋盘
+     * @return 能移动返回true，否则表示游戏结束
+     */
+    public static boolean canMove(long board) {
+        if (countEmpty(board) > 0) return true;
+        // 棋盘满时，左移与右移、上移与下移是否有效是等价的
+        return move(board, LEFT) != board || move(board, UP) != board;
+    }
+
+    /**
+     * 获取棋盘中最大的指数
+     * @param board 棋盘
+     * @return 最大指数（空棋盘为0）
+     */
+    public static int maxExponent(long board) {
+        int max = 0;
+        while (board != 0) {
+            max = Math.max(max, (int) (board & 0xF));
+            board >>>= 4;
+        }
+        return max;
+    }
+
+    /**
+     * 把指数换算成格子上显示的数字
+     * @param exponent 指数
+     * @return 数字（指数0对应空格0）
+     */
+    public static int tileValue(int exponent) {
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+}
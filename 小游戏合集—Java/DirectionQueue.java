@@ -0,0 +1,85 @@
+/**
+ * 方向输入队列（无界面，单生产者单消费者）
+ * 界面线程按键时放入方向，模拟线程每步最多取出一个，因此一步之内的两次快速按键（例如先上再左）都会依次生效。
+ * 放入时和“最后一个排队的方向”比较而不是和蛇当前的方向比较：与它相同或相反的输入直接丢弃，
+ * 这样连按两次也不会让蛇掉头撞到自己。队列有界，满了丢弃新的输入。
+ * 每个输入带有按键时刻（System.nanoTime()），消费方据此统计从按键到真正移动的延迟。
+ */
+public class DirectionQueue {
+    /** 方向（环形缓冲区） */
+    private final int[] directions;
+    /** 按键时刻（纳秒，与directions一一对应） */
+    private final long[] times;
+    /** 已取出的个数（只由消费方写） */
+    private volatile long head;
+    /** 已放入的个数（只由生产方写） */
+    private volatile long tail;
+    /** 最后一个排队的方向（只由生产方使用） */
+    private int last;
+    /** 最近一次取出的输入的按键时刻（只由消费方使用） */
+    private long polledAt;
+
+    /**
+     * @param capacity 最多排队的输入数
+     * @param direction 初始方向
+     */
+    public DirectionQueue(int capacity, int direction) {
+        directions = new int[capacity];
+        times = new long[capacity];
+        last = direction;
+    }
+
+    /**
+     * 清空队列并设置初始方向（只能在消费方停止时调用，例如新的一局开始前）
+     * @param direction 当前方向
+     */
+    public void reset(int direction) {
+        head = tail;
+        last = direction;
+    }
+
+    /**
+     * 生产方：重新设置比较用的方向（例如自动驾驶交还控制权时，以蛇当前的方向为准）
+     * @param direction 当前方向
+     */
+    public void setLast(int direction) {
+        last = direction;
+    }
+
+    /**
+     * 生产方：放入一个方向
+     * @param direction 方向（SnakeEngine.UP等）
+     * @param nanos 按键时刻（System.nanoTime()）
+     * @return 是否放入（与最后排队的方向相同或相反、队列已满时返回false）
+     */
+    public boolean offer(int direction, long nanos) {
+        if (direction == last || direction == (last ^ 1)) return false;
+        long t = tail;
+        if (t - head == directions.length) return false;
+        int index = (int) (t % directions.length);
+        directions[index] = direction;
+        times[index] = nanos;
+        tail = t + 1; // volatile写：发布这一项
+        last = direction;
+        return true;
+    }
+
+    /**
+     * 消费方：取出一个方向
+     * @return 方向，队列为空时返回-1
+     */
+    public int poll() {
+        long h = head;
+        if (h == tail) return -1;
+        int index = (int) (h % directions.length);
+        int direction = directions[index];
+        polledAt = times[index];
+        head = h + 1;
+        return direction;
+    }
+
+    /** @return 最近一次取出的输入的按键时刻（纳秒，只由消费方调用） */
+    public long polledAt() {
+        return polledAt;
+    }
+}
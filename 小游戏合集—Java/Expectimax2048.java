@@ -0,0 +1,396 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 2048期望最大（expectimax）搜索求解器
+ * 1. 玩家层取4个方向中的最大值，随机层按与Game2048相同的出数规则（2占90%，4占10%）求期望
+ * 2. 迭代加深，在给定时间预算内返回已完成的最深一层结果
+ * 3. 置换表使用固定内存（无锁表项，多线程共享）
+ * 4. 根节点按“方向×空格”拆分成子任务，在ForkJoinPool上并行搜索
+ */
+public class Expectimax2048 {
+    /** 累计概率低于该值的分支不再展开，直接估值 */
+    private static final float MIN_PROBABILITY = 0.0001f;
+    /** 每搜索多少个节点检查一次是否超时 */
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    /** 估值参数（经验值） */
+    private static final float LOST_PENALTY = 200000f;
+    private static final float MONOTONICITY_POWER = 4f;
+    private static final float MONOTONICITY_WEIGHT = 47f;
+    private static final float SUM_POWER = 3.5f;
+    private static final float SUM_WEIGHT = 11f;
+    private static final float MERGES_WEIGHT = 700f;
+    private static final float EMPTY_WEIGHT = 270f;
+
+    /** 每行（或转置后的每列）的估值表，下标为16位行值 */
+    private static final float[] ROW_HEURISTIC = new float[65536];
+
+    static {
+        for (int row = 0; row < 65536; row++) {
+            int[] line = new int[4];
+            for (int c = 0; c < 4; c++) {
+                line[c] = (row >>> (4 * c)) & 0xF;
+            }
+            float sum = 0;
+            int empty = 0;
+            int merges = 0;
+            int previous = 0;
+            int counter = 0;
+            for (int c = 0; c < 4; c++) {
+                int rank = line[c];
+                sum += (float) Math.pow(rank, SUM_POWER);
+                if (rank == 0) {
+                    empty++;
+                } else {
+                    if (previous == rank) {
+                        counter++;
+                    } else if (counter > 0) {
+                        merges += 1 + counter;
+                        counter = 0;
+                    }
+                    previous = rank;
+                }
+            }
+            if (counter > 0) merges += 1 + counter;
+
+            float monotonicityLeft = 0;
+            float monotonicityRight = 0;
+            for (int c = 1; c < 4; c++) {
+                float a = (float) Math.pow(line[c - 1], MONOTONICITY_POWER);
+                float b = (float) Math.pow(line[c], MONOTONICITY_POWER);
+                if (line[c - 1] > line[c]) {
+                    monotonicityLeft += a - b;
+                } else {
+                    monotonicityRight += b - a;
+                }
+            }
+            ROW_HEURISTIC[row] = LOST_PENALTY + EMPTY_WEIGHT * empty + MERGES_WEIGHT * merges
+                    - MONOTONICITY_WEIGHT * Math.min(monotonicityLeft, monotonicityRight)
+                    - SUM_WEIGHT * sum;
+        }
+    }
+
+    /** 最大搜索深度（玩家走子步数） */
+    private final int maxDepth;
+    /** 每步搜索的时间预算（纳秒） */
+    private final long timeBudgetNanos;
+    /** 置换表 */
+    private final TranspositionTable table;
+    /** 并行搜索使用的线程池（为null时在调用线程中顺序搜索） */
+    private final ForkJoinPool pool;
+
+    /**
+     * 构造求解器
+     * @param maxDepth 最大搜索深度
+     * @param timeBudgetMillis 每步时间预算（毫秒，0表示不限时，只受深度限制）
+     * @param tableMegabytes 置换表内存上限（MB）
+     * @param pool 并行线程池（null表示单线程顺序搜索，适合批量模拟时每个工作线程各用一个求解器）
+     */
+    public Expectimax2048(int maxDepth, long timeBudgetMillis, int tableMegabytes, ForkJoinPool pool) {
+        if (maxDepth < 1) throw new IllegalArgumentException("搜索深度至少为1");
+        this.maxDepth = maxDepth;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.table = new TranspositionTable(tableMegabytes);
+        this.pool = pool;
+    }
+
+    /**
+     * 对棋盘做静态估值（各行与各列估值之和）
+     * @param board 棋盘
+     * @return 估值（越大越好）
+     */
+    public static float evaluate(long board) {
+        long t = Board2048.transpose(board);
+        return ROW_HEURISTIC[(int) (board & 0xFFFF)]
+                + ROW_HEURISTIC[(int) ((board >>> 16) & 0xFFFF)]
+                + ROW_HEURISTIC[(int) ((board >>> 32) & 0xFFFF)]
+                + ROW_HEURISTIC[(int) ((board >>> 48) & 0xFFFF)]
+                + ROW_HEURISTIC[(int) (t & 0xFFFF)]
+                + ROW_HEURISTIC[(int) ((t >>> 16) & 0xFFFF)]
+                + ROW_HEURISTIC[(int) ((t >>> 32) & 0xFFFF)]
+                + ROW_HEURISTIC[(int) ((t >>> 48) & 0xFFFF)];
+    }
+
+    /**
+     * 为当前棋盘搜索最佳方向
+     * @param board 棋盘
+     * @return 搜索结果（游戏已结束时方向为-1）
+     */
+    public Result search(long board) {
+        long start = System.nanoTime();
+        long deadline = timeBudgetNanos > 0 ? start + timeBudgetNanos : Long.MAX_VALUE;
+        SearchControl control = new SearchControl(deadline);
+        int bestMove = -1;
+        int depthReached = 0;
+        // 不限时的时候无需迭代加深，直接搜索最大深度
+        int firstDepth = timeBudgetNanos > 0 ? 1 : maxDepth;
+        for (int depth = firstDepth; depth <= maxDepth; depth++) {
+            int move = pool == null ? searchSequential(board, depth, control) : searchParallel(board, depth, control);
+            if (control.timeUp) break; // 本层未完成，沿用上一层结果
+            bestMove = move;
+            depthReached = depth;
+            if (move < 0) break; // 无路可走
+        }
+        if (bestMove < 0 && depthReached == 0) {
+            // 时间预算连一层都不够时，退化为按估值选一步
+            bestMove = greedyMove(board);
+        }
+        return new Result(bestMove, depthReached, control.nodes.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * 只看一步的贪心选择（按移动后的静态估值）
+     * @param board 棋盘
+     * @return 最佳方向（无路可走时为-1）
+     */
+    public static int greedyMove(long board) {
+        int best = -1;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int direction = 0; direction < 4; direction++) {
+            long next = Board2048.move(board, direction);
+            if (next == board) continue;
+            float score = evaluate(next) + Board2048.mergeScore(board, direction);
+            if (score > bestScore) {
+                bestScore = score;
+                best = direction;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 在调用线程中顺序搜索指定深度
+     */
+    private int searchSequential(long board, int depth, SearchControl control) {
+        SearchContext context = new SearchContext(control);
+        int best = -1;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int direction = 0; direction < 4; direction++) {
+            long next = Board2048.move(board, direction);
+            if (next == board) continue;
+            float score = chanceNode(context, next, depth, 1f);
+            if (score > bestScore) {
+                bestScore = score;
+                best = direction;
+            }
+        }
+        context.flush();
+        return best;
+    }
+
+    /**
+     * 把根节点拆成“方向×空格”子任务并行搜索指定深度
+     */
+    private int searchParallel(long board, int depth, SearchControl control) {
+        List<SpawnTask> tasks = new ArrayList<>();
+        int[] emptyCounts = new int[4];
+        for (int direction = 0; direction < 4; direction++) {
+            long next = Board2048.move(board, direction);
+            if (next == board) continue;
+            int empty = Board2048.countEmpty(next);
+            emptyCounts[direction] = empty;
+            for (int k = 0; k < empty; k++) {
+                tasks.add(new SpawnTask(control, direction, next, k, depth, 1f / empty));
+            }
+        }
+        if (tasks.isEmpty()) return -1;
+        for (SpawnTask task : tasks) {
+            pool.execute(task);
+        }
+        float[] sums = new float[4];
+        for (SpawnTask task : tasks) {
+            sums[task.direction] += task.join();
+        }
+        int best = -1;
+        float bestScore = Float.NEGATIVE_INFINITY;
+        for (int direction = 0; direction < 4; direction++) {
+            if (emptyCounts[direction] == 0) continue;
+            float score = sums[direction] / emptyCounts[direction];
+            if (score > bestScore) {
+                bestScore = score;
+                best = direction;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 玩家层：取所有有效方向中的最大期望值（没有有效方向即游戏结束，记0分）
+     */
+    private float maxNode(SearchContext context, long board, int depth, float probability) {
+        float best = 0f;
+        for (int direction = 0; direction < 4; direction++) {
+            long next = Board2048.move(board, direction);
+            if (next == board) continue;
+            best = Math.max(best, chanceNode(context, next, depth, probability));
+        }
+        return best;
+    }
+
+    /**
+     * 随机层：对每个空格分别以90%/10%概率放入2/4，求期望值
+     */
+    private float chanceNode(SearchContext context, long board, int depth, float probability) {
+        if (depth <= 1 || probability < MIN_PROBABILITY || context.shouldStop()) {
+            return evaluate(board);
+        }
+        float cached = table.lookup(board, depth);
+        if (!Float.isNaN(cached)) return cached;
+
+        int empty = Board2048.countEmpty(board);
+        float cellProbability = probability / empty;
+        float sum = 0f;
+        for (int shift = 0; shift < 64; shift += 4) {
+            if (((board >>> shift) & 0xF) != 0) continue;
+            sum += 0.9f * maxNode(context, board | (1L << shift), depth - 1, cellProbability * 0.9f);
+            sum += 0.1f * maxNode(context, board | (2L << shift), depth - 1, cellProbability * 0.1f);
+        }
+        float result = sum / empty;
+        if (!context.control.timeUp) {
+            table.store(board, depth, result);
+        }
+        return result;
+    }
+
+    /**
+     * 根节点子任务：某个方向移动后，在第k个空格出数的期望值
+     */
+    private class SpawnTask extends RecursiveTask<Float> {
+        private final SearchControl control;
+        private final int direction;
+        private final long board;
+        private final int emptyIndex;
+        private final int depth;
+        private final float probability;
+
+        SpawnTask(SearchControl control, int direction, long board, int emptyIndex, int depth, float probability) {
+            this.control = control;
+            this.direction = direction;
+            this.board = board;
+            this.emptyIndex = emptyIndex;
+            this.depth = depth;
+            this.probability = probability;
+        }
+
+        @Override
+        protected Float compute() {
+            SearchContext context = new SearchContext(control);
+            if (depth <= 1) {
+                // 深度1只看移动本身，与顺序搜索保持一致
+                context.nodes++;
+                context.flush();
+                return evaluate(board);
+            }
+            float value = 0.9f * maxNode(context, Board2048.placeTile(board, emptyIndex, 1), depth - 1, probability * 0.9f)
+                    + 0.1f * maxNode(context, Board2048.placeTile(board, emptyIndex, 2), depth - 1, probability * 0.1f);
+            context.flush();
+            return value;
+        }
+    }
+
+    /**
+     * 一次搜索共享的控制信息（截止时间、超时标记、节点计数）
+     */
+    private static class SearchControl {
+        final long deadline;
+        final AtomicLong nodes = new AtomicLong();
+        volatile boolean timeUp;
+
+        SearchControl(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * 单个线程内的搜索上下文（本地节点计数，减少共享变量争用）
+     */
+    private static class SearchContext {
+        final SearchControl control;
+        long nodes;
+
+        SearchContext(SearchControl control) {
+            this.control = control;
+        }
+
+        boolean shouldStop() {
+            if (++nodes % TIME_CHECK_INTERVAL == 0 && System.nanoTime() > control.deadline) {
+                control.timeUp = true;
+            }
+            return control.timeUp;
+        }
+
+        void flush() {
+            control.nodes.addAndGet(nodes);
+            nodes = 0;
+        }
+    }
+
+    /**
+     * 固定内存的无锁置换表
+     * 每个表项两个long：键与数据的异或值、数据（高32位为估值，低8位为深度），
+     * 读取时用异或校验，多线程同时写入产生的撕裂表项会被自动识别为未命中。
+     */
+    private static class TranspositionTable {
+        private final long[] entries;
+        private final int mask;
+
+        TranspositionTable(int megabytes) {
+            long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+            int capacity = Integer.highestOneBit((int) Math.min(bytes / 16, 1 << 28));
+            entries = new long[capacity * 2];
+            mask = capacity - 1;
+        }
+
+        private int index(long board) {
+            long h = board * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        float lookup(long board, int depth) {
+            int i = index(board) << 1;
+            long data = entries[i + 1];
+            if ((entries[i] ^ data) != board || (int) (data & 0xFF) < depth) return Float.NaN;
+            return Float.intBitsToFloat((int) (data >>> 32));
+        }
+
+        void store(long board, int depth, float value) {
+            int i = index(board) << 1;
+            long data = ((long) Float.floatToRawIntBits(value) << 32) | depth;
+            entries[i] = board ^ data;
+            entries[i + 1] = data;
+        }
+    }
+
+    /**
+     * 单步搜索结果
+     */
+    public static class Result {
+        /** 最佳方向（Board2048.UP/DOWN/LEFT/RIGHT，-1表示无路可走） */
+        public final int move;
+        /** 完整搜索完成的深度 */
+        public final int depth;
+        /** 搜索的节点数 */
+        public final long nodes;
+        /** 耗时（纳秒） */
+        public final long nanos;
+
+        Result(int move, int depth, long nodes, long nanos) {
+            this.move = move;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return 每秒搜索节点数
+         */
+        public long nodesPerSecond() {
+            return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * 空闲格子集合（无界面）
+ * 每个格子占1位（1表示空闲），另用树状数组记录每64个格子一组的空闲数，
+ * 2000x2000的场地只需约0.75MB：查询是O(1)，加入、删除、随机取第k个空闲格子是O(log(格子数/64))，
+ * 生成食物不再需要“随机撞到空格为止”的循环。
+ */
+public class FreeCellSet {
+    /** 空闲位图（第cell位为1表示空闲） */
+    private final long[] bits;
+    /** 树状数组（下标从1开始），维护各组的空闲格子数 */
+    private final int[] tree;
+    /** 树状数组中不超过组数的最大2的幂（求第k个时从它开始向下查找） */
+    private final int topBit;
+    /** 空闲格子数 */
+    private int size;
+
+    /**
+     * 创建集合，初始时所有格子都空闲
+     * @param cellCount 格子总数
+     */
+    public FreeCellSet(int cellCount) {
+        int words = (cellCount + 63) >>> 6;
+        bits = new long[words];
+        tree = new int[words + 1];
+        for (int i = 0; i < words; i++) {
+            int valid = Math.min(64, cellCount - (i << 6));
+            bits[i] = valid == 64 ? -1L : (1L << valid) - 1;
+            tree[i + 1] = valid;
+        }
+        // O(n)建树：每个节点把自己的和加到父节点
+        for (int i = 1; i <= words; i++) {
+            int parent = i + (i & -i);
+            if (parent <= words) tree[parent] += tree[i];
+        }
+        topBit = words == 0 ? 0 : Integer.highestOneBit(words);
+        size = cellCount;
+    }
+
+    /**
+     * @param cell 格子编号
+     * @return 是否空闲
+     */
+    public boolean contains(int cell) {
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * 把格子标记为占用
+     * @param cell 空闲的格子编号
+     */
+    public void remove(int cell) {
+        bits[cell >>> 6] &= ~(1L << cell);
+        update(cell >>> 6, -1);
+        size--;
+    }
+
+    /**
+     * 把格子标记为空闲
+     * @param cell 已占用的格子编号
+     */
+    public void add(int cell) {
+        bits[cell >>> 6] |= 1L << cell;
+        update(cell >>> 6, 1);
+        size++;
+    }
+
+    /** @return 空闲格子数 */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 随机取一个空闲格子
+     * @param random 随机数生成器
+     * @return 格子编号，没有空闲格子时返回-1
+     */
+    public int random(RandomGenerator random) {
+        return size == 0 ? -1 : select(random.nextInt(size));
+    }
+
+    /**
+     * 随机取一个不等于exclude的空闲格子（例如生成黑色食物时避开普通食物）
+     * @param random 随机数生成器
+     * @param exclude 要避开的格子编号（-1表示不避开）
+     * @return 格子编号，没有符合条件的格子时返回-1
+     */
+    public int random(RandomGenerator random, int exclude) {
+        if (exclude < 0 || !contains(exclude)) return random(random);
+        if (size <= 1) return -1;
+        // 在size-1个候选中取第k个，排名不小于exclude的顺延一位
+        int k = random.nextInt(size - 1);
+        if (k >= rank(exclude)) k++;
+        return select(k);
+    }
+
+    /**
+     * @param cell 格子编号
+     * @return 编号小于cell的空闲格子数
+     */
+    private int rank(int cell) {
+        int word = cell >>> 6;
+        int count = Long.bitCount(bits[word] & ((1L << cell) - 1));
+        for (int i = word; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    /**
+     * @param k 从0开始的排名（调用方保证小于size）
+     * @return 第k个空闲格子的编号
+     */
+    private int select(int k) {
+        // 在树状数组上二分找到第k个空闲格子所在的组
+        int word = 0;
+        for (int step = topBit; step > 0; step >>>= 1) {
+            int next = word + step;
+            if (next < tree.length && tree[next] <= k) {
+                word = next;
+                k -= tree[next];
+            }
+        }
+        long w = bits[word];
+        for (int i = 0; i < k; i++) {
+            w &= w - 1; // 去掉最低的k个1
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(w);
+    }
+
+    private void update(int word, int delta) {
+        for (int i = word + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+}
@@ -2,36 +2,116 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * 2048游戏主窗口类，继承自Swing的JFrame
- * 包含游戏核心逻辑（移动合并、分数计算）和界面组件（网格、分数面板）
+ * 只负责界面（网格、分数面板）和按键处理，移动合并等核心逻辑由棋盘引擎Grid2048完成
+ * （支持3x3~8x8，4x4时即位棋盘引擎Board2048；AI提示和自动模式只支持4x4）
  */
 public class Game2048 extends JFrame {
+    /** AI每步搜索的时间预算（毫秒），保证提示和自动模式下界面不卡顿 */
+    private static final long AI_TIME_BUDGET_MS = 50;
+    /** AI最大搜索深度 */
+    private static final int AI_MAX_DEPTH = 8;
+    /** AI置换表内存上限（MB） */
+    private static final int AI_TABLE_MEGABYTES = 32;
+    /** 方向名称（下标与Board2048的方向常量一致） */
+    private static final String[] DIRECTION_NAMES = {"上", "下", "左", "右"};
+    /** 格子间距（像素） */
+    private static final int CELL_GAP = 5;
+    /** 动画时钟的帧间隔（毫秒，约60帧/秒） */
+    private static final int FRAME_INTERVAL_MS = 16;
+    /** 滑动阶段时长（纳秒） */
+    private static final long SLIDE_NANOS = 100_000_000L;
+    /** 合并弹出/新数字出现阶段时长（纳秒） */
+    private static final long POP_NANOS = 100_000_000L;
+    /** 动画期间最多缓存的按键数 */
+    private static final int INPUT_QUEUE_CAPACITY = 16;
+    /** 撤销/重做历史的内存上限（MB），4x4棋盘约可保存50万步 */
+    private static final int HISTORY_MEGABYTES = 8;
+    /** 棋盘背景色 */
+    private static final Color BOARD_COLOR = new Color(187, 173, 160);
+    /** 各指数对应的格子背景色（下标为指数，0表示空格），预先创建避免每次刷新重复分配 */
+    private static final Color[] CELL_COLORS = new Color[Grid2048.MAX_EXPONENT + 1];
+
+    static {
+        for (int exponent = 0; exponent < CELL_COLORS.length; exponent++) {
+            CELL_COLORS[exponent] = getCellColor(Board2048.tileValue(exponent));
+        }
+    }
+
         /** 父窗口引用（用于返回小游戏合集主界面） */
     private MainFrame mainFrame;
-    /** 4x4的游戏核心网格（二维数组结构），存储每个单元格的数值（0表示空单元格） */
-    private int[][] grid;
+    /** 游戏棋盘（每格存放数字的指数） */
+    private final Grid2048 grid;
+    /** 生成新数字使用的随机数生成器 */
+    private final Random random = new Random();
     /** 当前游戏分数（规则：等于当前网格中的最大数值） */
     private int score;
     /** 历史最高分数（记录游戏过程中达到的最大数值峰值） */
     private int highScore = 0;
     /** 界面上显示当前分数和历史最高分的文本标签组件 */
     private JLabel scoreLabel;
-    /** 存放游戏网格单元格的容器面板（使用4x4网格布局） */
-    private JPanel gridPanel;
+    /** 分数标签上正在显示的分数（用于跳过无变化的文本刷新） */
+    private int shownScore = -1;
+    /** 分数标签上正在显示的历史最高分 */
+    private int shownHighScore = -1;
+    /** 自绘的游戏棋盘面板（只重绘发生变化的格子） */
+    private BoardPanel gridPanel;
+    /** 显示AI提示方向、搜索深度和速度的标签 */
+    private JLabel aiLabel;
+    /** 自动模式开关按钮 */
+    private JButton autoBtn;
+    /** 期望最大搜索求解器（根节点在ForkJoinPool上并行搜索；第一次提示或自动模式时才创建置换表，只在aiExecutor线程中访问） */
+    private Expectimax2048 solver;
+    /** 执行AI搜索的后台线程（保证搜索不在事件分派线程中进行） */
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "2048-ai");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** 训练好的N元组网络（所有窗口共享；默认权重文件存在时才加载，只读内存映射；提示优先使用它） */
+    private static NTuple2048 network;
+    /** 是否已经尝试过加载N元组网络（文件不存在时也只检查一次） */
+    private static boolean networkLoaded = false;
+    /** 是否处于自动模式 */
+    private volatile boolean autoplay = false;
+    /** 显示动画帧间隔统计的标签 */
+    private JLabel frameLabel;
+    /** 动画进行中到达的方向键（环形队列，动画结束后依次执行） */
+    private final int[] inputQueue = new int[INPUT_QUEUE_CAPACITY];
+    /** 输入队列头部下标 */
+    private int inputHead = 0;
+    /** 输入队列中的按键数 */
+    private int inputCount = 0;
+    /** 撤销/重做历史（环形缓冲区保存压缩棋盘和分数） */
+    private final History2048 history;
 
     //页面定义
         /**
-     * 游戏窗口构造方法
+     * 游戏窗口构造方法（默认4x4棋盘）
      * @param mainFrame 小游戏合集主窗口引用（用于返回主界面）
      */
     public Game2048(MainFrame mainFrame) {
+        this(mainFrame, 4);
+    }
+
+        /**
+     * 游戏窗口构造方法
+     * @param mainFrame 小游戏合集主窗口引用（用于返回主界面）
+     * @param boardSize 棋盘边长（3~8）
+     */
+    public Game2048(MainFrame mainFrame, int boardSize) {
         this.mainFrame = mainFrame;
-        setTitle("合成2048"); // 设置窗口标题
+        this.grid = new Grid2048(boardSize);
+        this.history = new History2048(grid.words(), HISTORY_MEGABYTES);
+        setTitle("合成2048 - " + boardSize + "x" + boardSize); // 设置窗口标题
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE); // 关闭时仅销毁当前窗口
         setMinimumSize(new Dimension(400, 400)); // 设置最小窗口尺寸
         setLocationRelativeTo(mainFrame); // 窗口相对于主窗口居中显示
@@ -43,15 +123,19 @@ public class Game2048 extends JFrame {
     // 初始化游戏
         /**
      * 初始化游戏核心状态
-     * 1. 重置4x4网格为全0
-     * 2. 重置当前分数为0
-     * 3. 生成2个初始数字（2或4）
+     * 1. 重置棋盘为全空
+     * 2. 生成2个初始数字（2或4）
+     * 3. 当前分数设为最大数值，再记入历史（撤销回第一步时恢复的分数与界面一致）
      */
     private void initGame() {
-        grid = new int[4][4]; // 初始化4x4空网格
-        score = 0; // 重置当前分数
+        grid.clear(); // 清空棋盘
+        inputCount = 0; // 丢弃上一局未执行的按键
+        if (gridPanel != null) gridPanel.stopAnimation();
         addNewNumber(); // 生成第一个随机数字
         addNewNumber(); // 生成第二个随机数字
+        score = getMaxValue(); // 当前最大数值作为新分数
+        history.clear(); // 新的一局重新记录历史
+        history.push(grid, score, highScore);
     }
 
         /**
@@ -71,51 +155,80 @@ public class Game2048 extends JFrame {
         JButton restartBtn = new JButton("重新开始");
         restartBtn.addActionListener(e -> {
             initGame();
-            score = getMaxValue(); // 重新计算当前最大数值作为新分数
             updateGridUI();
             requestFocusInWindow();
         });
         scorePanel.add(restartBtn);
+        JButton undoBtn = new JButton("撤销");
+        undoBtn.addActionListener(e -> {
+            undo();
+            requestFocusInWindow();
+        });
+        scorePanel.add(undoBtn);
+        JButton redoBtn = new JButton("重做");
+        redoBtn.addActionListener(e -> {
+            redo();
+            requestFocusInWindow();
+        });
+        scorePanel.add(redoBtn);
+        JButton hintBtn = new JButton("提示");
+        hintBtn.addActionListener(e -> {
+            requestHint();
+            requestFocusInWindow();
+        });
+        scorePanel.add(hintBtn);
+        hintBtn.setEnabled(grid.size() == 4); // AI只支持4x4棋盘
+        autoBtn = new JButton("自动");
+        autoBtn.addActionListener(e -> {
+            setAutoplay(!autoplay);
+            requestFocusInWindow();
+        });
+        scorePanel.add(autoBtn);
+        autoBtn.setEnabled(grid.size() == 4);
+        aiLabel = new JLabel(" ");
+        frameLabel = new JLabel(" ");
+        JPanel statusPanel = new JPanel(new GridLayout(2, 1));
+        statusPanel.add(aiLabel);
+        statusPanel.add(frameLabel);
 
         // 游戏网格
-        gridPanel = new JPanel(new GridLayout(4, 4, 5, 5));
-        gridPanel.setBackground(new Color(187, 173, 160));
+        gridPanel = new BoardPanel();
         updateGridUI();
 
         // 键盘监听
         addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
-                boolean moved = false;
+                // Ctrl+Z撤销，Ctrl+Y重做
+                if (e.isControlDown() && e.getKeyCode() == KeyEvent.VK_Z) {
+                    undo();
+                    return;
+                }
+                if (e.isControlDown() && e.getKeyCode() == KeyEvent.VK_Y) {
+                    redo();
+                    return;
+                }
+                int direction = -1;
                 switch (e.getKeyCode()) {
                     case KeyEvent.VK_UP:// 上移
                     case KeyEvent.VK_W:
-                        moved = moveUp();
+                        direction = Board2048.UP;
                         break;
                     case KeyEvent.VK_DOWN://下移
                     case KeyEvent.VK_S:
-                        moved = moveDown();
+                        direction = Board2048.DOWN;
                         break;
                     case KeyEvent.VK_LEFT://左移
                     case KeyEvent.VK_A:
-                        moved = moveLeft();
+                        direction = Board2048.LEFT;
                         break;
                     case KeyEvent.VK_RIGHT://右移 
                     case KeyEvent.VK_D:
-                        moved = moveRight();
+                        direction = Board2048.RIGHT;
                         break;
                 }
-                if (moved) {
-                    // 获取当前网格最大值作为当前分数
-                    int currentMax = getMaxValue();
-                    score = currentMax;
-                    // 更新历史最高分（取当前最高分和历史最高分的较大值）
-                    highScore = Math.max(highScore, currentMax);
-                    // 生成新数字并刷新界面
-                    addNewNumber();
-                    updateGridUI();
-                    // 检查游戏是否结束
-                    checkGameOver();
+                if (direction >= 0) {
+                    handleInput(direction);
                 }
             }
         });
@@ -123,228 +236,256 @@ public class Game2048 extends JFrame {
         setFocusable(true);
         add(scorePanel, BorderLayout.NORTH);
         add(gridPanel, BorderLayout.CENTER);
+        add(statusPanel, BorderLayout.SOUTH);
     }
 
         /**
-     * 在空白单元格随机生成2（90%概率）或4（10%概率）
+     * 处理玩家的方向输入：动画进行中（或队列里还有未执行的按键）时先排队，否则立即移动
+     * @param direction 方向
      */
-    private void addNewNumber() {
-        List<Point> emptyCells = new ArrayList<>();
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                if (grid[i][j] == 0) emptyCells.add(new Point(i, j));
+    private void handleInput(int direction) {
+        if (gridPanel.isAnimating() || inputCount > 0) {
+            if (inputCount < INPUT_QUEUE_CAPACITY) {
+                inputQueue[(inputHead + inputCount) % INPUT_QUEUE_CAPACITY] = direction;
+                inputCount++;
             }
+            return;
         }
-        if (!emptyCells.isEmpty()) {
-            Point p = emptyCells.get(new Random().nextInt(emptyCells.size()));
-            grid[p.x][p.y] = new Random().nextDouble() < 0.9 ? 2 : 4;
+        playerMove(direction);
+    }
+
+        /**
+     * 执行一步玩家移动（无效方向直接忽略）
+     * @param direction 方向
+     * @return 是否发生有效移动
+     */
+    private boolean playerMove(int direction) {
+        if (!move(direction)) return false;
+        afterMove();
+        return true;
+    }
+
+        /**
+     * 动画结束回调：依次取出排队的按键，执行第一个有效的移动（它会开始下一段动画）
+     */
+    private void onAnimationFinished() {
+        while (inputCount > 0) {
+            int direction = inputQueue[inputHead];
+            inputHead = (inputHead + 1) % INPUT_QUEUE_CAPACITY;
+            inputCount--;
+            if (playerMove(direction)) return;
         }
     }
 
         /**
-     * 更新网格界面显示：根据当前grid数组刷新每个单元格的数字和颜色
+     * 有效移动之后的统一处理：更新分数、生成新数字、启动动画、刷新界面并检查游戏是否结束
      */
-    private void updateGridUI() {
-        gridPanel.removeAll();
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                JLabel cell = new JLabel(String.valueOf(grid[i][j]));
-                cell.setOpaque(true);
-                cell.setBackground(getCellColor(grid[i][j]));
-                cell.setHorizontalAlignment(JLabel.CENTER);
-                cell.setFont(new Font("微软雅黑", Font.BOLD, 20));
-                gridPanel.add(cell);
-            }
+    private void afterMove() {
+        // 获取当前网格最大值作为当前分数
+        int currentMax = getMaxValue();
+        score = currentMax;
+        // 更新历史最高分（取当前最高分和历史最高分的较大值）
+        highScore = Math.max(highScore, currentMax);
+        // 生成新数字并刷新界面
+        addNewNumber();
+        history.push(grid, score, highScore);
+        gridPanel.animateMove();
+        updateGridUI();
+        // 检查游戏是否结束
+        checkGameOver();
+    }
+
+        /**
+     * 撤销一步：恢复上一步的棋盘、分数和历史最高分（会停止自动模式并丢弃排队的按键）
+     */
+    private void undo() {
+        if (!history.canUndo()) return;
+        if (autoplay) setAutoplay(false);
+        history.undo(grid);
+        restoreFromHistory();
+    }
+
+        /**
+     * 重做一步（撤销的逆操作）
+     */
+    private void redo() {
+        if (!history.canRedo()) return;
+        if (autoplay) setAutoplay(false);
+        history.redo(grid);
+        restoreFromHistory();
+    }
+
+        /**
+     * 撤销/重做之后同步分数并刷新界面
+     */
+    private void restoreFromHistory() {
+        score = history.score();
+        highScore = history.highScore();
+        inputCount = 0;
+        gridPanel.stopAnimation();
+        updateGridUI();
+    }
+
+        /**
+     * 提示：加载了N元组网络时直接在事件分派线程中估值（微秒级），
+     * 否则在后台线程搜索当前棋盘的最佳方向，完成后显示在界面底部
+     */
+    private void requestHint() {
+        long snapshot = grid.bitboard();
+        NTuple2048 network = network();
+        if (network != null) {
+            long start = System.nanoTime();
+            int move = network.bestMove(snapshot);
+            long micros = (System.nanoTime() - start) / 1000;
+            aiLabel.setText("N元组建议: " + (move < 0 ? "无" : DIRECTION_NAMES[move]) + "  用时: " + micros + " 微秒");
+            return;
         }
-        scoreLabel.setText("当前分数: " + score + "  历史最高: " + highScore);
-        gridPanel.revalidate();
+        aiExecutor.execute(() -> {
+            Expectimax2048.Result result = solver().search(snapshot);
+            SwingUtilities.invokeLater(() -> showAiResult(result));
+        });
     }
 
         /**
-     * 根据单元格数字获取对应的背景颜色
-     * @param value 单元格数字（0,2,4,8,...）
-     * @return 匹配的颜色对象
+     * 取共享的N元组网络，第一次调用时打开（只读映射可以被多个窗口共享，关闭窗口不会泄漏文件通道和映射）
+     * 只在事件分派线程中调用
+     * @return 网络或null（默认权重文件不存在）
      */
-    private Color getCellColor(int value) {
-        switch (value) {
-            case 0: return new Color(205, 193, 180);
-            case 2: return new Color(238, 228, 218);
-            case 4: return new Color(237, 224, 200);
-            case 8: return new Color(242, 177, 121);
-            default: return new Color(245, 149, 99); // 简化颜色逻辑
+    private static NTuple2048 network() {
+        if (!networkLoaded) {
+            network = NTuple2048.openDefault();
+            networkLoaded = true;
         }
+        return network;
     }
 
         /**
-     * 获取当前网格中的最大数字（作为当前分数）
-     * @return 网格中的最大值
+     * 取期望最大搜索求解器，第一次调用时创建（不用AI的窗口和非4x4棋盘不分配置换表）
+     * 只在aiExecutor线程中调用
+     * @return 求解器
      */
-    private int getMaxValue() {
-        int max = 0;
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                if (grid[i][j] > max) {
-                    max = grid[i][j];
-                }
-            }
+    private Expectimax2048 solver() {
+        if (solver == null) {
+            solver = new Expectimax2048(AI_MAX_DEPTH, AI_TIME_BUDGET_MS, AI_TABLE_MEGABYTES, ForkJoinPool.commonPool());
         }
-        return max;
+        return solver;
     }
 
-    // 移动合并逻辑（待完善：具体移动算法）
         /**
-     * 处理向上移动合并逻辑（核心算法）
-     * 步骤：
-     * 1. 提取当前列非空数字并前置
-     * 2. 合并相邻相同数字（仅合并一次）
-     * 3. 重新排列合并后的数字并更新网格
-     * @return 布尔值（true表示发生有效移动，需要生成新数字）
+     * 开启或关闭自动模式
+     * @param enabled true表示开启
      */
-    private boolean moveUp() {
-        boolean moved = false;
-        for (int col = 0; col < 4; col++) {
-            // 步骤1：提取非空数字到临时数组
-            int[] column = new int[4];
-            int index = 0;
-            for (int row = 0; row < 4; row++) {
-                if (grid[row][col] != 0) {
-                    column[index++] = grid[row][col];
-                }
-            }
-            // 填充剩余位置为0
-            for (int row = index; row < 4; row++) column[row] = 0;
-
-            // 步骤2：合并相邻相同数字
-            for (int row = 0; row < 3; row++) {
-                if (column[row] == column[row+1] && column[row] != 0) {
-                    column[row] *= 2; // 合并为双倍值
-                    column[row+1] = 0; // 清空原位置
-                    moved = true; // 标记发生移动
-                }
-            }
+    private void setAutoplay(boolean enabled) {
+        autoplay = enabled;
+        autoBtn.setText(enabled ? "停止" : "自动");
+        if (enabled) scheduleAutoMove();
+    }
 
-            // 步骤3：重新排列并更新网格
-            int[] newColumn = new int[4];
-            index = 0;
-            for (int row = 0; row < 4; row++) {
-                if (column[row] != 0) newColumn[index++] = column[row];
-            }
-            // 同步到原网格
-            for (int row = 0; row < 4; row++) {
-                if (grid[row][col] != newColumn[row]) {
-                    grid[row][col] = newColumn[row];
-                    moved = true;
-                }
-            }
+        /**
+     * 自动模式：后台搜索当前棋盘，搜索结束后回到事件分派线程执行移动
+     */
+    private void scheduleAutoMove() {
+        long snapshot = grid.bitboard();
+        aiExecutor.execute(() -> {
+            Expectimax2048.Result result = solver().search(snapshot);
+            SwingUtilities.invokeLater(() -> applyAutoMove(snapshot, result));
+        });
+    }
+
+        /**
+     * 在事件分派线程中执行自动模式搜索出的一步
+     * @param snapshot 搜索时的棋盘（期间玩家按键或重新开始导致棋盘变化时重新搜索）
+     * @param result 搜索结果
+     */
+    private void applyAutoMove(long snapshot, Expectimax2048.Result result) {
+        if (!autoplay || !isDisplayable()) return;
+        if (grid.bitboard() != snapshot) {
+            scheduleAutoMove();
+            return;
+        }
+        showAiResult(result);
+        if (result.move < 0 || !move(result.move)) {
+            setAutoplay(false);
+            return;
         }
-        return moved;
+        afterMove();
+        if (autoplay) scheduleAutoMove();
     }
 
         /**
-     * 处理向下移动合并逻辑（核心算法）
-     * 步骤：
-     * 1. 提取当前列非空数字并后置
-     * 2. 合并相邻相同数字（仅合并一次）
-     * 3. 重新排列合并后的数字并更新网格
-     * @return 布尔值（true表示发生有效移动，需要生成新数字）
+     * 显示AI搜索结果（建议方向、完成深度、每秒节点数）
+     * @param result 搜索结果
      */
-    private boolean moveDown() {
-        boolean moved = false;
-        for (int col = 0; col < 4; col++) {
-            int[] column = new int[4];
-            int index = 3;
-            for (int row = 3; row >= 0; row--) {
-                if (grid[row][col] != 0) {
-                    column[index--] = grid[row][col];
-                }
-            }
-            for (int row = index; row >= 0; row--) column[row] = 0;
-            for (int row = 3; row > 0; row--) {
-                if (column[row] == column[row-1] && column[row] != 0) {
-                    column[row] *= 2;
-                    column[row-1] = 0;
-                    moved = true;
-                }
-            }
-            int[] newColumn = new int[4];
-            index = 3;
-            for (int row = 3; row >= 0; row--) {
-                if (column[row] != 0) newColumn[index--] = column[row];
-            }
-            for (int row = 0; row < 4; row++) {
-                if (grid[row][col] != newColumn[row]) {
-                    grid[row][col] = newColumn[row];
-                    moved = true;
-                }
-            }
+    private void showAiResult(Expectimax2048.Result result) {
+        String direction = result.move < 0 ? "无" : DIRECTION_NAMES[result.move];
+        aiLabel.setText("AI建议: " + direction + "  深度: " + result.depth
+                + "  节点/秒: " + result.nodesPerSecond());
+    }
+
+        /**
+     * 关闭窗口时停止自动模式并结束AI后台线程
+     */
+    @Override
+    public void dispose() {
+        autoplay = false;
+        aiExecutor.shutdownNow();
+        gridPanel.stopAnimation();
+        super.dispose();
+    }
+
+        /**
+     * 在空白单元格随机生成2（90%概率）或4（10%概率）
+     */
+    private void addNewNumber() {
+        grid.addRandomTile(random);
+    }
+
+        /**
+     * 更新网格界面显示：把当前棋盘交给棋盘面板，只重绘变化的格子；分数变化时才更新分数标签
+     */
+    private void updateGridUI() {
+        gridPanel.showBoard();
+        if (score != shownScore || highScore != shownHighScore) {
+            shownScore = score;
+            shownHighScore = highScore;
+            scoreLabel.setText("当前分数: " + score + "  历史最高: " + highScore);
         }
-        return moved;
     }
 
         /**
-     * 处理向左移动合并逻辑（核心算法）
-     * 步骤：
-     * 1. 提取当前行非空数字并前置
-     * 2. 合并相邻相同数字（仅合并一次）
-     * 3. 重新排列合并后的数字并更新网格
-     * @return 布尔值（true表示发生有效移动，需要生成新数字）
+     * 根据单元格数字获取对应的背景颜色（仅用于初始化颜色缓存CELL_COLORS）
+     * @param value 单元格数字（0,2,4,8,...）
+     * @return 匹配的颜色对象
      */
-    private boolean moveLeft() {
-        boolean moved = false;
-        for (int row = 0; row < 4; row++) {
-            int[] newRow = new int[4];
-            int index = 0;
-            for (int col = 0; col < 4; col++) {
-                if (grid[row][col] != 0) {
-                    if (index > 0 && newRow[index-1] == grid[row][col]) {
-                        newRow[index-1] *= 2;
-                        moved = true;
-                    } else {
-                        newRow[index++] = grid[row][col];
-                    }
-                }
-            }
-            for (int col = 0; col < 4; col++) {
-                if (grid[row][col] != newRow[col]) {
-                    grid[row][col] = newRow[col];
-                    moved = true;
-                }
-            }
+    private static Color getCellColor(int value) {
+        switch (value) {
+            case 0: return new Color(205, 193, 180);
+            case 2: return new Color(238, 228, 218);
+            case 4: return new Color(237, 224, 200);
+            case 8: return new Color(242, 177, 121);
+            default: return new Color(245, 149, 99); // 简化颜色逻辑
         }
-        return moved;
     }
 
         /**
-     * 处理向右移动合并逻辑（核心算法）
-     * 步骤：
-     * 1. 提取当前行非空数字并后置
-     * 2. 合并相邻相同数字（仅合并一次）
-     * 3. 重新排列合并后的数字并更新网格
+     * 获取当前网格中的最大数字（作为当前分数）
+     * @return 网格中的最大值
+     */
+    private int getMaxValue() {
+        return Board2048.tileValue(grid.maxExponent());
+    }
+
+        /**
+     * 按指定方向移动合并（委托给棋盘引擎Grid2048查表完成），移动前先把动画需要的格子去向记到暂存区，
+     * 移动有效时才交给动画（无效按键不会打断正在播放的动画）
+     * @param direction 方向（Board2048.UP/DOWN/LEFT/RIGHT）
      * @return 布尔值（true表示发生有效移动，需要生成新数字）
      */
-    private boolean moveRight() {
-        boolean moved = false;
-        for (int row = 0; row < 4; row++) {
-            int[] newRow = new int[4];
-            int index = 3;
-            for (int col = 3; col >= 0; col--) {
-                if (grid[row][col] != 0) {
-                    if (index < 3 && newRow[index+1] == grid[row][col]) {
-                        newRow[index+1] *= 2;
-                        moved = true;
-                    } else {
-                        newRow[index--] = grid[row][col];
-                    }
-                }
-            }
-            for (int col = 0; col < 4; col++) {
-                if (grid[row][col] != newRow[col]) {
-                    grid[row][col] = newRow[col];
-                    moved = true;
-                }
-            }
-        }
-        return moved;
+    private boolean move(int direction) {
+        gridPanel.captureMove(direction);
+        if (!grid.move(direction)) return false;
+        gridPanel.commitMove();
+        return true;
     }
 
         /**
@@ -354,37 +495,11 @@ public class Game2048 extends JFrame {
      * 2. 所有相邻单元格（上下左右）无相同数字
      */
     private void checkGameOver() {
-        boolean canMove = false;
-
-        // 条件1：检查是否存在空白单元格
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                if (grid[i][j] == 0) {
-                    canMove = true;
-                    break;
-                }
-            }
-            if (canMove) break;
-        }
-
-        // 条件2：检查是否存在可合并的相邻数字
-        if (!canMove) {
-            for (int i = 0; i < 4; i++) {
-                for (int j = 0; j < 4; j++) {
-                    int current = grid[i][j];
-                    if (current == 0) continue;
-                    // 检查右侧相邻单元格
-                    if (j < 3 && grid[i][j+1] == current) canMove = true;
-                    // 检查下侧相邻单元格
-                    if (i < 3 && grid[i+1][j] == current) canMove = true;
-                    if (canMove) break;
-                }
-                if (canMove) break;
-            }
-        }
+        boolean canMove = grid.canMove();
 
         // 触发游戏结束逻辑
         if (!canMove) {
+            if (autoplay) setAutoplay(false);
             Object[] options = {"重玩", "回主页"};
             int choice = JOptionPane.showOptionDialog(
                     this, // 父窗口
@@ -404,4 +519,271 @@ public class Game2048 extends JFrame {
             }
         }
     }
+
+        /**
+     * 自绘棋盘面板：每种数字的格子预先渲染成图片，绘制时只贴图；
+     * 棋盘变化时逐格比较，只对变化的格子发起局部重绘，不创建任何组件。
+     * 移动动画由一个固定频率的Swing计时器驱动：每次移动只计算一次格子去向，
+     * 之后每帧在paintComponent中按时间插值位置和缩放，帧内不分配对象。
+     */
+    private class BoardPanel extends JPanel {
+        /** 棋盘边长 */
+        private final int n = grid.size();
+        /** 面板上已绘制的每格指数（下标为行*边长+列，用于找出变化的格子） */
+        private final byte[] painted = new byte[n * n];
+        /** 预渲染的格子图片（下标为指数），面板尺寸变化时重建 */
+        private final BufferedImage[] tileImages = new BufferedImage[Grid2048.MAX_EXPONENT + 1];
+        /** 生成格子图片时的格子边长 */
+        private int tileImageSize = -1;
+        /** 绘制时复用的裁剪区域对象 */
+        private final Rectangle clip = new Rectangle();
+        /** 动画时钟（固定帧间隔，只在动画期间运行） */
+        private final Timer animationTimer = new Timer(FRAME_INTERVAL_MS, e -> onFrame());
+        /** 是否正在播放动画 */
+        private boolean animating = false;
+        /** 动画开始时间（纳秒） */
+        private long animationStart;
+        /** 移动前每格的指数（滑动阶段绘制它们） */
+        private final byte[] animationFrom = new byte[n * n];
+        /** 移动前每个格子滑向的格子下标（-1表示空格） */
+        private final int[] destinations = new int[n * n];
+        /** 有数字滑入的格子掩码 */
+        private long destinationMask;
+        /** 合并产生的格子掩码（弹出效果） */
+        private long mergedMask;
+        /** 以下为captureMove的暂存区：移动确认有效后才复制到上面的动画数据（动画进行中仍在读取它们） */
+        private final byte[] pendingFrom = new byte[n * n];
+        private final int[] pendingDestinations = new int[n * n];
+        private long pendingDestinationMask;
+        private long pendingMergedMask;
+        /** 新生成数字的格子掩码（放大出现效果） */
+        private long spawnMask;
+        /** 上一帧时间（纳秒，0表示本段动画还没有帧） */
+        private long lastFrameTime;
+        /** 帧间隔统计：帧数、总和、平方和、最大值（纳秒） */
+        private long frameCount;
+        private long frameSum;
+        private double frameSquareSum;
+        private long frameMax;
+
+        BoardPanel() {
+            setBackground(BOARD_COLOR);
+            setOpaque(true);
+            setPreferredSize(new Dimension(Math.max(400, n * 80), Math.max(400, n * 80)));
+            animationTimer.setCoalesce(true);
+            Arrays.fill(painted, (byte) -1);
+        }
+
+        boolean isAnimating() {
+            return animating;
+        }
+
+        /**
+         * 移动前调用：把每格当前的指数和移动后的去向记到暂存区（移动无效时直接丢弃）
+         * @param direction 移动方向
+         */
+        void captureMove(int direction) {
+            for (int cell = 0; cell < pendingFrom.length; cell++) {
+                pendingFrom[cell] = (byte) grid.get(cell / n, cell % n);
+            }
+            pendingMergedMask = grid.computeTransitions(direction, pendingDestinations);
+            pendingDestinationMask = 0;
+            for (int cell = 0; cell < pendingDestinations.length; cell++) {
+                if (pendingDestinations[cell] >= 0) pendingDestinationMask |= 1L << pendingDestinations[cell];
+            }
+        }
+
+        /**
+         * 移动有效时调用：把暂存区交给动画
+         */
+        void commitMove() {
+            System.arraycopy(pendingFrom, 0, animationFrom, 0, pendingFrom.length);
+            System.arraycopy(pendingDestinations, 0, destinations, 0, pendingDestinations.length);
+            destinationMask = pendingDestinationMask;
+            mergedMask = pendingMergedMask;
+        }
+
+        /**
+         * 开始一次移动动画（在有效移动并生成新数字之后调用；上一段动画若未结束则直接跳到终点）
+         */
+        void animateMove() {
+            spawnMask = 0;
+            for (int cell = 0; cell < animationFrom.length; cell++) {
+                if (grid.get(cell / n, cell % n) != 0 && (destinationMask & (1L << cell)) == 0) {
+                    spawnMask |= 1L << cell;
+                }
+            }
+            animating = true;
+            animationStart = System.nanoTime();
+            lastFrameTime = 0;
+            if (!animationTimer.isRunning()) animationTimer.start();
+            repaint();
+        }
+
+        /**
+         * 立即结束动画（重新开始或关闭窗口时调用，不触发排队按键）
+         */
+        void stopAnimation() {
+            animationTimer.stop();
+            if (animating) {
+                animating = false;
+                repaint();
+            }
+        }
+
+        /**
+         * 动画时钟回调：记录帧间隔，动画结束时停表、汇报帧时间并处理排队的按键
+         */
+        private void onFrame() {
+            long now = System.nanoTime();
+            if (lastFrameTime != 0) {
+                long interval = now - lastFrameTime;
+                frameCount++;
+                frameSum += interval;
+                frameSquareSum += (double) interval * interval;
+                frameMax = Math.max(frameMax, interval);
+            }
+            lastFrameTime = now;
+            if (now - animationStart >= SLIDE_NANOS + POP_NANOS) {
+                animating = false;
+                animationTimer.stop();
+                repaint();
+                reportFrameStats();
+                onAnimationFinished();
+            } else {
+                repaint();
+            }
+        }
+
+        /**
+         * 在界面底部显示累计的帧间隔统计（平均值、标准差、最大值）
+         */
+        private void reportFrameStats() {
+            if (frameCount == 0) return;
+            double mean = (double) frameSum / frameCount;
+            double deviation = Math.sqrt(Math.max(0, frameSquareSum / frameCount - mean * mean));
+            frameLabel.setText(String.format("动画帧间隔: 平均 %.1fms  抖动 %.1fms  最大 %.1fms  （共%d帧）",
+                    mean / 1e6, deviation / 1e6, frameMax / 1e6, frameCount));
+        }
+
+        /**
+         * 显示当前棋盘：只重绘与上次不同的格子
+         */
+        void showBoard() {
+            int size = cellSize();
+            for (int cell = 0; cell < painted.length; cell++) {
+                int exponent = grid.get(cell / n, cell % n);
+                if (painted[cell] == exponent) continue;
+                painted[cell] = (byte) exponent;
+                repaint(cellX(cell % n, size), cellY(cell / n, size), size, size);
+            }
+        }
+
+        /** 格子边长（按面板较短边计算，保证正方形） */
+        private int cellSize() {
+            return Math.max(1, (Math.min(getWidth(), getHeight()) - CELL_GAP * (n + 1)) / n);
+        }
+
+        private int offsetX(int size) {
+            return (getWidth() - size * n - CELL_GAP * (n - 1)) / 2;
+        }
+
+        private int offsetY(int size) {
+            return (getHeight() - size * n - CELL_GAP * (n - 1)) / 2;
+        }
+
+        private int cellX(int col, int size) {
+            return offsetX(size) + col * (size + CELL_GAP);
+        }
+
+        private int cellY(int row, int size) {
+            return offsetY(size) + row * (size + CELL_GAP);
+        }
+
+        /**
+         * 按当前格子边长重建所有格子图片（只在尺寸变化时执行）
+         */
+        private void rebuildTileImages(int size) {
+            Font font = new Font("微软雅黑", Font.BOLD, Math.max(10, size * 2 / 5));
+            Font smallFont = font.deriveFont((float) Math.max(8, size * 3 / 10));
+            Font tinyFont = font.deriveFont((float) Math.max(6, size / 5));
+            for (int exponent = 0; exponent < tileImages.length; exponent++) {
+                BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g2 = image.createGraphics();
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                g2.setColor(CELL_COLORS[exponent]);
+                g2.fillRoundRect(0, 0, size, size, size / 8, size / 8);
+                if (exponent > 0) {
+                    String text = String.valueOf(Board2048.tileValue(exponent));
+                    g2.setFont(text.length() > 5 ? tinyFont : text.length() > 3 ? smallFont : font);
+                    g2.setColor(exponent <= 2 ? new Color(119, 110, 101) : Color.WHITE);
+                    FontMetrics fm = g2.getFontMetrics();
+                    g2.drawString(text, (size - fm.stringWidth(text)) / 2, (size - fm.getHeight()) / 2 + fm.getAscent());
+                }
+                g2.dispose();
+                tileImages[exponent] = image;
+            }
+            tileImageSize = size;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            int size = cellSize();
+            if (size != tileImageSize) rebuildTileImages(size);
+            if (animating) {
+                paintAnimation(g, size);
+                return;
+            }
+            g.getClipBounds(clip);
+            for (int cell = 0; cell < painted.length; cell++) {
+                int x = cellX(cell % n, size);
+                int y = cellY(cell / n, size);
+                if (painted[cell] < 0 || !clip.intersects(x, y, size, size)) continue;
+                g.drawImage(tileImages[painted[cell]], x, y, null);
+            }
+        }
+    
+        /**
+         * 绘制动画帧：滑动阶段按移动前的棋盘插值每个数字的位置；
+         * 之后的阶段绘制新棋盘，合并出的格子先放大再恢复，新数字从小变大
+         */
+        private void paintAnimation(Graphics g, int size) {
+            long elapsed = System.nanoTime() - animationStart;
+            for (int cell = 0; cell < painted.length; cell++) {
+                g.drawImage(tileImages[0], cellX(cell % n, size), cellY(cell / n, size), null);
+            }
+            if (elapsed < SLIDE_NANOS) {
+                double t = (double) elapsed / SLIDE_NANOS;
+                t = t * (2 - t); // 缓出
+                for (int cell = 0; cell < animationFrom.length; cell++) {
+                    int exponent = animationFrom[cell];
+                    if (exponent == 0) continue;
+                    int to = destinations[cell];
+                    int fromX = cellX(cell % n, size);
+                    int fromY = cellY(cell / n, size);
+                    int x = fromX + (int) Math.round((cellX(to % n, size) - fromX) * t);
+                    int y = fromY + (int) Math.round((cellY(to / n, size) - fromY) * t);
+                    g.drawImage(tileImages[exponent], x, y, null);
+                }
+                return;
+            }
+            double t = Math.min(1.0, (double) (elapsed - SLIDE_NANOS) / POP_NANOS);
+            for (int cell = 0; cell < painted.length; cell++) {
+                int exponent = painted[cell];
+                if (exponent <= 0) continue;
+                double scale = 1.0;
+                if ((mergedMask & (1L << cell)) != 0) {
+                    scale = 1.0 + 0.2 * Math.sin(Math.PI * t);
+                } else if ((spawnMask & (1L << cell)) != 0) {
+                    scale = t;
+                }
+                int scaled = (int) Math.round(size * scale);
+                int x = cellX(cell % n, size) + (size - scaled) / 2;
+                int y = cellY(cell / n, size) + (size - scaled) / 2;
+                g.drawImage(tileImages[exponent], x, y, scaled, scaled, null);
+            }
+        }
+    }
 }
\ No newline at end of file
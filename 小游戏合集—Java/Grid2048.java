@@ -0,0 +1,404 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * 可变边长（3x3~8x8）的2048棋盘
+ * 1. 边长4直接使用Board2048的位棋盘（一个long）
+ * 2. 其他边长每行存成一个long，每格8位存放指数（最多8格刚好64位）
+ * 3. 边长3和5为每种边长预计算行移动表（以4位压缩的行值为下标，首次使用时生成），
+ *    移动时每行（列）一次查表；边长6~8的状态空间太大无法建表，改为逐格滑动，
+ *    但同样只在long上做位运算，不分配对象
+ * 4. 是否有空格、是否有相邻相同数字都按整行做字节并行判断，代价为O(行数)
+ */
+public final class Grid2048 {
+    /** 支持的最小边长 */
+    public static final int MIN_SIZE = 3;
+    /** 支持的最大边长 */
+    public static final int MAX_SIZE = 8;
+    /** 允许合并出的最大指数（2^30，保证数字能用int表示） */
+    public static final int MAX_EXPONENT = 30;
+
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    /** 各边长的行移动表（下标为边长，只有3和5会生成） */
+    private static final LineTable[] LINE_TABLES = new LineTable[MAX_SIZE + 1];
+
+    /** 边长 */
+    private final int size;
+    /** 每行有效字节的掩码 */
+    private final long laneMask;
+    /** 边长4时的位棋盘 */
+    private long bitboard;
+    /** 边长不为4时的行数组（每格8位指数） */
+    private final long[] rows;
+    /** 按列操作时复用的临时行 */
+    private final long[] columns;
+    /** 行移动表（没有表时为null） */
+    private final LineTable table;
+
+    /**
+     * 创建空棋盘
+     * @param size 边长（3~8）
+     */
+    public Grid2048(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("棋盘边长必须在" + MIN_SIZE + "到" + MAX_SIZE + "之间");
+        }
+        this.size = size;
+        this.laneMask = size == 8 ? -1L : (1L << (8 * size)) - 1;
+        this.rows = size == 4 ? null : new long[size];
+        this.columns = size == 4 ? null : new long[size];
+        this.table = size == 3 || size == 5 ? lineTable(size) : null;
+    }
+
+    /**
+     * 获取（必要时生成）指定边长的行移动表
+     */
+    private static synchronized LineTable lineTable(int size) {
+        if (LINE_TABLES[size] == null) LINE_TABLES[size] = new LineTable(size);
+        return LINE_TABLES[size];
+    }
+
+    /** @return 边长 */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 清空棋盘
+     */
+    public void clear() {
+        bitboard = 0L;
+        if (rows != null) Arrays.fill(rows, 0L);
+    }
+
+    /**
+     * 棋盘快照占用的long个数（边长4为1，其他为边长）
+     * @return long个数
+     */
+    public int words() {
+        return size == 4 ? 1 : size;
+    }
+
+    /**
+     * 把棋盘写入数组（用于保存快照）
+     * @param target 目标数组
+     * @param offset 起始下标（写入words()个long）
+     */
+    public void copyTo(long[] target, int offset) {
+        if (size == 4) {
+            target[offset] = bitboard;
+        } else {
+            System.arraycopy(rows, 0, target, offset, size);
+        }
+    }
+
+    /**
+     * 从数组恢复棋盘（copyTo的逆操作）
+     * @param source 源数组
+     * @param offset 起始下标
+     */
+    public void copyFrom(long[] source, int offset) {
+        if (size == 4) {
+            bitboard = source[offset];
+        } else {
+            System.arraycopy(source, offset, rows, 0, size);
+        }
+    }
+
+    /**
+     * 边长4时返回位棋盘（供期望最大搜索等只支持4x4的AI使用）
+     * @return Board2048位棋盘
+     */
+    public long bitboard() {
+        if (size != 4) throw new IllegalStateException("只有4x4棋盘有位棋盘表示");
+        return bitboard;
+    }
+
+    /**
+     * 读取指定格子的指数
+     * @param row 行
+     * @param col 列
+     * @return 指数（0表示空）
+     */
+    public int get(int row, int col) {
+        if (size == 4) return Board2048.get(bitboard, row, col);
+        return (int) ((rows[row] >>> (8 * col)) & 0xFF);
+    }
+
+    /**
+     * 设置指定格子的指数
+     * @param row 行
+     * @param col 列
+     * @param exponent 指数
+     */
+    public void set(int row, int col, int exponent) {
+        if (size == 4) {
+            bitboard = Board2048.set(bitboard, row, col, exponent);
+        } else {
+            int shift = 8 * col;
+            rows[row] = (rows[row] & ~(0xFFL << shift)) | ((long) exponent << shift);
+        }
+    }
+
+    /**
+     * 按指定方向移动合并
+     * @param direction 方向（Board2048.UP/DOWN/LEFT/RIGHT）
+     * @return 是否发生有效移动
+     */
+    public boolean move(int direction) {
+        if (size == 4) {
+            long moved = Board2048.move(bitboard, direction);
+            if (moved == bitboard) return false;
+            bitboard = moved;
+            return true;
+        }
+        boolean reverse = direction == Board2048.RIGHT || direction == Board2048.DOWN;
+        if (direction == Board2048.LEFT || direction == Board2048.RIGHT) {
+            boolean moved = false;
+            for (int r = 0; r < size; r++) {
+                long line = slide(rows[r], reverse);
+                moved |= line != rows[r];
+                rows[r] = line;
+            }
+            return moved;
+        }
+        // 上下移动：先把列收集成行，滑动后再写回
+        transpose(rows, columns);
+        boolean moved = false;
+        for (int c = 0; c < size; c++) {
+            long line = slide(columns[c], reverse);
+            moved |= line != columns[c];
+            columns[c] = line;
+        }
+        if (moved) transpose(columns, rows);
+        return moved;
+    }
+
+    /**
+     * 行列转置（from的第i行第j格写到to的第j行第i格）
+     */
+    private void transpose(long[] from, long[] to) {
+        for (int j = 0; j < size; j++) {
+            long line = 0;
+            for (int i = 0; i < size; i++) {
+                line |= ((from[i] >>> (8 * j)) & 0xFF) << (8 * i);
+            }
+            to[j] = line;
+        }
+    }
+
+    /**
+     * 滑动合并一行：指数都小于16且有移动表时查表，否则逐格滑动
+     * @param line 行（每格8位）
+     * @param reverse true表示向高位方向（右/下）滑动
+     * @return 滑动后的行
+     */
+    private long slide(long line, boolean reverse) {
+        if (table != null && (line & 0xF0F0F0F0F0F0F0F0L) == 0) {
+            int index = 0;
+            for (int c = 0; c < size; c++) {
+                index |= (int) ((line >>> (8 * c)) & 0xF) << (4 * c);
+            }
+            int result = reverse ? table.right[index] : table.left[index];
+            if (result < 0) return slideBytes(line, size, reverse); // 合并出16及以上，4位放不下
+            long out = 0;
+            for (int c = 0; c < size; c++) {
+                out |= (long) ((result >>> (4 * c)) & 0xF) << (8 * c);
+            }
+            return out;
+        }
+        return slideBytes(line, size, reverse);
+    }
+
+    /**
+     * 逐格滑动合并一行（每格8位），每个数字每次最多合并一次
+     */
+    private static long slideBytes(long line, int size, boolean reverse) {
+        long out = 0;
+        int target = 0;
+        int pending = 0;
+        for (int k = 0; k < size; k++) {
+            int c = reverse ? size - 1 - k : k;
+            int value = (int) ((line >>> (8 * c)) & 0xFF);
+            if (value == 0) continue;
+            if (pending == 0) {
+                pending = value;
+            } else if (pending == value && value < MAX_EXPONENT) {
+                out |= (long) (value + 1) << (8 * lane(target++, size, reverse));
+                pending = 0;
+            } else {
+                out |= (long) pending << (8 * lane(target++, size, reverse));
+                pending = value;
+            }
+        }
+        if (pending != 0) out |= (long) pending << (8 * lane(target, size, reverse));
+        return out;
+    }
+
+    private static int lane(int k, int size, boolean reverse) {
+        return reverse ? size - 1 - k : k;
+    }
+
+    /**
+     * 计算一次移动中每个格子的去向（格子下标为行*边长+列）
+     * @param direction 方向
+     * @param destinations 长度至少为边长平方的输出数组：有数字的格子写入目标下标，空格写入-1
+     * @return 合并产生的格子掩码（第i位为1表示第i格由合并产生）
+     */
+    public long computeTransitions(int direction, int[] destinations) {
+        if (size == 4) return Board2048.computeTransitions(bitboard, direction, destinations) & 0xFFFFL;
+        long mergedMask = 0;
+        for (int line = 0; line < size; line++) {
+            int target = 0;
+            int pendingCell = -1;
+            int pendingValue = 0;
+            for (int k = 0; k < size; k++) {
+                int cell = lineCell(direction, line, k);
+                int value = get(cell / size, cell % size);
+                destinations[cell] = -1;
+                if (value == 0) continue;
+                if (pendingValue == 0) {
+                    pendingCell = cell;
+                    pendingValue = value;
+                } else if (pendingValue == value && value < MAX_EXPONENT) {
+                    int to = lineCell(direction, line, target++);
+                    destinations[pendingCell] = to;
+                    destinations[cell] = to;
+                    mergedMask |= 1L << to;
+                    pendingValue = 0;
+                } else {
+                    destinations[pendingCell] = lineCell(direction, line, target++);
+                    pendingCell = cell;
+                    pendingValue = value;
+                }
+            }
+            if (pendingValue != 0) destinations[pendingCell] = lineCell(direction, line, target);
+        }
+        return mergedMask;
+    }
+
+    private int lineCell(int direction, int line, int k) {
+        switch (direction) {
+            case Board2048.UP: return size * k + line;
+            case Board2048.DOWN: return size * (size - 1 - k) + line;
+            case Board2048.LEFT: return size * line + k;
+            default: return size * line + size - 1 - k;
+        }
+    }
+
+    /**
+     * 每个字节为0时对应字节最高位为1的掩码（逐字节精确判断）
+     */
+    private static long zeroBytes(long x) {
+        return ~(((x & SEVEN_BITS) + SEVEN_BITS) | x) & HIGH_BITS;
+    }
+
+    /**
+     * 统计空白格子数
+     * @return 空格数
+     */
+    public int countEmpty() {
+        if (size == 4) return Board2048.countEmpty(bitboard);
+        int empty = 0;
+        for (int r = 0; r < size; r++) {
+            empty += Long.bitCount(zeroBytes(rows[r]) & laneMask);
+        }
+        return empty;
+    }
+
+    /**
+     * 在随机空白格子生成2（90%概率）或4（10%概率）
+     * @param random 随机数生成器
+     */
+    public void addRandomTile(RandomGenerator random) {
+        if (size == 4) {
+            bitboard = Board2048.addRandomTile(bitboard, random);
+            return;
+        }
+        int empty = countEmpty();
+        if (empty == 0) return;
+        int k = random.nextInt(empty);
+        int exponent = random.nextInt(10) == 0 ? 2 : 1;
+        for (int r = 0; r < size; r++) {
+            long zeros = zeroBytes(rows[r]) & laneMask;
+            int count = Long.bitCount(zeros);
+            if (k >= count) {
+                k -= count;
+                continue;
+            }
+            for (int i = 0; i < k; i++) zeros &= zeros - 1;
+            int shift = Long.numberOfTrailingZeros(zeros) - 7;
+            rows[r] |= (long) exponent << shift;
+            return;
+        }
+    }
+
+    /**
+     * 判断是否还能移动（存在空格或存在可合并的相邻数字），每行只做几次整字运算
+     * @return 能移动返回true
+     */
+    public boolean canMove() {
+        if (size == 4) return Board2048.canMove(bitboard);
+        long pairMask = laneMask >>> 8; // 水平相邻比较只看前size-1格
+        for (int r = 0; r < size; r++) {
+            long row = rows[r];
+            if ((zeroBytes(row) & laneMask) != 0) return true;
+            if ((zeroBytes(row ^ (row >>> 8)) & pairMask) != 0) return true;
+            if (r + 1 < size && (zeroBytes(row ^ rows[r + 1]) & laneMask) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取棋盘中最大的指数
+     * @return 最大指数
+     */
+    public int maxExponent() {
+        if (size == 4) return Board2048.maxExponent(bitboard);
+        int max = 0;
+        for (int r = 0; r < size; r++) {
+            for (long row = rows[r]; row != 0; row >>>= 8) {
+                max = Math.max(max, (int) (row & 0xFF));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 预计算的行移动表（4位压缩的行值 -> 左移/右移后的行值）
+     */
+    private static class LineTable {
+        final int[] left;
+        final int[] right;
+
+        LineTable(int size) {
+            int entries = 1 << (4 * size);
+            left = new int[entries];
+            right = new int[entries];
+            for (int index = 0; index < entries; index++) {
+                long line = 0;
+                for (int c = 0; c < size; c++) {
+                    line |= (long) ((index >>> (4 * c)) & 0xF) << (8 * c);
+                }
+                left[index] = pack(slideBytes(line, size, false), size);
+                right[index] = pack(slideBytes(line, size, true), size);
+            }
+        }
+
+        /**
+         * 把8位一格的行压缩回4位一格
+         * @return 压缩后的行，有格子超过15时返回-1（查表方改为逐格滑动）
+         */
+        private static int pack(long line, int size) {
+            int result = 0;
+            for (int c = 0; c < size; c++) {
+                int value = (int) ((line >>> (8 * c)) & 0xFF);
+                if (value > 15) return -1;
+                result |= value << (4 * c);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * 2048撤销/重做历史（固定内存的环形缓冲区）
+ * 每条记录只保存压缩后的棋盘（4x4为一个long，其他边长为每行一个long）和分数，
+ * 内存用满后自动覆盖最早的记录；撤销、重做、记录新状态都是O(1)。
+ */
+public class History2048 {
+    /** 每条记录的棋盘占用的long个数 */
+    private final int words;
+    /** 最多保存的记录数 */
+    private final int capacity;
+    /** 棋盘快照（第i条记录占boards[i*words, (i+1)*words)） */
+    private final long[] boards;
+    /** 每条记录的当前分数 */
+    private final int[] scores;
+    /** 每条记录的历史最高分 */
+    private final int[] highScores;
+    /** 最早一条记录在环形缓冲区中的下标 */
+    private int start = 0;
+    /** 已保存的记录数（包括可重做的记录） */
+    private int count = 0;
+    /** 当前状态相对最早记录的偏移（-1表示没有记录） */
+    private int position = -1;
+
+    /**
+     * 按内存上限创建历史
+     * @param words 每个棋盘快照占用的long个数（Grid2048.words()）
+     * @param megabytes 内存上限（MB）
+     */
+    public History2048(int words, int megabytes) {
+        this.words = words;
+        long bytesPerEntry = 8L * words + 8; // 棋盘 + 两个int分数
+        this.capacity = (int) Math.max(2, Math.min(Integer.MAX_VALUE / words, megabytes * 1024L * 1024L / bytesPerEntry));
+        this.boards = new long[capacity * words];
+        this.scores = new int[capacity];
+        this.highScores = new int[capacity];
+    }
+
+    /**
+     * 清空所有记录
+     */
+    public void clear() {
+        start = 0;
+        count = 0;
+        position = -1;
+    }
+
+    /**
+     * 记录一个新状态（会丢弃当前可重做的记录，缓冲区满时覆盖最早的记录）
+     * @param grid 棋盘
+     * @param score 当前分数
+     * @param highScore 历史最高分
+     */
+    public void push(Grid2048 grid, int score, int highScore) {
+        count = position + 1;
+        if (count == capacity) {
+            start = (start + 1) % capacity;
+            count--;
+        }
+        int slot = (start + count) % capacity;
+        grid.copyTo(boards, slot * words);
+        scores[slot] = score;
+        highScores[slot] = highScore;
+        position = count;
+        count++;
+    }
+
+    /** @return 是否可以撤销 */
+    public boolean canUndo() {
+        return position > 0;
+    }
+
+    /** @return 是否可以重做 */
+    public boolean canRedo() {
+        return position + 1 < count;
+    }
+
+    /**
+     * 回到上一个状态，把棋盘写回grid
+     * @param grid 棋盘
+     * @return 是否成功（没有更早的记录时返回false）
+     */
+    public boolean undo(Grid2048 grid) {
+        if (!canUndo()) return false;
+        position--;
+        grid.copyFrom(boards, currentSlot() * words);
+        return true;
+    }
+
+    /**
+     * 前进到下一个状态，把棋盘写回grid
+     * @param grid 棋盘
+     * @return 是否成功（没有可重做的记录时返回false）
+     */
+    public boolean redo(Grid2048 grid) {
+        if (!canRedo()) return false;
+        position++;
+        grid.copyFrom(boards, currentSlot() * words);
+        return true;
+    }
+
+    /** @return 当前状态的分数 */
+    public int score() {
+        return scores[currentSlot()];
+    }
+
+    /** @return 当前状态的历史最高分 */
+    public int highScore() {
+        return highScores[currentSlot()];
+    }
+
+    /** @return 已保存的记录数 */
+    public int size() {
+        return count;
+    }
+
+    /** @return 最多能保存的记录数 */
+    public int capacity() {
+        return capacity;
+    }
+
+    private int currentSlot() {
+        return (start + position) % capacity;
+    }
+}
@@ -0,0 +1,430 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 无尽扫雷雷区模型（无界面）
+ * 雷区向四个方向无限延伸，按CHUNK_SIZE x CHUNK_SIZE分块，格子用全局坐标(行, 列)表示（可以为负）：
+ * 1. 每块的雷由“世界种子 + 块坐标”混合出的种子确定地生成（部分Fisher–Yates，每块雷数相同），
+ *    第一次被查看或翻开时才生成；起点(0, 0)周围3x3保证无雷，开局翻开起点必然是一片空白
+ * 2. 生成好的块（雷位图 + 周围雷数）放在容量固定的LRU缓存中，最久没用的块被淘汰，需要时按种子重新生成，结果完全相同
+ * 3. 玩家动过（翻开、插旗）的块另外保存状态：每格2位，一块256字节；没动过的块不占这部分内存，
+ *    所以滚动得再远，内存也只取决于缓存容量和玩家动过的块数
+ * 4. 翻开空白区域时展开队列按全局坐标跨块进行，一次操作改变的格子记录在一个批次里
+ * 只能在一个线程（界面线程）中使用。
+ */
+public class InfiniteMineField {
+    /** 块边长的以2为底的对数 */
+    public static final int CHUNK_SHIFT = 5;
+    /** 块边长（格） */
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+    /** 格子状态：未翻开 */
+    public static final byte HIDDEN = 0;
+    /** 格子状态：已翻开 */
+    public static final byte REVEALED = 1;
+    /** 格子状态：已插旗 */
+    public static final byte FLAGGED = 2;
+    /** 格子状态：踩到的雷 */
+    public static final byte EXPLODED = 3;
+
+    /**
+     * 一次操作最多翻开的格子数（雷密度不太低时空白区域本来就是有限的；密度很低时空白区域可能无限延伸，
+     * 达到上限后边缘的空白格子旁边还有未翻开的格子，点击这些空白格子时从那里继续展开，见chord）
+     */
+    private static final int MAX_BATCH = 1 << 16;
+
+    /** 世界种子 */
+    private final long seed;
+    /** 每块的雷数 */
+    private final int minesPerChunk;
+    /** 缓存的块数上限 */
+    private final int cacheCapacity;
+    /** 生成好的块（按访问顺序排列，超过容量时淘汰最久没用的） */
+    private final LinkedHashMap<Long, Chunk> cache;
+    /** 玩家动过的块的状态（每格2位，键为块坐标） */
+    private final Map<Long, long[]> touched = new HashMap<>();
+    /** 洗牌用的临时数组 */
+    private final int[] shuffle = new int[CHUNK_CELLS];
+    /** 最近访问的块（翻开、绘制时相邻格子大多在同一块，省去查表） */
+    private Chunk lastChunk;
+    /** 本次操作改变状态的格子（全局坐标打包成long，同时用作展开队列） */
+    private long[] changed = new long[256];
+    /** 本次操作改变状态的格子数 */
+    private int changedCount;
+    /** 已翻开的安全格子数 */
+    private long revealedCount;
+    /** 插旗数 */
+    private int flagCount;
+    /** 是否踩到了雷 */
+    private boolean lost;
+    /** 生成（含淘汰后重新生成）的块数 */
+    private long generatedChunks;
+
+    /**
+     * @param seed 世界种子（相同种子得到完全相同的雷区）
+     * @param density 雷密度（每格是雷的比例）
+     * @param cacheCapacity 缓存的块数上限（至少要装下一屏和它周围一圈）
+     */
+    public InfiniteMineField(long seed, double density, int cacheCapacity) {
+        if (density <= 0 || density >= 0.5) throw new IllegalArgumentException("雷密度必须在0到0.5之间");
+        this.seed = seed;
+        this.minesPerChunk = (int) Math.round(density * CHUNK_CELLS);
+        this.cacheCapacity = cacheCapacity;
+        this.cache = new LinkedHashMap<>(cacheCapacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                return size() > InfiniteMineField.this.cacheCapacity;
+            }
+        };
+    }
+
+    /**
+     * @return 块坐标或格子坐标打包成的键
+     */
+    private static long key(int row, int col) {
+        return (long) row << 32 | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return 格子在块内的编号
+     */
+    private static int local(int row, int col) {
+        return (row & CHUNK_MASK) << CHUNK_SHIFT | (col & CHUNK_MASK);
+    }
+
+    /**
+     * 取格子所在的块（不在缓存中时生成）
+     */
+    private Chunk chunk(int row, int col) {
+        int chunkRow = row >> CHUNK_SHIFT; // 算术右移即向下取整，负坐标也正确
+        int chunkCol = col >> CHUNK_SHIFT;
+        Chunk chunk = lastChunk;
+        if (chunk != null && chunk.row == chunkRow && chunk.col == chunkCol) return chunk;
+        long key = key(chunkRow, chunkCol);
+        chunk = cache.get(key);
+        if (chunk == null) {
+            chunk = generate(chunkRow, chunkCol, key);
+            cache.put(key, chunk);
+        }
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    /**
+     * 按种子生成一块：自己的雷、周围8块边缘的雷决定周围雷数，动过的块接上保存的状态
+     */
+    private Chunk generate(int chunkRow, int chunkCol, long key) {
+        generatedChunks++;
+        // 带一圈边框的雷表（边框来自相邻块，相邻块的雷同样由种子决定，无需生成整块）
+        int size = CHUNK_SIZE + 2;
+        boolean[] padded = new boolean[size * size];
+        long[] own = null;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                long[] mines = mines(chunkRow + dr, chunkCol + dc);
+                if (dr == 0 && dc == 0) own = mines;
+                int r0 = dr < 0 ? CHUNK_SIZE - 1 : 0, r1 = dr > 0 ? 0 : CHUNK_SIZE - 1;
+                int c0 = dc < 0 ? CHUNK_SIZE - 1 : 0, c1 = dc > 0 ? 0 : CHUNK_SIZE - 1;
+                for (int r = r0; r <= r1; r++) {
+                    for (int c = c0; c <= c1; c++) {
+                        int i = r << CHUNK_SHIFT | c;
+                        if ((mines[i >>> 6] & 1L << i) == 0) continue;
+                        padded[(r + 1 + dr * CHUNK_SIZE) * size + c + 1 + dc * CHUNK_SIZE] = true;
+                    }
+                }
+            }
+        }
+        byte[] counts = new byte[CHUNK_CELLS];
+        for (int r = 0; r < CHUNK_SIZE; r++) {
+            for (int c = 0; c < CHUNK_SIZE; c++) {
+                int count = 0;
+                for (int pr = r; pr <= r + 2; pr++) {
+                    for (int pc = c; pc <= c + 2; pc++) {
+                        if (padded[pr * size + pc]) count++;
+                    }
+                }
+                if (padded[(r + 1) * size + c + 1]) count--; // 不算自己
+                counts[r << CHUNK_SHIFT | c] = (byte) count;
+            }
+        }
+        return new Chunk(chunkRow, chunkCol, key, own, counts, touched.get(key));
+    }
+
+    /**
+     * 一块的雷位图：以“世界种子 + 块坐标”为种子做部分Fisher–Yates，起点周围3x3除外
+     */
+    private long[] mines(int chunkRow, int chunkCol) {
+        SplittableRandom random = new SplittableRandom(mix(seed ^ mix(key(chunkRow, chunkCol))));
+        for (int i = 0; i < CHUNK_CELLS; i++) {
+            shuffle[i] = i;
+        }
+        long[] mines = new long[CHUNK_CELLS / 64];
+        for (int i = 0; i < minesPerChunk; i++) {
+            int j = i + random.nextInt(CHUNK_CELLS - i);
+            int cell = shuffle[j];
+            shuffle[j] = shuffle[i];
+            shuffle[i] = cell;
+            mines[cell >>> 6] |= 1L << cell;
+        }
+        for (int row = -1; row <= 1; row++) {
+            for (int col = -1; col <= 1; col++) {
+                if (row >> CHUNK_SHIFT == chunkRow && col >> CHUNK_SHIFT == chunkCol) {
+                    int i = local(row, col);
+                    mines[i >>> 6] &= ~(1L << i);
+                }
+            }
+        }
+        return mines;
+    }
+
+    /**
+     * SplitMix64的混合函数：相邻的块坐标得到互不相关的种子
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 设置格子状态；块第一次被动过时为它分配状态数组并保存
+     */
+    private void setState(Chunk chunk, int i, byte value) {
+        if (chunk.state == null) {
+            chunk.state = new long[CHUNK_CELLS / 32];
+            touched.put(chunk.key, chunk.state);
+        }
+        int shift = (i & 31) << 1;
+        chunk.state[i >>> 5] = chunk.state[i >>> 5] & ~(3L << shift) | (long) value << shift;
+    }
+
+    /**
+     * 翻开一个格子；周围没有雷时按队列迭代展开（跨块），踩到雷时游戏失败
+     * @param row 行
+     * @param col 列
+     * @return 本次翻开的格子数（可用changedRow(i)/changedCol(i)逐个取出）
+     */
+    public int reveal(int row, int col) {
+        changedCount = 0;
+        if (lost) return 0;
+        Chunk chunk = chunk(row, col);
+        int i = local(row, col);
+        if (chunk.state(i) != HIDDEN) return 0;
+        if (chunk.isMine(i)) {
+            explode(chunk, row, col);
+        } else {
+            open(row, col);
+            expand();
+        }
+        return changedCount;
+    }
+
+    /**
+     * 双击数字：周围插旗数等于数字时，把其余未翻开的邻居作为一个批次全部翻开（旗插错时会踩到雷）；
+     * 点击已翻开的空白格子时从它继续展开（上一次展开达到MAX_BATCH时留下的未翻开邻居）
+     * @param row 行
+     * @param col 列
+     * @return 本次翻开的格子数（条件不满足时为0）
+     */
+    public int chord(int row, int col) {
+        changedCount = 0;
+        if (lost || state(row, col) != REVEALED) return 0;
+        int count = count(row, col);
+        if (count == 0) {
+            // 把这个格子放在队首作为展开起点，展开完再从批次中去掉（它本来就是翻开的）
+            add(row, col);
+            expand();
+            changed[0] = changed[--changedCount];
+            return changedCount;
+        }
+        int flags = 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                if (state(r, c) == FLAGGED) flags++;
+            }
+        }
+        if (flags != count) return 0;
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = col - 1; c <= col + 1; c++) {
+                Chunk chunk = chunk(r, c);
+                int i = local(r, c);
+                if (chunk.state(i) != HIDDEN) continue;
+                if (chunk.isMine(i)) {
+                    explode(chunk, r, c);
+                } else {
+                    open(r, c);
+                }
+            }
+        }
+        expand();
+        return changedCount;
+    }
+
+    /**
+     * 展开批次：周围没有雷的安全格子把未翻开的邻居追加到批次末尾
+     */
+    private void expand() {
+        for (int k = 0; k < changedCount; k++) {
+            int row = changedRow(k);
+            int col = changedCol(k);
+            Chunk chunk = chunk(row, col);
+            int i = local(row, col);
+            if (chunk.isMine(i) || chunk.counts[i] != 0) continue;
+            for (int r = row - 1; r <= row + 1; r++) {
+                for (int c = col - 1; c <= col + 1; c++) {
+                    open(r, c);
+                }
+            }
+        }
+    }
+
+    /**
+     * 翻开一个未翻开的安全格子并加入批次（空白格子的邻居都不是雷）
+     */
+    private void open(int row, int col) {
+        Chunk chunk = chunk(row, col);
+        int i = local(row, col);
+        if (chunk.state(i) != HIDDEN || changedCount == MAX_BATCH) return;
+        setState(chunk, i, REVEALED);
+        add(row, col);
+        revealedCount++;
+    }
+
+    private void explode(Chunk chunk, int row, int col) {
+        setState(chunk, local(row, col), EXPLODED);
+        add(row, col);
+        lost = true;
+    }
+
+    private void add(int row, int col) {
+        if (changedCount == changed.length) changed = Arrays.copyOf(changed, changedCount * 2);
+        changed[changedCount++] = key(row, col);
+    }
+
+    /**
+     * 插旗/取消插旗（已翻开的格子不变）
+     * @param row 行
+     * @param col 列
+     * @return 是否改变了状态
+     */
+    public boolean toggleFlag(int row, int col) {
+        if (lost) return false;
+        Chunk chunk = chunk(row, col);
+        int i = local(row, col);
+        byte state = chunk.state(i);
+        if (state == HIDDEN) {
+            setState(chunk, i, FLAGGED);
+            flagCount++;
+        } else if (state == FLAGGED) {
+            setState(chunk, i, HIDDEN);
+            flagCount--;
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param row 行
+     * @param col 列
+     * @return 格子状态（HIDDEN / REVEALED / FLAGGED / EXPLODED）
+     */
+    public byte state(int row, int col) {
+        return chunk(row, col).state(local(row, col));
+    }
+
+    /**
+     * @param row 行
+     * @param col 列
+     * @return 是否有雷
+     */
+    public boolean isMine(int row, int col) {
+        return chunk(row, col).isMine(local(row, col));
+    }
+
+    /**
+     * @param row 行
+     * @param col 列
+     * @return 周围8格的雷数
+     */
+    public int count(int row, int col) {
+        return chunk(row, col).counts[local(row, col)];
+    }
+
+    /** @return 本次操作第index个改变的格子所在行 */
+    public int changedRow(int index) {
+        return (int) (changed[index] >> 32);
+    }
+
+    /** @return 本次操作第index个改变的格子所在列 */
+    public int changedCol(int index) {
+        return (int) changed[index];
+    }
+
+    /** @return 是否踩到了雷 */
+    public boolean isLost() {
+        return lost;
+    }
+
+    /** @return 已翻开的安全格子数 */
+    public long revealedCount() {
+        return revealedCount;
+    }
+
+    /** @return 插旗数 */
+    public int flagCount() {
+        return flagCount;
+    }
+
+    /** @return 缓存中的块数 */
+    public int cachedChunks() {
+        return cache.size();
+    }
+
+    /** @return 玩家动过的块数（每块保存256字节的状态） */
+    public int touchedChunks() {
+        return touched.size();
+    }
+
+    /** @return 生成（含淘汰后重新生成）的块数 */
+    public long generatedChunks() {
+        return generatedChunks;
+    }
+
+    /**
+     * 一个生成好的块
+     */
+    private static final class Chunk {
+        final int row;
+        final int col;
+        final long key;
+        /** 雷位图（块内编号 = 行 * CHUNK_SIZE + 列） */
+        final long[] mines;
+        /** 周围雷数（含相邻块的雷） */
+        final byte[] counts;
+        /** 状态（每格2位），没动过时为null */
+        long[] state;
+
+        Chunk(int row, int col, long key, long[] mines, byte[] counts, long[] state) {
+            this.row = row;
+            this.col = col;
+            this.key = key;
+            this.mines = mines;
+            this.counts = counts;
+            this.state = state;
+        }
+
+        boolean isMine(int i) {
+            return (mines[i >>> 6] & 1L << i) != 0;
+        }
+
+        byte state(int i) {
+            return state == null ? HIDDEN : (byte) (state[i >>> 5] >>> ((i & 31) << 1) & 3);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * 无尽扫雷窗口：雷区向四周无限延伸，拖动鼠标或按方向键移动视口。
+ * 雷区的分块生成、缓存淘汰和跨块展开由无界面的InfiniteMineField完成，本窗口只负责鼠标、键盘和绘制视口；
+ * 开局自动翻开起点，踩到雷时本局结束，得分为翻开的安全格子数。
+ */
+public class InfiniteMinesweeperGame extends JFrame {
+    private MainFrame mainFrame; // 主菜单窗口引用，用于返回主页
+    private static final int CELL_SIZE = 30; // 每格像素大小
+    private static final int VIEW_COLS = 30; // 初始视口宽度（格）
+    private static final int VIEW_ROWS = 20; // 初始视口高度（格）
+    private static final double DENSITY = 0.16; // 雷密度
+    private static final int CACHE_CHUNKS = 64; // 缓存的块数（远大于一屏可见的块数）
+    private static final int DRAG_THRESHOLD = 4; // 按下后移动超过这么多像素算拖动而不是点击
+    private static final Color HIDDEN_COLOR = new Color(238, 238, 238);
+    private static final Font CELL_FONT = new Font("Dialog", Font.BOLD, 14);
+    private InfiniteMineField field; // 雷区（只在界面线程中调用）
+    private long viewX; // 视口左上角在雷区中的横向像素坐标（可以为负）
+    private long viewY; // 视口左上角在雷区中的纵向像素坐标（可以为负）
+    private JLabel statusLabel; // 得分、插旗数和块数
+    private ViewPanel viewPanel; // 视口面板
+
+    /**
+     * 构造方法
+     * @param mainFrame 主菜单窗口引用，用于返回主页
+     */
+    public InfiniteMinesweeperGame(MainFrame mainFrame) {
+        this.mainFrame = mainFrame;
+        setTitle("扫雷 - 无尽");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(VIEW_COLS * CELL_SIZE + 20, VIEW_ROWS * CELL_SIZE + 90);
+        setLocationRelativeTo(mainFrame);
+        initUI();
+        newGame();
+    }
+
+    /**
+     * 初始化界面：状态栏、视口面板、鼠标和键盘监听
+     */
+    private void initUI() {
+        JPanel statusPanel = new JPanel();
+        statusLabel = new JLabel();
+        statusLabel.setFont(new Font("宋体", Font.BOLD, 16));
+        statusPanel.add(statusLabel);
+        JButton homeBtn = new JButton("回到起点");
+        homeBtn.addActionListener(e -> {
+            centerOn(0, 0);
+            requestFocusInWindow();
+        });
+        statusPanel.add(homeBtn);
+
+        viewPanel = new ViewPanel();
+        viewPanel.setPreferredSize(new Dimension(VIEW_COLS * CELL_SIZE, VIEW_ROWS * CELL_SIZE));
+        ViewMouseListener mouseListener = new ViewMouseListener();
+        viewPanel.addMouseListener(mouseListener);
+        viewPanel.addMouseMotionListener(mouseListener);
+        setLayout(new BorderLayout());
+        add(statusPanel, BorderLayout.NORTH);
+        add(viewPanel, BorderLayout.CENTER);
+
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_UP: scroll(0, -CELL_SIZE); break;
+                    case KeyEvent.VK_DOWN: scroll(0, CELL_SIZE); break;
+                    case KeyEvent.VK_LEFT: scroll(-CELL_SIZE, 0); break;
+                    case KeyEvent.VK_RIGHT: scroll(CELL_SIZE, 0); break;
+                    case KeyEvent.VK_HOME: centerOn(0, 0); break;
+                }
+            }
+        });
+        setFocusable(true);
+    }
+
+    /**
+     * 新的一局：换一个世界种子，视口回到起点并翻开起点（起点周围保证无雷）
+     */
+    private void newGame() {
+        field = new InfiniteMineField(System.nanoTime(), DENSITY, CACHE_CHUNKS);
+        centerOn(0, 0);
+        revealCells(0, 0);
+    }
+
+    /**
+     * 视口以指定格子为中心
+     */
+    private void centerOn(int row, int col) {
+        int width = viewPanel.getWidth() > 0 ? viewPanel.getWidth() : VIEW_COLS * CELL_SIZE;
+        int height = viewPanel.getHeight() > 0 ? viewPanel.getHeight() : VIEW_ROWS * CELL_SIZE;
+        viewX = (long) col * CELL_SIZE + CELL_SIZE / 2 - width / 2;
+        viewY = (long) row * CELL_SIZE + CELL_SIZE / 2 - height / 2;
+        updateStatus();
+        viewPanel.repaint();
+    }
+
+    /**
+     * 移动视口（像素）
+     */
+    private void scroll(long dx, long dy) {
+        viewX += dx;
+        viewY += dy;
+        updateStatus();
+        viewPanel.repaint();
+    }
+
+    /**
+     * 翻开格子：未翻开的格子整片展开（可以跨块），已翻开的数字格子按双击规则翻开周围，
+     * 已翻开的空白格子从它继续展开（一次展开有上限），一次操作只刷新一次视口，踩到雷时结束本局
+     * @param row 行
+     * @param col 列
+     */
+    private void revealCells(int row, int col) {
+        int changed = field.state(row, col) == InfiniteMineField.REVEALED
+                ? field.chord(row, col) : field.reveal(row, col);
+        if (changed == 0) return;
+        updateStatus();
+        viewPanel.repaint();
+        if (field.isLost()) gameOver();
+    }
+
+    private void toggleFlag(int row, int col) {
+        if (field.toggleFlag(row, col)) {
+            updateStatus();
+            viewPanel.repaint();
+        }
+    }
+
+    private void updateStatus() {
+        statusLabel.setText(String.format("得分：%d  插旗：%d  位置：(%d, %d)  缓存块：%d  保存块：%d",
+                field == null ? 0 : field.revealedCount(), field == null ? 0 : field.flagCount(),
+                Math.floorDiv(viewY, CELL_SIZE), Math.floorDiv(viewX, CELL_SIZE),
+                field == null ? 0 : field.cachedChunks(), field == null ? 0 : field.touchedChunks()));
+    }
+
+    /**
+     * 踩到雷：重新开始或返回主页
+     */
+    private void gameOver() {
+        Object[] options = {"重新开始", "返回主页"};
+        int choice = JOptionPane.showOptionDialog(this, "踩到雷了！得分：" + field.revealedCount(), "提示",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
+        if (choice == 0) {
+            newGame();
+        } else {
+            dispose();
+            mainFrame.setVisible(true);
+        }
+    }
+
+    /**
+     * 视口鼠标监听：拖动移动视口，没有拖动的单击左键翻开、右键插旗
+     */
+    private class ViewMouseListener extends MouseAdapter {
+        private int pressX; // 按下时的位置
+        private int pressY;
+        private int lastX; // 上一次拖动事件的位置
+        private int lastY;
+        private boolean dragging; // 本次按下后是否已经算作拖动
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            pressX = lastX = e.getX();
+            pressY = lastY = e.getY();
+            dragging = false;
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            if (!dragging && Math.abs(e.getX() - pressX) + Math.abs(e.getY() - pressY) > DRAG_THRESHOLD) {
+                dragging = true;
+            }
+            if (dragging) {
+                scroll(lastX - e.getX(), lastY - e.getY());
+                lastX = e.getX();
+                lastY = e.getY();
+            }
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            requestFocusInWindow();
+            if (dragging || field.isLost()) return;
+            int row = (int) Math.floorDiv(viewY + e.getY(), CELL_SIZE);
+            int col = (int) Math.floorDiv(viewX + e.getX(), CELL_SIZE);
+            if (SwingUtilities.isLeftMouseButton(e)) {
+                revealCells(row, col);
+            } else if (SwingUtilities.isRightMouseButton(e)) {
+                toggleFlag(row, col);
+            }
+        }
+    }
+
+    /**
+     * 视口面板：只绘制可见的格子，块按需从InfiniteMineField生成
+     */
+    private class ViewPanel extends JPanel {
+        ViewPanel() {
+            setBackground(Color.GRAY);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            g.setFont(CELL_FONT);
+            FontMetrics fm = g.getFontMetrics();
+            int row0 = (int) Math.floorDiv(viewY, CELL_SIZE);
+            int col0 = (int) Math.floorDiv(viewX, CELL_SIZE);
+            int row1 = (int) Math.floorDiv(viewY + getHeight() - 1, CELL_SIZE);
+            int col1 = (int) Math.floorDiv(viewX + getWidth() - 1, CELL_SIZE);
+            // 逐行扫描，相邻格子大多在同一块
+            for (int row = row0; row <= row1; row++) {
+                for (int col = col0; col <= col1; col++) {
+                    paintCell(g, fm, row, col, (int) ((long) col * CELL_SIZE - viewX),
+                            (int) ((long) row * CELL_SIZE - viewY));
+                }
+            }
+        }
+
+        private void paintCell(Graphics g, FontMetrics fm, int row, int col, int px, int py) {
+            byte state = field.state(row, col);
+            String text = null;
+            Color background;
+            if (state == InfiniteMineField.REVEALED) {
+                int mines = field.count(row, col);
+                // 根据数字设置不同颜色（和MinesweeperGame一致）
+                switch (mines) {
+                    case 0: background = Color.LIGHT_GRAY; break;
+                    case 1: background = Color.BLUE; break;
+                    case 2: background = Color.GREEN; break;
+                    case 3: background = Color.ORANGE; break;
+                    case 4: background = Color.MAGENTA; break;
+                    default: background = Color.CYAN; break;
+                }
+                if (mines > 0) text = String.valueOf(mines);
+            } else {
+                background = HIDDEN_COLOR;
+                if (state == InfiniteMineField.FLAGGED) text = "⚑";
+            }
+            if (state == InfiniteMineField.EXPLODED
+                    || field.isLost() && state != InfiniteMineField.REVEALED && field.isMine(row, col)) {
+                background = Color.RED;
+            }
+            g.setColor(background);
+            if (state == InfiniteMineField.REVEALED) {
+                g.fillRect(px, py, CELL_SIZE - 1, CELL_SIZE - 1);
+            } else {
+                g.fill3DRect(px, py, CELL_SIZE - 1, CELL_SIZE - 1, true);
+            }
+            if (text != null) {
+                g.setColor(Color.BLACK);
+                g.drawString(text, px + (CELL_SIZE - fm.stringWidth(text)) / 2,
+                        py + (CELL_SIZE - fm.getHeight()) / 2 + fm.getAscent());
+            }
+        }
+    }
+}
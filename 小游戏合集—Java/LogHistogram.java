@@ -0,0 +1,62 @@
+import java.util.Arrays;
+
+/**
+ * 对数分桶直方图：每个2的幂区间再均分64个子桶，相对误差约1.5%，内存固定
+ * 用于统计得分、耗时和延迟的分位数（2048批量模拟器和各个贪吃蛇压测共用）
+ */
+class LogHistogram {
+    /** 每个2的幂区间的子桶数 */
+    private static final int SUB_BUCKETS = 64;
+    private final long[] counts = new long[2 * SUB_BUCKETS + 57 * SUB_BUCKETS];
+    private long total;
+
+    private static int bucket(long value) {
+        if (value < 0) return 0; // 跨线程取的System.nanoTime()差值可能略小于0，计入0桶
+        if (value < 2 * SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 6; // 右移后落在[64, 128)
+        return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long bucketLowerBound(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) return bucket;
+        int shift = (bucket - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+        long sub = (bucket - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return sub << shift;
+    }
+
+    /**
+     * 记录一个值（负数按0记录）
+     * @param value 值
+     */
+    void record(long value) {
+        counts[bucket(value)]++;
+        total++;
+    }
+
+    void add(LogHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+    }
+
+    /**
+     * @param quantile 分位（0-1）
+     * @return 对应分位所在桶的下界
+     */
+    long percentile(double quantile) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(rank, 1)) return bucketLowerBound(i);
+        }
+        return 0;
+    }
+}
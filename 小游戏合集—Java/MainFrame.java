@@ -80,9 +80,18 @@ public class MainFrame extends JFrame {
             // 显示输入对话框（问题类型，默认选择第一个难度）
             String selected = (String) JOptionPane.showInputDialog(this, "选择难度:", "贪吃蛇难度",
                     JOptionPane.QUESTION_MESSAGE, null, difficulties, difficulties[0]);
-            if (selected != null) {  // 用户确认选择时
+            if (selected == null) return;  // 用户取消
+            // 场地大小选择（大于25x25时视口跟随蛇头滚动；竞技场模式和几百条电脑控制的蛇同场）
+            String[] sizes = {"25x25", "50x50", "100x100", "500x500", "2000x2000", "多蛇竞技场"};
+            String size = (String) JOptionPane.showInputDialog(this, "选择场地大小:", "贪吃蛇场地",
+                    JOptionPane.QUESTION_MESSAGE, null, sizes, sizes[0]);
+            if ("多蛇竞技场".equals(size)) {
                 setVisible(false);  // 隐藏当前主窗口
-                new SnakeGame(this, selected).setVisible(true);  // 创建并显示贪吃蛇游戏窗口
+                new SnakeArenaGame(this, selected).setVisible(true);  // 创建并显示竞技场窗口
+            } else if (size != null) {  // 用户确认选择时
+                setVisible(false);  // 隐藏当前主窗口
+                int boardSize = Integer.parseInt(size.substring(0, size.indexOf('x')));  // 取出边长
+                new SnakeGame(this, selected, boardSize).setVisible(true);  // 创建并显示贪吃蛇游戏窗口
             }
         });
         minesweeperBtn.addActionListener(this::onMinesweeperClick);
@@ -127,12 +136,16 @@ public class MainFrame extends JFrame {
      */
     private void onMinesweeperClick(ActionEvent e) {
         // 显示扫雷难度选择对话框
-        String[] difficulties = {"初级", "中级", "高级"};  // 可选难度列表
+        String[] difficulties = {"初级", "中级", "高级", "超大", "无尽"};  // 可选难度列表
         String selected = (String) JOptionPane.showInputDialog(this, "选择难度:", "扫雷难度",
                 JOptionPane.QUESTION_MESSAGE, null, difficulties, difficulties[0]);  // 获取用户选择
         if (selected != null) {  // 用户确认选择时
             setVisible(false);  // 隐藏当前主窗口
-            new MinesweeperGame(this, selected).setVisible(true);  // 创建并显示扫雷游戏窗口
+            if ("无尽".equals(selected)) {
+                new InfiniteMinesweeperGame(this).setVisible(true);  // 无尽模式使用单独的可拖动视口窗口
+            } else {
+                new MinesweeperGame(this, selected).setVisible(true);  // 创建并显示扫雷游戏窗口
+            }
         }
     }
 
@@ -141,8 +154,15 @@ public class MainFrame extends JFrame {
      * @param e 动作事件对象
      */
     private void on2048Click(ActionEvent e) {
-        setVisible(false);  // 隐藏当前主窗口
-        new Game2048(this).setVisible(true);  // 创建并显示2048游戏窗口
+        // 显示2048棋盘大小选择对话框（3x3~8x8，默认4x4）
+        String[] sizes = {"3x3", "4x4", "5x5", "6x6", "7x7", "8x8"};  // 可选棋盘大小
+        String selected = (String) JOptionPane.showInputDialog(this, "选择棋盘大小:", "2048棋盘",
+                JOptionPane.QUESTION_MESSAGE, null, sizes, sizes[1]);  // 获取用户选择
+        if (selected != null) {  // 用户确认选择时
+            setVisible(false);  // 隐藏当前主窗口
+            int boardSize = selected.charAt(0) - '0';  // 取出边长数字
+            new Game2048(this, boardSize).setVisible(true);  // 创建并显示2048游戏窗口
+        }
     }
 
         /**
@@ -0,0 +1,387 @@
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * 扫雷雷区模型（无界面）
+ * 格子按“编号 = 行 * 列数 + 列”压平，每格压缩成1字节：低4位为周围雷数，第4位为是否有雷，第5~6位为翻开/插旗状态，
+ * 百万格的雷区也只占1MB；重新开始时只要数组足够大就直接清零复用。
+ * 布雷推迟到第一次点击，用部分Fisher–Yates洗牌从候选格子中抽取，避开点击处周围3x3，
+ * 任意密度（包括只剩点击处不是雷）都是O(格子数)，周围雷数在同一遍中累加；
+ * 翻开空白区域用队列迭代展开（不递归，不会栈溢出），
+ * 一次操作（翻开、双击数字展开）改变的所有格子记录在一个批次里，界面据此只刷新一次。
+ * 状态变化时同步维护计数（雷数、已翻开的安全格子、插旗数、插对的旗），输赢在每次操作后O(1)判定。
+ */
+public class MineField {
+    /** 格子状态：未翻开 */
+    public static final byte HIDDEN = 0;
+    /** 格子状态：已翻开 */
+    public static final byte REVEALED = 1;
+    /** 格子状态：已插旗 */
+    public static final byte FLAGGED = 2;
+
+    /** 周围雷数所在的位 */
+    private static final int COUNT_MASK = 0x0F;
+    /** 有雷标记位 */
+    private static final int MINE_BIT = 0x10;
+    /** 状态所在位的偏移 */
+    private static final int STATE_SHIFT = 5;
+    /** 状态所在的位 */
+    private static final int STATE_MASK = 3 << STATE_SHIFT;
+    private static final int REVEALED_BITS = REVEALED << STATE_SHIFT;
+    private static final int FLAGGED_BITS = FLAGGED << STATE_SHIFT;
+
+    /** 行数 */
+    private int rows;
+    /** 列数 */
+    private int cols;
+    /** 各格子的压缩状态（周围雷数、是否有雷、翻开/插旗状态） */
+    private byte[] cells = new byte[0];
+    /** 上一次操作改变状态的格子（同时用作展开空白区域的队列） */
+    private int[] changed = new int[0];
+    /** 上一次操作改变状态的格子数 */
+    private int changedCount;
+    /** 雷数 */
+    private int mineCount;
+    /** 已翻开的安全格子数 */
+    private int revealedSafe;
+    /** 插旗数 */
+    private int flagCount;
+    /** 插在雷上的旗数 */
+    private int correctFlags;
+    /** 踩到的雷（-1表示没有踩雷） */
+    private int explodedCell = -1;
+
+    /**
+     * 清空雷区并设置大小（数组够大时复用）
+     * @param rows 行数
+     * @param cols 列数
+     */
+    public void reset(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        int count = rows * cols;
+        if (cells.length < count) {
+            cells = new byte[count];
+            changed = new int[count];
+        } else {
+            Arrays.fill(cells, 0, count, (byte) 0);
+        }
+        changedCount = 0;
+        mineCount = 0;
+        clearCounters();
+    }
+
+    /**
+     * 把所有格子恢复为未翻开（雷和周围雷数不变）
+     */
+    public void hideAll() {
+        for (int cell = 0; cell < rows * cols; cell++) {
+            cells[cell] &= ~STATE_MASK;
+        }
+        changedCount = 0;
+        clearCounters();
+    }
+
+    private void clearCounters() {
+        revealedSafe = 0;
+        flagCount = 0;
+        correctFlags = 0;
+        explodedCell = -1;
+    }
+
+    /**
+     * 第一次点击时布雷：点击处周围3x3不放雷（格子不够时只保证点击处），周围雷数在同一遍中算好
+     * @param mineCount 雷数（最多为格子数减一）
+     * @param safeCell 第一次点击的格子
+     * @param random 随机数生成器
+     * @return 实际放置的雷数
+     */
+    public int placeMines(int mineCount, int safeCell, RandomGenerator random) {
+        int r = safeCell / cols;
+        int c = safeCell % cols;
+        int r0 = Math.max(r - 1, 0), r1 = Math.min(r + 1, rows - 1);
+        int c0 = Math.max(c - 1, 0), c1 = Math.min(c + 1, cols - 1);
+        boolean keepNeighbours = rows * cols - (r1 - r0 + 1) * (c1 - c0 + 1) >= mineCount;
+        if (!keepNeighbours) {
+            r0 = r1 = r;
+            c0 = c1 = c;
+        }
+        // 候选格子放在changed数组里（此时还没有翻开任何格子，借用它做洗牌数组）
+        int n = 0;
+        for (int row = 0, cell = 0; row < rows; row++) {
+            boolean excludedRow = row >= r0 && row <= r1;
+            for (int col = 0; col < cols; col++, cell++) {
+                if (!excludedRow || col < c0 || col > c1) changed[n++] = cell;
+            }
+        }
+        int count = Math.min(mineCount, n);
+        // 部分Fisher–Yates：只洗前count个位置，每个位置从剩余候选中等概率抽取
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(n - i);
+            int mine = changed[j];
+            changed[j] = changed[i];
+            changed[i] = mine;
+            setMine(mine);
+            addToCounts(mine);
+        }
+        changedCount = 0;
+        return count;
+    }
+
+    /**
+     * 按已有的雷重新算好所有格子的周围雷数（每个雷给周围8格加一）
+     */
+    public void computeCounts() {
+        int count = rows * cols;
+        for (int cell = 0; cell < count; cell++) {
+            cells[cell] &= ~COUNT_MASK;
+        }
+        for (int cell = 0; cell < count; cell++) {
+            if ((cells[cell] & MINE_BIT) != 0) addToCounts(cell);
+        }
+    }
+
+    /**
+     * 一个雷给周围8格的雷数各加一（雷数最多为8，不会进位到其他字段）
+     */
+    private void addToCounts(int mine) {
+        int r = mine / cols;
+        int c = mine % cols;
+        for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, rows - 1); nr++) {
+            for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, cols - 1); nc++) {
+                cells[nr * cols + nc]++;
+            }
+        }
+        cells[mine]--; // 不算自己
+    }
+
+    /**
+     * 翻开一个格子；周围没有雷时按队列迭代展开相邻的未翻开格子（已插旗的格子保持不变）。
+     * 翻开的是雷时游戏失败，批次中只有这一个格子
+     * @param start 格子编号
+     * @return 本次翻开的格子数（可用changed(i)逐个取出）
+     */
+    public int reveal(int start) {
+        changedCount = 0;
+        if ((cells[start] & STATE_MASK) != 0) return 0;
+        if ((cells[start] & MINE_BIT) != 0) {
+            explode(start);
+        } else {
+            open(start);
+            expand();
+        }
+        return changedCount;
+    }
+
+    /**
+     * 双击数字：周围插旗数等于数字时，把其余未翻开的邻居作为一个批次全部翻开（旗插错时会踩到雷）
+     * @param cell 已翻开的数字格
+     * @return 本次翻开的格子数（条件不满足时为0）
+     */
+    public int chord(int cell) {
+        changedCount = 0;
+        int value = cells[cell];
+        if ((value & STATE_MASK) != REVEALED_BITS || (value & COUNT_MASK) == 0) return 0;
+        int r = cell / cols;
+        int c = cell - r * cols;
+        int r0 = Math.max(r - 1, 0), r1 = Math.min(r + 1, rows - 1);
+        int c0 = Math.max(c - 1, 0), c1 = Math.min(c + 1, cols - 1);
+        int flags = 0;
+        for (int nr = r0; nr <= r1; nr++) {
+            for (int nc = c0; nc <= c1; nc++) {
+                if ((cells[nr * cols + nc] & STATE_MASK) == FLAGGED_BITS) flags++;
+            }
+        }
+        if (flags != (value & COUNT_MASK)) return 0;
+        for (int nr = r0; nr <= r1; nr++) {
+            for (int nc = c0; nc <= c1; nc++) {
+                int neighbour = nr * cols + nc;
+                if ((cells[neighbour] & STATE_MASK) != 0) continue;
+                if ((cells[neighbour] & MINE_BIT) != 0) {
+                    explode(neighbour);
+                } else {
+                    open(neighbour);
+                }
+            }
+        }
+        expand();
+        return changedCount;
+    }
+
+    /**
+     * 展开批次：周围没有雷的安全格子把未翻开的邻居追加到批次末尾
+     */
+    private void expand() {
+        // changed本身就是队列：新翻开的格子追加在末尾，逐个检查是否需要继续展开
+        for (int i = 0; i < changedCount; i++) {
+            int cell = changed[i];
+            if ((cells[cell] & (COUNT_MASK | MINE_BIT)) != 0) continue;
+            int r = cell / cols;
+            int c = cell - r * cols;
+            if (r > 0 && r < rows - 1 && c > 0 && c < cols - 1) {
+                // 内部格子：8个邻居的偏移固定，省去边界判断
+                int up = cell - cols;
+                int down = cell + cols;
+                open(up - 1);
+                open(up);
+                open(up + 1);
+                open(cell - 1);
+                open(cell + 1);
+                open(down - 1);
+                open(down);
+                open(down + 1);
+            } else {
+                for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, rows - 1); nr++) {
+                    for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, cols - 1); nc++) {
+                        open(nr * cols + nc);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 翻开一个未翻开的安全格子并加入批次（空白格子的邻居都不是雷，展开时不会碰到雷）
+     */
+    private void open(int cell) {
+        if ((cells[cell] & STATE_MASK) == 0) {
+            cells[cell] |= REVEALED_BITS;
+            changed[changedCount++] = cell;
+            revealedSafe++;
+        }
+    }
+
+    /**
+     * 踩雷：翻开这个雷并记录失败
+     */
+    private void explode(int cell) {
+        cells[cell] |= REVEALED_BITS;
+        changed[changedCount++] = cell;
+        if (explodedCell < 0) explodedCell = cell;
+    }
+
+    /**
+     * @param index 批次内下标（小于上一次reveal/chord的返回值）
+     * @return 上一次操作翻开的第index个格子
+     */
+    public int changed(int index) {
+        return changed[index];
+    }
+
+    /** @return 是否已经获胜（翻开了所有安全格子，或者旗恰好插在所有雷上） */
+    public boolean isWon() {
+        return explodedCell < 0 && mineCount > 0
+                && (revealedSafe == rows * cols - mineCount || (correctFlags == mineCount && flagCount == mineCount));
+    }
+
+    /** @return 是否踩到了雷 */
+    public boolean isLost() {
+        return explodedCell >= 0;
+    }
+
+    /** @return 踩到的雷（-1表示没有） */
+    public int explodedCell() {
+        return explodedCell;
+    }
+
+    /** @return 雷数 */
+    public int mineCount() {
+        return mineCount;
+    }
+
+    /** @return 插旗数 */
+    public int flagCount() {
+        return flagCount;
+    }
+
+    /** @return 已翻开的安全格子数 */
+    public int revealedSafeCount() {
+        return revealedSafe;
+    }
+
+    /** @return 行数 */
+    public int rows() {
+        return rows;
+    }
+
+    /** @return 列数 */
+    public int cols() {
+        return cols;
+    }
+
+    /** @return 格子总数 */
+    public int cellCount() {
+        return rows * cols;
+    }
+
+    /**
+     * @param cell 格子编号
+     * @return 是否有雷
+     */
+    public boolean isMine(int cell) {
+        return (cells[cell] & MINE_BIT) != 0;
+    }
+
+    /**
+     * 在格子上布雷
+     * @param cell 格子编号
+     */
+    public void setMine(int cell) {
+        if ((cells[cell] & MINE_BIT) != 0) return;
+        cells[cell] |= MINE_BIT;
+        mineCount++;
+        if ((cells[cell] & STATE_MASK) == FLAGGED_BITS) correctFlags++;
+    }
+
+    /**
+     * @param cell 格子编号
+     * @return 周围8格的雷数
+     */
+    public int count(int cell) {
+        return cells[cell] & COUNT_MASK;
+    }
+
+    /**
+     * @param cell 格子编号
+     * @return 格子状态（HIDDEN / REVEALED / FLAGGED）
+     */
+    public byte state(int cell) {
+        return (byte) ((cells[cell] & STATE_MASK) >>> STATE_SHIFT);
+    }
+
+    /**
+     * 直接设置格子状态（同时维护计数，不展开、不判定踩雷）
+     * @param cell 格子编号
+     * @param value 新的状态
+     */
+    public void setState(int cell, byte value) {
+        byte old = state(cell);
+        if (old == value) return;
+        boolean mine = (cells[cell] & MINE_BIT) != 0;
+        if (old == FLAGGED) {
+            flagCount--;
+            if (mine) correctFlags--;
+        } else if (old == REVEALED && !mine) {
+            revealedSafe--;
+        }
+        if (value == FLAGGED) {
+            flagCount++;
+            if (mine) correctFlags++;
+        } else if (value == REVEALED && !mine) {
+            revealedSafe++;
+        }
+        cells[cell] = (byte) ((cells[cell] & ~STATE_MASK) | value << STATE_SHIFT);
+    }
+
+    /**
+     * 插旗/取消插旗（已翻开的格子不变）
+     * @param cell 格子编号
+     * @return 是否改变了状态
+     */
+    public boolean toggleFlag(int cell) {
+        byte old = state(cell);
+        if (old == REVEALED) return false;
+        setState(cell, old == FLAGGED ? HIDDEN : FLAGGED);
+        return true;
+    }
+}
@@ -0,0 +1,631 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 扫雷概率求解器（无界面）
+ * 只根据玩家能看到的信息（已翻开格子的数字、总雷数）算出每个未翻开格子是雷的精确概率：
+ * 1. 边界（与数字相邻的未翻开格子）按“受同一个数字约束”的关系用并查集分成互不相关的连通块
+ * 2. 每个连通块用回溯枚举所有满足数字约束的布雷方式，按块内雷数k统计方式数和每个格子是雷的方式数
+ * 3. 各块的雷数分布两两卷积成一棵树，根部用内部格子的组合数C(内部格子数, 总雷数 - 边界雷数)加权，
+ *    再自顶向下把权重分回每个块，得到全局精确概率（全程归一化，几千个连通块也不会溢出；
+ *    分布两端低于峰值1e-30的雷数直接截掉，卷积长度只随连通块数的平方根增长）
+ * 4. 需要枚举的连通块作为ForkJoinPool任务并行求解；枚举结果按“块内格子 + 数字”缓存，
+ *    一次点击只改变附近的连通块，其余块直接复用上一次的结果
+ * 插旗只是玩家的猜测，求解时当作未翻开格子处理。格子太多或枚举超过节点预算的连通块不给出概率，
+ * 它的格子在加权时按内部格子计算（此时其余格子的概率是近似值）。
+ * 缓存不加锁，同一个求解器同一时刻只能有一个线程调用solve。
+ */
+public class MineSolver {
+    /** 快照中的值：未翻开 */
+    public static final byte HIDDEN = -1;
+    /** 快照中的值：已插旗（按未翻开处理，但不会被选为最安全的格子） */
+    public static final byte FLAGGED = -2;
+    /** 概率未知（已翻开的格子、过于复杂的连通块） */
+    public static final float UNKNOWN = -1f;
+
+    /** 单个连通块最多枚举的格子数 */
+    private static final int MAX_COMPONENT_CELLS = 200;
+    /** 单个连通块的回溯节点预算 */
+    private static final long NODE_BUDGET = 1_000_000L;
+    /** 分布中低于峰值该比例的两端被截掉 */
+    private static final double TAIL = 1e-30;
+    /** 每搜索多少个节点检查一次是否取消（2的幂） */
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+    /** 缓存中表示“过于复杂”的枚举结果 */
+    private static final Enumeration TOO_COMPLEX = new Enumeration(new double[0], new double[0]);
+
+    /** 并行枚举连通块的线程池 */
+    private final ForkJoinPool pool;
+    /** 上一次求解的各连通块枚举结果 */
+    private Map<ComponentKey, Enumeration> cache = new HashMap<>();
+    /** 各格子在边界中的编号（-1表示不在边界上），按需扩容复用 */
+    private int[] frontierIndex = new int[0];
+
+    /**
+     * @param pool 并行枚举连通块的线程池
+     */
+    public MineSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 计算每个格子是雷的概率
+     * @param rows 行数
+     * @param cols 列数
+     * @param view 玩家看到的雷区（0~8为已翻开格子的数字，HIDDEN/FLAGGED为未翻开）
+     * @param mineCount 总雷数
+     * @param cancelled 返回true时尽快放弃求解（例如雷区已经变化）
+     * @return 求解结果，被取消时返回null
+     */
+    public Result solve(int rows, int cols, byte[] view, int mineCount, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        int cells = rows * cols;
+        if (frontierIndex.length < cells) frontierIndex = new int[cells];
+        Arrays.fill(frontierIndex, 0, cells, -1);
+
+        // 1. 约束（有未翻开邻居的数字格）和边界格子，受同一个数字约束的格子并入同一个连通块
+        IntList constraints = new IntList();
+        IntList frontier = new IntList();
+        IntList parent = new IntList();
+        int hidden = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (view[cell] < 0) {
+                hidden++;
+                continue;
+            }
+            int r = cell / cols;
+            int c = cell - r * cols;
+            int first = -1;
+            for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, rows - 1); nr++) {
+                for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, cols - 1); nc++) {
+                    int neighbour = nr * cols + nc;
+                    if (view[neighbour] >= 0) continue;
+                    int index = frontierIndex[neighbour];
+                    if (index < 0) {
+                        index = frontier.size;
+                        frontierIndex[neighbour] = index;
+                        frontier.add(neighbour);
+                        parent.add(index);
+                    }
+                    if (first < 0) {
+                        first = index;
+                    } else {
+                        union(parent.data, first, index);
+                    }
+                }
+            }
+            if (first >= 0) constraints.add(cell);
+        }
+        if (cancelled.getAsBoolean()) return null;
+
+        // 2. 按并查集的根分组（格子和约束都按编号升序，作为缓存的键）
+        int[] componentOf = new int[frontier.size];
+        Arrays.fill(componentOf, -1);
+        List<IntList> componentCells = new ArrayList<>();
+        List<IntList> componentConstraints = new ArrayList<>();
+        for (int cell = 0; cell < cells; cell++) {
+            int index = frontierIndex[cell];
+            if (index < 0) continue;
+            int root = find(parent.data, index);
+            if (componentOf[root] < 0) {
+                componentOf[root] = componentCells.size();
+                componentCells.add(new IntList());
+                componentConstraints.add(new IntList());
+            }
+            componentCells.get(componentOf[root]).add(cell);
+        }
+        for (int i = 0; i < constraints.size; i++) {
+            int cell = constraints.data[i];
+            int root = find(parent.data, frontierIndex[firstHiddenNeighbour(rows, cols, view, cell)]);
+            componentConstraints.get(componentOf[root]).add(cell);
+        }
+
+        // 3. 查缓存，未命中的连通块并行枚举
+        Component[] components = new Component[componentCells.size()];
+        Map<ComponentKey, Enumeration> nextCache = new HashMap<>();
+        List<EnumerateTask> tasks = new ArrayList<>();
+        for (int i = 0; i < components.length; i++) {
+            Component component = new Component(componentCells.get(i).toArray(),
+                    componentConstraints.get(i).toArray(), view);
+            components[i] = component;
+            component.enumeration = cache.get(component.key);
+            if (component.enumeration == null && component.cells.length > MAX_COMPONENT_CELLS) {
+                component.enumeration = TOO_COMPLEX;
+            }
+            if (component.enumeration == null) {
+                tasks.add(new EnumerateTask(component, rows, cols, view, cancelled));
+            }
+        }
+        for (EnumerateTask task : tasks) {
+            pool.execute(task);
+        }
+        for (EnumerateTask task : tasks) {
+            task.join();
+        }
+        if (cancelled.getAsBoolean()) return null;
+        List<Component> solved = new ArrayList<>();
+        int tooComplex = 0;
+        int solvedCells = 0;
+        for (Component component : components) {
+            nextCache.put(component.key, component.enumeration);
+            if (component.enumeration == TOO_COMPLEX) {
+                tooComplex++;
+            } else {
+                solved.add(component);
+                solvedCells += component.cells.length;
+            }
+        }
+        cache = nextCache;
+
+        // 4. 全局雷数加权：边界共有s个雷时，其余雷在interior个内部格子中的放法为C(interior, mineCount - s)
+        int interior = hidden - solvedCells;
+        Node root = null;
+        double[] rootWeights = null;
+        double total = 0;
+        double interiorMines = 0;
+        // 截尾后权重全落在被截掉的部分时（例如残局只剩一种雷数可行），不截尾重算一次
+        for (double tail = TAIL; total == 0 && tail >= 0; tail = tail > 0 ? 0 : -1) {
+            root = solved.isEmpty() ? new Node(null, null, null, new double[] {1}, 0, tail)
+                    : Node.build(solved, 0, solved.size(), tail);
+            rootWeights = binomialWeights(root.offset, root.distribution.length, interior, mineCount);
+            total = 0;
+            interiorMines = 0;
+            for (int i = 0; i < root.distribution.length; i++) {
+                double weight = root.distribution[i] * rootWeights[i];
+                total += weight;
+                interiorMines += weight * (mineCount - root.offset - i);
+            }
+        }
+        float[] probabilities = new float[cells];
+        Arrays.fill(probabilities, UNKNOWN);
+        if (total > 0) {
+            if (!solved.isEmpty()) root.push(rootWeights);
+            float interiorProbability = interior > 0 ? (float) (interiorMines / total / interior) : UNKNOWN;
+            for (int cell = 0; cell < cells; cell++) {
+                if (view[cell] < 0 && frontierIndex[cell] < 0) probabilities[cell] = interiorProbability;
+            }
+            for (Component component : solved) {
+                component.fillProbabilities(probabilities);
+            }
+        }
+
+        // 最安全的格子：概率最小的未插旗格子
+        int safestCell = -1;
+        int certainSafe = 0;
+        int certainMines = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            float p = probabilities[cell];
+            if (p < 0 || view[cell] != HIDDEN) continue;
+            if (p == 0) certainSafe++;
+            if (p == 1) certainMines++;
+            if (safestCell < 0 || p < probabilities[safestCell]) safestCell = cell;
+        }
+        return new Result(probabilities, safestCell, certainSafe, certainMines, components.length,
+                tasks.size(), components.length - tasks.size(), tooComplex, System.nanoTime() - start);
+    }
+
+    /**
+     * @return 约束格的第一个未翻开邻居
+     */
+    private static int firstHiddenNeighbour(int rows, int cols, byte[] view, int cell) {
+        int r = cell / cols;
+        int c = cell - r * cols;
+        for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, rows - 1); nr++) {
+            for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, cols - 1); nc++) {
+                if (view[nr * cols + nc] < 0) return nr * cols + nc;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 根部权重：下标i对应边界雷数offset + i，值与C(interior, mineCount - offset - i)成正比（最大值归一化为1）
+     */
+    private static double[] binomialWeights(int offset, int length, int interior, int mineCount) {
+        double[] logWeights = new double[length];
+        Arrays.fill(logWeights, Double.NEGATIVE_INFINITY);
+        double max = Double.NEGATIVE_INFINITY;
+        double log = 0;
+        boolean started = false;
+        for (int s = 0; s < length; s++) {
+            int m = mineCount - offset - s;
+            if (m < 0 || m > interior) continue;
+            if (started) {
+                // C(n, m) / C(n, m + 1) = (m + 1) / (n - m)
+                log += Math.log((m + 1.0) / (interior - m));
+            }
+            started = true;
+            logWeights[s] = log;
+            max = Math.max(max, log);
+        }
+        double[] weights = new double[length];
+        for (int s = 0; s < length; s++) {
+            weights[s] = Math.exp(logWeights[s] - max);
+        }
+        return weights;
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra != rb) parent[rb] = ra;
+    }
+
+    /**
+     * 把各项除以最大值（全为0时不变）
+     */
+    private static double[] normalize(double[] values) {
+        double max = 0;
+        for (double v : values) max = Math.max(max, v);
+        if (max > 0) {
+            for (int i = 0; i < values.length; i++) values[i] /= max;
+        }
+        return values;
+    }
+
+    /**
+     * 求解结果
+     */
+    public static class Result {
+        /** 每个格子是雷的概率（UNKNOWN表示已翻开或无法计算） */
+        public final float[] probabilities;
+        /** 是雷概率最小的未插旗格子（-1表示没有） */
+        public final int safestCell;
+        /** 一定不是雷的未插旗格子数 */
+        public final int certainSafe;
+        /** 一定是雷的未插旗格子数 */
+        public final int certainMines;
+        /** 连通块数 */
+        public final int components;
+        /** 本次重新枚举的连通块数 */
+        public final int enumerated;
+        /** 直接复用缓存的连通块数 */
+        public final int cached;
+        /** 过于复杂、没有给出概率的连通块数 */
+        public final int tooComplex;
+        /** 耗时（纳秒） */
+        public final long nanos;
+
+        Result(float[] probabilities, int safestCell, int certainSafe, int certainMines, int components,
+               int enumerated, int cached, int tooComplex, long nanos) {
+            this.probabilities = probabilities;
+            this.safestCell = safestCell;
+            this.certainSafe = certainSafe;
+            this.certainMines = certainMines;
+            this.components = components;
+            this.enumerated = enumerated;
+            this.cached = cached;
+            this.tooComplex = tooComplex;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * 一个连通块：格子、约束和枚举结果
+     */
+    private static final class Component {
+        /** 块内格子（全局编号，升序） */
+        final int[] cells;
+        /** 约束格（全局编号，升序） */
+        final int[] constraints;
+        /** 缓存的键 */
+        final ComponentKey key;
+        /** 枚举结果 */
+        Enumeration enumeration;
+        /** 自顶向下分回来的权重（下标i对应块内雷数weightsOffset + i） */
+        double[] weights;
+        int weightsOffset;
+
+        Component(int[] cells, int[] constraints, byte[] view) {
+            this.cells = cells;
+            this.constraints = constraints;
+            int[] data = new int[cells.length + 1 + constraints.length * 2];
+            System.arraycopy(cells, 0, data, 0, cells.length);
+            data[cells.length] = -1;
+            for (int i = 0; i < constraints.length; i++) {
+                data[cells.length + 1 + 2 * i] = constraints[i];
+                data[cells.length + 2 + 2 * i] = view[constraints[i]];
+            }
+            key = new ComponentKey(data);
+        }
+
+        /**
+         * 按分回来的权重算出块内每个格子的概率
+         */
+        void fillProbabilities(float[] probabilities) {
+            double[] ways = enumeration.ways;
+            int stride = ways.length;
+            double total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                total += ways[weightsOffset + i] * weights[i];
+            }
+            if (total <= 0) return;
+            for (int j = 0; j < cells.length; j++) {
+                double mine = 0;
+                for (int i = 0; i < weights.length; i++) {
+                    mine += enumeration.cellWays[j * stride + weightsOffset + i] * weights[i];
+                }
+                probabilities[cells[j]] = (float) (mine / total);
+            }
+        }
+    }
+
+    /**
+     * 连通块的缓存键（块内格子 + 各约束格及其数字）
+     */
+    private static final class ComponentKey {
+        final int[] data;
+        final int hash;
+
+        ComponentKey(int[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ComponentKey && Arrays.equals(data, ((ComponentKey) o).data);
+        }
+    }
+
+    /**
+     * 连通块的枚举结果
+     */
+    private static final class Enumeration {
+        /** ways[k]：块内恰好k个雷的布雷方式数 */
+        final double[] ways;
+        /** cellWays[j * (格子数 + 1) + k]：块内k个雷且第j个格子是雷的方式数 */
+        final double[] cellWays;
+
+        Enumeration(double[] ways, double[] cellWays) {
+            this.ways = ways;
+            this.cellWays = cellWays;
+        }
+    }
+
+    /**
+     * 枚举一个连通块的ForkJoin任务
+     */
+    private static final class EnumerateTask extends RecursiveAction {
+        private final Component component;
+        private final BooleanSupplier cancelled;
+        /** 第step步赋值的格子（块内编号，按约束关系广度优先排列，让约束尽早收紧） */
+        private final int[] order;
+        /** 每个格子所属约束的列表（CSR：constraintStart[j]到constraintStart[j + 1]） */
+        private final int[] constraintStart;
+        private final int[] constraintList;
+        /** 各约束还需要的雷数 */
+        private final int[] need;
+        /** 各约束还没赋值的格子数 */
+        private final int[] free;
+        /** 当前赋值中是雷的格子 */
+        private final boolean[] mine;
+        private final double[] ways;
+        private final double[] cellWays;
+        private long nodes;
+        private boolean aborted;
+
+        EnumerateTask(Component component, int rows, int cols, byte[] view, BooleanSupplier cancelled) {
+            this.component = component;
+            this.cancelled = cancelled;
+            int n = component.cells.length;
+            int[] constraints = component.constraints;
+            need = new int[constraints.length];
+            free = new int[constraints.length];
+            // 每个约束的格子（块内编号）
+            int[][] members = new int[constraints.length][];
+            int[] degree = new int[n];
+            for (int i = 0; i < constraints.length; i++) {
+                int cell = constraints[i];
+                int r = cell / cols;
+                int c = cell - r * cols;
+                int[] list = new int[8];
+                int size = 0;
+                for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, rows - 1); nr++) {
+                    for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, cols - 1); nc++) {
+                        int neighbour = nr * cols + nc;
+                        if (view[neighbour] >= 0) continue;
+                        int local = Arrays.binarySearch(component.cells, neighbour);
+                        list[size++] = local;
+                        degree[local]++;
+                    }
+                }
+                members[i] = Arrays.copyOf(list, size);
+                need[i] = view[cell];
+                free[i] = size;
+            }
+            constraintStart = new int[n + 1];
+            for (int j = 0; j < n; j++) {
+                constraintStart[j + 1] = constraintStart[j] + degree[j];
+            }
+            constraintList = new int[constraintStart[n]];
+            int[] fill = Arrays.copyOf(constraintStart, n);
+            for (int i = 0; i < constraints.length; i++) {
+                for (int local : members[i]) {
+                    constraintList[fill[local]++] = i;
+                }
+            }
+            // 广度优先：相邻格子连续赋值，约束的剩余格子数很快降到0，不合法的分支尽早剪掉
+            order = new int[n];
+            boolean[] queued = new boolean[n];
+            int tail = 0;
+            for (int seed = 0; seed < n; seed++) {
+                if (queued[seed]) continue;
+                queued[seed] = true;
+                order[tail++] = seed;
+                for (int head = tail - 1; head < tail; head++) {
+                    int j = order[head];
+                    for (int p = constraintStart[j]; p < constraintStart[j + 1]; p++) {
+                        for (int other : members[constraintList[p]]) {
+                            if (!queued[other]) {
+                                queued[other] = true;
+                                order[tail++] = other;
+                            }
+                        }
+                    }
+                }
+            }
+            mine = new boolean[n];
+            ways = new double[n + 1];
+            cellWays = new double[n * (n + 1)];
+        }
+
+        @Override
+        protected void compute() {
+            search(0, 0);
+            component.enumeration = aborted ? TOO_COMPLEX : new Enumeration(ways, cellWays);
+        }
+
+        private void search(int step, int mines) {
+            if (aborted) return;
+            if ((++nodes & (CANCEL_CHECK_INTERVAL - 1)) == 0 && (nodes > NODE_BUDGET || cancelled.getAsBoolean())) {
+                aborted = true;
+                return;
+            }
+            int n = order.length;
+            if (step == n) {
+                ways[mines]++;
+                for (int j = 0; j < n; j++) {
+                    if (mine[j]) cellWays[j * (n + 1) + mines]++;
+                }
+                return;
+            }
+            int cell = order[step];
+            for (int value = 0; value <= 1; value++) {
+                boolean ok = true;
+                for (int p = constraintStart[cell]; p < constraintStart[cell + 1]; p++) {
+                    int c = constraintList[p];
+                    free[c]--;
+                    need[c] -= value;
+                    ok &= need[c] >= 0 && need[c] <= free[c];
+                }
+                if (ok) {
+                    mine[cell] = value == 1;
+                    search(step + 1, mines + value);
+                    mine[cell] = false;
+                }
+                for (int p = constraintStart[cell]; p < constraintStart[cell + 1]; p++) {
+                    int c = constraintList[p];
+                    free[c]++;
+                    need[c] += value;
+                }
+            }
+        }
+    }
+
+    /**
+     * 合并雷数分布的二叉树：叶子是连通块，内部节点的分布是两个子节点分布的卷积
+     */
+    private static final class Node {
+        final Node left;
+        final Node right;
+        final Component component;
+        /** 子树内雷数的分布（归一化，下标i对应雷数offset + i） */
+        final double[] distribution;
+        final int offset;
+
+        /**
+         * @param values 分布（下标i对应雷数offset + i，会被归一化）
+         * @param tail 两端低于峰值该比例的部分截掉
+         */
+        Node(Node left, Node right, Component component, double[] values, int offset, double tail) {
+            this.left = left;
+            this.right = right;
+            this.component = component;
+            normalize(values);
+            int from = 0;
+            int to = values.length;
+            while (to - from > 1 && values[from] <= tail) from++;
+            while (to - from > 1 && values[to - 1] <= tail) to--;
+            this.distribution = from == 0 && to == values.length ? values : Arrays.copyOfRange(values, from, to);
+            this.offset = offset + from;
+        }
+
+        static Node build(List<Component> components, int from, int to, double tail) {
+            if (to - from == 1) {
+                Component component = components.get(from);
+                return new Node(null, null, component, component.enumeration.ways.clone(), 0, tail);
+            }
+            int mid = (from + to) >>> 1;
+            Node left = build(components, from, mid, tail);
+            Node right = build(components, mid, to, tail);
+            double[] a = left.distribution;
+            double[] b = right.distribution;
+            double[] sum = new double[a.length + b.length - 1];
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] == 0) continue;
+                for (int j = 0; j < b.length; j++) {
+                    sum[i + j] += a[i] * b[j];
+                }
+            }
+            return new Node(left, right, null, sum, left.offset + right.offset, tail);
+        }
+
+        /**
+         * 自顶向下分配权重：weights[i]是整棵子树共有offset + i个雷时外部的相对权重，
+         * 左子树有a个雷时的权重为 Σ_b 右子树分布[b] * 整棵子树有a + b个雷时的权重
+         */
+        void push(double[] weights) {
+            if (component != null) {
+                component.weights = weights;
+                component.weightsOffset = offset;
+                return;
+            }
+            left.push(split(weights, left, right));
+            right.push(split(weights, right, left));
+        }
+
+        private double[] split(double[] weights, Node child, Node sibling) {
+            double[] result = new double[child.distribution.length];
+            double[] other = sibling.distribution;
+            // 子节点下标a、兄弟下标b对应本节点下标 a + b + shift
+            int shift = child.offset + sibling.offset - offset;
+            for (int a = 0; a < result.length; a++) {
+                int from = Math.max(0, -(a + shift));
+                int to = Math.min(other.length, weights.length - (a + shift));
+                double sum = 0;
+                for (int b = from; b < to; b++) {
+                    sum += other[b] * weights[a + b + shift];
+                }
+                result[a] = sum;
+            }
+            return normalize(result);
+        }
+    }
+
+    /**
+     * 可增长的int数组
+     */
+    private static final class IntList {
+        int[] data = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
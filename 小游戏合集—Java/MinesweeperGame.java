@@ -2,16 +2,28 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * 扫雷游戏主窗口类
- * 继承自JFrame，负责游戏界面初始化、难度设置、游戏逻辑处理（布雷、翻格子、插旗等）及状态管理
+ * 继承自JFrame，负责游戏界面初始化、难度设置、游戏逻辑处理（布雷、翻格子、插旗等）及状态管理。
+ * 雷区状态保存在MineField的基本类型数组中，整个雷区由一个自绘面板显示，
+ * 只有一个鼠标监听器（按像素换算格子），重新开始时复用同一个面板，几十万格的雷区也能流畅显示。
+ * 雷在第一次左键点击时才布下，点击处及其周围8格保证无雷，第一下总能翻开一片。
+ * 打开“概率提示”后，每次雷区变化都在后台线程用MineSolver计算每个未翻开格子是雷的精确概率，
+ * 以热力图显示并框出最安全的格子；雷区再次变化时放弃尚未完成的计算。
+ * 初级/中级/高级可选“无猜测”：局面由NoGuessGenerator的后台线程预先生成并经逻辑求解器验证，
+ * 第一次点击时从现成局面（及其翻转/旋转）中挑一个从点击处就能推理完的，挑不到才现场生成。
  */
 public class MinesweeperGame extends JFrame {
         /** 主窗口引用（用于返回主页） */
     private MainFrame mainFrame;
-    /** 当前游戏难度（初级/中级/高级） */
+    /** 当前游戏难度（初级/中级/高级/超大） */
     private String currentDifficulty;
     /** 雷区行数 */
     private int rows;
@@ -19,12 +31,60 @@ public class MinesweeperGame extends JFrame {
     private int cols;
     /** 总雷数 */
     private int mineCount;
-    /** 雷区格子按钮数组（rows行cols列） */
-    private JButton[][] cells;
-    /** 雷位置标记数组（true表示该位置有雷） */
-    private boolean[][] isMine;
-    /** 剩余未标记雷数 */
-    private int remainingMines;
+    /** 每格像素大小 */
+    private static final int CELL_SIZE = 30;
+    /** 格子中数字和旗子的字体（只创建一次） */
+    private static final Font CELL_FONT = new Font("Dialog", Font.BOLD, 14);
+    /** 未翻开格子的颜色 */
+    private static final Color HIDDEN_COLOR = new Color(238, 238, 238);
+    /** 概率热力图颜色（下标为百分比，0%绿色、50%黄色、100%红色） */
+    private static final Color[] HEAT_COLORS = new Color[101];
+    /** 提供无猜测模式的难度 */
+    private static final String[] NO_GUESS_DIFFICULTIES = {"初级", "中级", "高级"};
+    /** 每种难度预先生成的无猜测局面数 */
+    private static final int NO_GUESS_POOL_SIZE = 8;
+    /** 现成局面都不适合第一次点击时，现场生成的最多尝试次数（高级每次约0.2毫秒，成功率约5%） */
+    private static final int NO_GUESS_ATTEMPTS = 2000;
+    /** 无猜测局面生成器（所有扫雷窗口共用，第一次开启无猜测模式时创建） */
+    private static NoGuessGenerator noGuessGenerator;
+    /** 概率提示中百分比的字体 */
+    private static final Font HINT_FONT = new Font("Dialog", Font.PLAIN, 11);
+
+    static {
+        for (int percent = 0; percent <= 100; percent++) {
+            int red = Math.min(255, percent * 255 / 50);
+            int green = Math.min(255, (100 - percent) * 255 / 50);
+            HEAT_COLORS[percent] = new Color(red, green, 80);
+        }
+    }
+    /** 雷区模型（雷位图、翻开/插旗状态） */
+    private final MineField field = new MineField();
+    /** 雷区面板（重新开始时复用） */
+    private BoardPanel boardPanel;
+    /** 本局是否已经布雷（第一次左键点击时布雷） */
+    private boolean minesPlaced = false;
+    /** 布雷用的随机数生成器 */
+    private final Random random = new Random();
+    /** 精确概率求解器（连通块在ForkJoinPool上并行枚举，结果按连通块缓存） */
+    private final MineSolver solver = new MineSolver(ForkJoinPool.commonPool());
+    /** 执行概率求解的后台线程（保证求解不在事件分派线程中进行） */
+    private final ExecutorService solverExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "mine-solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** 雷区版本号（每次雷区变化加一，后台求解发现版本变化就放弃） */
+    private volatile int boardVersion = 0;
+    /** 当前难度是否提供无猜测模式 */
+    private boolean noGuessSupported;
+    /** 无猜测模式开关 */
+    private JCheckBox noGuessBox;
+    /** 概率提示开关 */
+    private JToggleButton hintButton;
+    /** 显示最安全格子和求解统计的标签 */
+    private JLabel hintLabel;
+    /** 当前显示的求解结果（未开启提示时为null） */
+    private MineSolver.Result hints;
     /** 顶部状态栏标签（显示剩余雷数和游戏时间） */
     private JLabel statusLabel;
     /** 游戏计时器（每秒更新时间） */
@@ -35,10 +95,11 @@ public class MinesweeperGame extends JFrame {
         /**
      * 构造方法：初始化游戏窗口
      * @param mainFrame 主窗口引用
-     * @param difficulty 游戏难度（初级/中级/高级）
+     * @param difficulty 游戏难度（初级/中级/高级/超大）
      */
     public MinesweeperGame(MainFrame mainFrame, String difficulty) {
         this.mainFrame = mainFrame;
+        this.currentDifficulty = difficulty;
         setTitle("扫雷 - " + difficulty);
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         initDifficulty(difficulty);
@@ -52,22 +113,50 @@ public class MinesweeperGame extends JFrame {
      * @param difficulty 游戏难度字符串
      */
     private void initDifficulty(String difficulty) {
+        int[] params = difficultyParams(difficulty);
+        rows = params[0];
+        cols = params[1];
+        mineCount = params[2];
+        noGuessSupported = !"超大".equals(difficulty); // 超大雷区逐个验证太慢
+        if (noGuessBox != null) noGuessBox.setEnabled(noGuessSupported);
+    }
+
+    /**
+     * @param difficulty 游戏难度字符串
+     * @return {行数, 列数, 雷数}
+     */
+    private static int[] difficultyParams(String difficulty) {
         switch (difficulty) {
-            case "初级": rows = 9; cols = 9; mineCount = 10; break;
-            case "中级": rows = 16; cols = 16; mineCount = 40; break;
-            case "高级": rows = 30; cols = 16; mineCount = 99; break;
+            case "初级": return new int[] {9, 9, 10};
+            case "中级": return new int[] {16, 16, 40};
+            case "高级": return new int[] {30, 16, 99};
+            case "超大": return new int[] {1000, 1000, 100000};
             default: throw new IllegalArgumentException("无效难度");
         }
-        remainingMines = mineCount;
+    }
+
+    /**
+     * @return 无猜测局面生成器（第一次调用时创建，并为所有标准难度开始预先生成）
+     */
+    private static NoGuessGenerator noGuessGenerator() {
+        if (noGuessGenerator == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            noGuessGenerator = new NoGuessGenerator(threads, NO_GUESS_POOL_SIZE);
+            for (String difficulty : NO_GUESS_DIFFICULTIES) {
+                int[] params = difficultyParams(difficulty);
+                noGuessGenerator.prepare(params[0], params[1], params[2]);
+            }
+        }
+        return noGuessGenerator;
     }
 
         /**
-     * 初始化游戏界面（状态栏、雷区网格、计时器）
+     * 初始化游戏界面（状态栏、雷区面板、计时器）
      */
     private void initUI() {
         // 顶部状态栏
         JPanel statusPanel = new JPanel();
-        statusLabel = new JLabel("剩余雷数: " + remainingMines + " 时间: 0s");
+        statusLabel = new JLabel("剩余雷数: " + mineCount + " 时间: 0s");
         JButton restartBtn = new JButton("重新开始");
         restartBtn.addActionListener(e -> restartGame());
         JButton backBtn = new JButton("返回主页");
@@ -76,7 +165,7 @@ public class MinesweeperGame extends JFrame {
             mainFrame.setVisible(true);
         });
         // 添加难度选择下拉框
-        JComboBox<String> difficultyCombo = new JComboBox<>(new String[]{"初级", "中级", "高级"});
+        JComboBox<String> difficultyCombo = new JComboBox<>(new String[]{"初级", "中级", "高级", "超大"});
         difficultyCombo.setSelectedItem(currentDifficulty);
         difficultyCombo.addActionListener(e -> {
             String newDifficulty = (String) difficultyCombo.getSelectedItem();
@@ -87,233 +176,366 @@ public class MinesweeperGame extends JFrame {
             // 调整窗口大小为固定1920*1080
             setSize(1920, 1080);
         });
+        noGuessBox = new JCheckBox("无猜测");
+        noGuessBox.setEnabled(noGuessSupported);
+        noGuessBox.addActionListener(e -> {
+            if (noGuessBox.isSelected()) noGuessGenerator(); // 开始预先生成
+            restartGame();
+        });
+        hintButton = new JToggleButton("概率提示");
+        hintButton.addActionListener(e -> boardChanged());
+        hintLabel = new JLabel();
         statusPanel.add(difficultyCombo);
         statusPanel.add(statusLabel);
         statusPanel.add(restartBtn);
         statusPanel.add(backBtn);
+        statusPanel.add(noGuessBox);
+        statusPanel.add(hintButton);
+        statusPanel.add(hintLabel);
 
-        // 雷区网格
-        JPanel minePanel = new JPanel(new GridLayout(rows, cols));
-        cells = new JButton[rows][cols];
-        isMine = new boolean[rows][cols];
-        generateMines();
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                cells[i][j] = new JButton();
-                cells[i][j].setPreferredSize(new Dimension(30, 30));
-                cells[i][j].addMouseListener(new CellMouseListener(i, j));
-                minePanel.add(cells[i][j]);
-            }
-        }
+        // 雷区（一个自绘面板，超出窗口时可滚动）
+        field.reset(rows, cols);
+        boardPanel = new BoardPanel();
+        boardPanel.addMouseListener(new BoardMouseListener());
+        JScrollPane scrollPane = new JScrollPane(boardPanel);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(CELL_SIZE);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(CELL_SIZE);
 
         // 计时器
         timer = new Timer(1000, e -> {
             timeElapsed++;
-            statusLabel.setText("剩余雷数: " + remainingMines + " 时间: " + timeElapsed + "s");
+            updateStatus();
         });
         timer.start();
 
         add(statusPanel, BorderLayout.NORTH);
-        add(minePanel, BorderLayout.CENTER);
+        add(scrollPane, BorderLayout.CENTER);
+    }
+
+    /**
+     * 刷新状态栏（剩余雷数和游戏时间）
+     */
+    private void updateStatus() {
+        statusLabel.setText("剩余雷数: " + (mineCount - field.flagCount()) + " 时间: " + timeElapsed + "s");
     }
 
         /**
-     * 生成雷的位置（简化逻辑，可能重复随机但最终保证总雷数）
+     * 第一次左键点击时布雷（洗牌抽取，避开点击处周围3x3，周围雷数同时算好）
+     * @param cell 第一次点击的格子
      */
-    private void generateMines() {
-        // 简化布雷逻辑（待优化：避免重复布雷）
-        Random random = new Random();
-        int count = 0;
-        while (count < mineCount) {
-            int x = random.nextInt(rows);
-            int y = random.nextInt(cols);
-            if (!isMine[x][y]) {
-                isMine[x][y] = true;
-                count++;
-            }
+    private void placeMines(int cell) {
+        if (!noGuessBox.isSelected() || !noGuessSupported || !placeNoGuessBoard(cell)) {
+            field.placeMines(mineCount, cell, random);
         }
+        minesPlaced = true;
     }
 
-        /**
-     * 计算指定位置周围的雷数
-     * @param x 行坐标（0-based）
-     * @param y 列坐标（0-based）
-     * @return 周围8邻域的雷数
+    /**
+     * 无猜测模式布雷：先从现成局面中找一个从点击处就能推理完的（每个局面试所有翻转/旋转），
+     * 找不到再以点击处为起点现场生成；第一次点击前插的旗保留
+     * @param cell 第一次点击的格子
+     * @return 是否布好了无猜测局面（失败时雷区为空，由调用方按普通方式布雷）
      */
-    private int countAdjacentMines(int x, int y) {
-        int count = 0;
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                if (i == 0 && j == 0) continue;
-                int nx = x + i;
-                int ny = y + j;
-                if (nx >= 0 && nx < rows && ny >= 0 && ny < cols) {
-                    if (isMine[nx][ny]) {
-                        count++;
-                    }
-                }
+    private boolean placeNoGuessBoard(int cell) {
+        List<Integer> flags = new ArrayList<>();
+        for (int i = 0; i < field.cellCount(); i++) {
+            if (field.state(i) == MineField.FLAGGED) flags.add(i);
+        }
+        NoGuessGenerator generator = noGuessGenerator();
+        List<NoGuessGenerator.Board> unused = new ArrayList<>();
+        boolean placed = false;
+        while (!placed && unused.size() < NO_GUESS_POOL_SIZE) {
+            NoGuessGenerator.Board board = generator.take(rows, cols, mineCount);
+            if (board == null) break;
+            for (int symmetry = 0; symmetry < board.symmetries() && !placed; symmetry++) {
+                board.load(field, symmetry);
+                placed = NoGuessGenerator.solvable(field, mineCount, cell);
+            }
+            if (placed) {
+                generator.consumed(board);
+            } else {
+                unused.add(board);
             }
         }
-        return count;
+        for (NoGuessGenerator.Board board : unused) {
+            generator.offer(board); // 没用上的局面放回去，留给以后的点击
+        }
+        if (!placed) {
+            placed = NoGuessGenerator.generate(field, rows, cols, mineCount, cell, random, NO_GUESS_ATTEMPTS) != null;
+        }
+        if (!placed) field.reset(rows, cols);
+        for (int flag : flags) {
+            field.setState(flag, MineField.FLAGGED);
+        }
+        return placed;
     }
 
         /**
-     * 展开无雷格子（递归展开相邻无雷区域）
-     * @param x 起始行坐标
-     * @param y 起始列坐标
+     * 一次翻开操作（翻开或双击数字展开）之后：整批翻开的格子只重绘一次，再判定输赢
+     * @param changed 本批翻开的格子数（格子由field.changed(i)取出）
      */
-    private void revealCells(int x, int y) {
-        // 检查坐标是否有效
-        if (x < 0 || x >= rows || y < 0 || y >= cols) return;
-        // 检查是否已显示或为雷
-        if (!cells[x][y].isEnabled() || isMine[x][y]) return;
-        int mines = countAdjacentMines(x, y);
-        cells[x][y].setEnabled(false); // 标记为已显示
-        if (mines > 0) {
-            cells[x][y].setText(String.valueOf(mines));
-            switch (mines) {
-                case 1: cells[x][y].setBackground(Color.BLUE); break;
-                case 2: cells[x][y].setBackground(Color.GREEN); break;
-                case 3: cells[x][y].setBackground(Color.ORANGE); break;
-                case 4: cells[x][y].setBackground(Color.MAGENTA); break;
-                default: cells[x][y].setBackground(Color.CYAN); break;
-            }
-        } else {
-            cells[x][y].setText("");
-            cells[x][y].setBackground(Color.LIGHT_GRAY);
-            // 递归展开周围8个方向
-            for (int i = -1; i <= 1; i++) {
-                for (int j = -1; j <= 1; j++) {
-                    if (i == 0 && j == 0) continue;
-                    revealCells(x + i, y + j);
-                }
+    private void applyBatch(int changed) {
+        if (changed == 0) return;
+        // 只重绘包住本批格子的矩形
+        int minRow = rows, maxRow = -1, minCol = cols, maxCol = -1;
+        for (int i = 0; i < changed; i++) {
+            int cell = field.changed(i);
+            minRow = Math.min(minRow, cell / cols);
+            maxRow = Math.max(maxRow, cell / cols);
+            minCol = Math.min(minCol, cell % cols);
+            maxCol = Math.max(maxCol, cell % cols);
+        }
+        boardPanel.repaint(minCol * CELL_SIZE, minRow * CELL_SIZE,
+                (maxCol - minCol + 1) * CELL_SIZE, (maxRow - minRow + 1) * CELL_SIZE);
+        boardChanged();
+        if (field.isLost()) {
+            boardPanel.repaint(); // 显示所有雷的位置
+            showGameOver("游戏失败！");
+        } else if (field.isWon()) {
+            showGameOver("游戏胜利！");
+        }
+    }
+
+    /**
+     * @return 本局是否已经结束（踩雷或获胜，之后不再响应点击）
+     */
+    private boolean isGameOver() {
+        return field.isLost() || (minesPlaced && field.isWon());
+    }
+
+    /**
+     * 停止计时并询问重新开始还是返回主页
+     * @param message 提示内容
+     */
+    private void showGameOver(String message) {
+        timer.stop();
+        Object[] options = {"重新开始", "返回主页"};
+        int choice = JOptionPane.showOptionDialog(MinesweeperGame.this, message, "提示",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE,
+                null, options, options[0]);
+        if (choice == 0) {
+            restartGame();
+        } else if (choice == 1) {
+            dispose();
+            mainFrame.setVisible(true);
+        }
+    }
+
+    /**
+     * 雷区变化后：放弃正在进行的概率计算，开启提示时在后台重新计算
+     */
+    private void boardChanged() {
+        int version = ++boardVersion;
+        if (!hintButton.isSelected() || !minesPlaced || isGameOver()) {
+            if (hints != null || !hintLabel.getText().isEmpty()) {
+                hints = null;
+                hintLabel.setText("");
+                boardPanel.repaint();
             }
+            return;
+        }
+        // 在事件分派线程中拍下玩家能看到的雷区，后台线程只读这份快照
+        int snapshotRows = rows;
+        int snapshotCols = cols;
+        int snapshotMines = mineCount;
+        byte[] view = new byte[field.cellCount()];
+        for (int cell = 0; cell < view.length; cell++) {
+            byte state = field.state(cell);
+            view[cell] = state == MineField.REVEALED ? (byte) field.count(cell)
+                    : state == MineField.FLAGGED ? MineSolver.FLAGGED : MineSolver.HIDDEN;
         }
+        solverExecutor.execute(() -> {
+            MineSolver.Result result = solver.solve(snapshotRows, snapshotCols, view, snapshotMines,
+                    () -> boardVersion != version);
+            if (result != null) SwingUtilities.invokeLater(() -> showHints(version, result));
+        });
+    }
+
+    /**
+     * 在事件分派线程中显示求解结果（期间雷区又变化过则丢弃）
+     * @param version 求解时的雷区版本号
+     * @param result 求解结果
+     */
+    private void showHints(int version, MineSolver.Result result) {
+        if (version != boardVersion || !isDisplayable()) return;
+        hints = result;
+        String safest = result.safestCell < 0 ? "无"
+                : "(" + (result.safestCell / cols + 1) + "," + (result.safestCell % cols + 1) + ") "
+                + Math.round(result.probabilities[result.safestCell] * 100) + "%";
+        hintLabel.setText("最安全: " + safest + "  确定安全: " + result.certainSafe
+                + "  确定是雷: " + result.certainMines + "  连通块: " + result.components
+                + "（复用 " + result.cached + "）  用时: " + result.nanos / 1_000_000 + "ms");
+        boardPanel.repaint();
     }
 
         /**
-     * 重新开始游戏（重置时间、雷区、格子状态）
+     * 重新开始游戏（重置时间、雷区、格子状态，雷区面板原样复用）
      */
     private void restartGame() {
         timeElapsed = 0;
-        remainingMines = mineCount;
+        // 清空雷区（适配新的rows/cols），雷等第一次点击时再布
+        field.reset(rows, cols);
+        minesPlaced = false;
         timer.restart();
-        // 重新生成雷区
-        isMine = new boolean[rows][cols];
-        generateMines();
+        updateStatus();
+        boardChanged();
+        boardPanel.boardResized();
+    }
 
-        // 重新初始化雷区网格（适配新的rows/cols）
-        JPanel minePanel = new JPanel(new GridLayout(rows, cols));
-        cells = new JButton[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                cells[i][j] = new JButton();
-                cells[i][j].setPreferredSize(new Dimension(30, 30));
-                cells[i][j].addMouseListener(new CellMouseListener(i, j));
-                minePanel.add(cells[i][j]);
-            }
+    /**
+     * 左键：翻开未翻开的格子；点在周围旗数已满的数字上时展开其余邻居
+     */
+    private void onLeftClick(int x, int y) {
+        int cell = x * cols + y;
+        // 已插旗的格子忽略左键翻格子操作
+        if (isGameOver() || field.state(cell) == MineField.FLAGGED) {
+            return;
+        }
+        if (!minesPlaced) {
+            placeMines(cell);
         }
+        applyBatch(field.state(cell) == MineField.REVEALED ? field.chord(cell) : field.reveal(cell));
+    }
 
-        // 替换旧的雷区面板
-        Container contentPane = getContentPane();
-        contentPane.remove(1); // 移除原来的CENTER位置面板（索引1）
-        contentPane.add(minePanel, BorderLayout.CENTER);
-        contentPane.revalidate();
-        contentPane.repaint();
+    /**
+     * 右键插旗/取消插旗，旗恰好插在所有雷上时胜利（由MineField的计数O(1)判定）
+     */
+    private void onRightClick(int x, int y) {
+        int cell = x * cols + y;
+        if (isGameOver() || !field.toggleFlag(cell)) {
+            return; // 已翻开的格子不能插旗
+        }
+        boardPanel.repaintCell(cell);
+        updateStatus();
+        boardChanged(); // 插旗不改变概率，但最安全的格子不能是已插旗的格子
+        if (minesPlaced && field.isWon()) {
+            showGameOver("游戏胜利！");
+        }
     }
 
         /**
-     * 格子鼠标事件监听器（处理左键翻格子、右键插旗）
+     * 关闭窗口时放弃正在进行的概率计算并结束求解后台线程
      */
-    private class CellMouseListener extends MouseAdapter {
-        private int x, y;
-
-        CellMouseListener(int x, int y) {
-            this.x = x;
-            this.y = y;
-        }
+    @Override
+    public void dispose() {
+        boardVersion++;
+        solverExecutor.shutdownNow();
+        super.dispose();
+    }
 
+        /**
+     * 雷区鼠标监听器（整个雷区只有一个：按像素换算格子，左键翻格子、右键插旗）
+     */
+    private class BoardMouseListener extends MouseAdapter {
         @Override
         public void mouseClicked(MouseEvent e) {
+            int x = e.getY() / CELL_SIZE;
+            int y = e.getX() / CELL_SIZE;
+            if (x < 0 || x >= rows || y < 0 || y >= cols) return;
             if (e.getButton() == MouseEvent.BUTTON1) {
-                // 检查是否已标记（右键插旗），若是则忽略左键翻格子操作
-                if ("⚑".equals(cells[x][y].getText())) {
-                    return;
-                }
-                // 左键翻格子（待实现：显示周围雷数/触发爆炸）
-                if (isMine[x][y]) {
-                    // 显示所有雷的位置
-                    for (int i = 0; i < rows; i++) {
-                        for (int j = 0; j < cols; j++) {
-                            if (isMine[i][j]) {
-                                cells[i][j].setBackground(Color.RED);
-                            }
-                        }
-                    }
-                    Object[] options = {"重新开始", "返回主页"};
-                    int choice = JOptionPane.showOptionDialog(MinesweeperGame.this, "游戏失败！", "提示",
-                            JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE,
-                            null, options, options[0]);
-                    if (choice == 0) {
-                        restartGame();
-                    } else if (choice == 1) {
-                        dispose();
-                        mainFrame.setVisible(true);
-                    }
-                } else {
-                    int mines = countAdjacentMines(x, y);
-                    if (mines > 0) {
-                        cells[x][y].setText(String.valueOf(mines));
-                        // 根据数字设置不同颜色
-                        switch (mines) {
-                            case 1: cells[x][y].setBackground(Color.BLUE); break;
-                            case 2: cells[x][y].setBackground(Color.GREEN); break;
-                            case 3: cells[x][y].setBackground(Color.ORANGE); break;
-                            case 4: cells[x][y].setBackground(Color.MAGENTA); break;
-                            default: cells[x][y].setBackground(Color.CYAN); break;
-                        }
-                    } else {
-                        revealCells(x, y);
-                    }
-                }
+                onLeftClick(x, y);
             } else if (e.getButton() == MouseEvent.BUTTON3) {
-                // 右键插旗并更新剩余雷数
-                String text = cells[x][y].getText();
-                if (text.isEmpty()) {
-                    cells[x][y].setText("⚑");
-                    remainingMines--;
-                } else {
-                    cells[x][y].setText("");
-                    remainingMines++;
+                onRightClick(x, y);
+            }
+        }
+    }
+
+    /**
+     * 雷区面板：按MineField的数组绘制，只画裁剪区域（滚动窗口中可见的部分）内的格子
+     */
+    private class BoardPanel extends JPanel {
+        BoardPanel() {
+            setBackground(Color.GRAY);
+            boardResized();
+        }
+
+        /** 雷区大小变化（或新的一局）时调用 */
+        void boardResized() {
+            setPreferredSize(new Dimension(cols * CELL_SIZE, rows * CELL_SIZE));
+            revalidate();
+            repaint();
+        }
+
+        /** 只重绘一个格子 */
+        void repaintCell(int cell) {
+            repaint(cell % cols * CELL_SIZE, cell / cols * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Rectangle clip = g.getClipBounds();
+            int x0 = Math.max(clip.y / CELL_SIZE, 0);
+            int y0 = Math.max(clip.x / CELL_SIZE, 0);
+            int x1 = Math.min((clip.y + clip.height - 1) / CELL_SIZE, rows - 1);
+            int y1 = Math.min((clip.x + clip.width - 1) / CELL_SIZE, cols - 1);
+            g.setFont(CELL_FONT);
+            FontMetrics fm = g.getFontMetrics();
+            for (int x = x0; x <= x1; x++) {
+                for (int y = y0; y <= y1; y++) {
+                    paintCell(g, fm, x, y);
                 }
-                statusLabel.setText("剩余雷数: " + remainingMines + " 时间: " + timeElapsed + "s");
-                // 检查是否所有雷都被正确标记
-                if (remainingMines == 0) {
-                    boolean allMinesMarked = true;
-                    for (int i = 0; i < rows; i++) {
-                        for (int j = 0; j < cols; j++) {
-                            if (isMine[i][j] && !"⚑".equals(cells[i][j].getText())) {
-                                allMinesMarked = false;
-                                break;
-                            }
-                        }
-                        if (!allMinesMarked) break;
-                    }
-                    if (allMinesMarked) {
-                        Object[] options = {"重新开始", "返回主页"};
-                        int choice = JOptionPane.showOptionDialog(MinesweeperGame.this, "游戏胜利！", "提示",
-                                JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE,
-                                null, options, options[0]);
-                        if (choice == 0) {
-                            restartGame();
-                        } else if (choice == 1) {
-                            dispose();
-                            mainFrame.setVisible(true);
-                        }
-                    }
+            }
+        }
+
+        private void paintCell(Graphics g, FontMetrics fm, int x, int y) {
+            int cell = x * cols + y;
+            int px = y * CELL_SIZE;
+            int py = x * CELL_SIZE;
+            byte state = field.state(cell);
+            String text = null;
+            Color background;
+            if (state == MineField.REVEALED) {
+                int mines = field.count(cell);
+                // 根据数字设置不同颜色
+                switch (mines) {
+                    case 0: background = Color.LIGHT_GRAY; break;
+                    case 1: background = Color.BLUE; break;
+                    case 2: background = Color.GREEN; break;
+                    case 3: background = Color.ORANGE; break;
+                    case 4: background = Color.MAGENTA; break;
+                    default: background = Color.CYAN; break;
                 }
+                if (mines > 0) text = String.valueOf(mines);
+            } else {
+                background = HIDDEN_COLOR;
+                if (state == MineField.FLAGGED) text = "⚑";
+            }
+            // 概率提示：未翻开格子按是雷的概率着色并标出百分比
+            String hint = null;
+            if (hints != null && state == MineField.HIDDEN && hints.probabilities[cell] >= 0) {
+                int percent = Math.round(hints.probabilities[cell] * 100);
+                background = HEAT_COLORS[percent];
+                hint = String.valueOf(percent);
             }
+            if (field.isLost() && field.isMine(cell)) {
+                background = Color.RED;
+                if (state == MineField.REVEALED) text = null;
+            }
+            g.setColor(background);
+            if (state == MineField.REVEALED) {
+                g.fillRect(px, py, CELL_SIZE - 1, CELL_SIZE - 1);
+            } else {
+                g.fill3DRect(px, py, CELL_SIZE - 1, CELL_SIZE - 1, true);
+            }
+            if (text != null) {
+                g.setColor(Color.BLACK);
+                g.drawString(text, px + (CELL_SIZE - fm.stringWidth(text)) / 2,
+                        py + (CELL_SIZE - fm.getHeight()) / 2 + fm.getAscent());
+            }
+            if (hint != null) {
+                g.setColor(Color.BLACK);
+                g.setFont(HINT_FONT);
+                FontMetrics hintMetrics = g.getFontMetrics();
+                g.drawString(hint, px + (CELL_SIZE - hintMetrics.stringWidth(hint)) / 2,
+                        py + (CELL_SIZE - hintMetrics.getHeight()) / 2 + hintMetrics.getAscent());
+                g.setFont(CELL_FONT);
+                if (cell == hints.safestCell) {
+                    g.setColor(Color.BLUE);
+                    g.drawRect(px + 1, py + 1, CELL_SIZE - 4, CELL_SIZE - 4);
+                    g.drawRect(px + 2, py + 2, CELL_SIZE - 6, CELL_SIZE - 6);
+                }
             }
         }
-    }
\ No newline at end of file
+    }
+}
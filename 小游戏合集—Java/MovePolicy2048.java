@@ -0,0 +1,58 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * 2048走法策略接口（无界面，供批量模拟器和AI使用）
+ * 同一个策略对象只会被一个工作线程使用，因此实现可以持有线程内的可变状态。
+ */
+public interface MovePolicy2048 {
+    /**
+     * 为当前棋盘选择一个方向
+     * @param board Board2048位棋盘
+     * @param random 当前工作线程专用的随机数生成器
+     * @return 方向（Board2048.UP/DOWN/LEFT/RIGHT），无路可走时返回-1
+     */
+    int chooseMove(long board, RandomGenerator random);
+
+    /**
+     * 随机策略：在所有有效方向中等概率随机选一个
+     * @return 策略对象
+     */
+    static MovePolicy2048 random() {
+        return (board, random) -> {
+            int start = random.nextInt(4);
+            for (int i = 0; i < 4; i++) {
+                int direction = (start + i) & 3;
+                if (Board2048.move(board, direction) != board) return direction;
+            }
+            return -1;
+        };
+    }
+
+    /**
+     * 贪心策略：只看一步，选移动后静态估值最高的方向
+     * @return 策略对象
+     */
+    static MovePolicy2048 greedy() {
+        return (board, random) -> Expectimax2048.greedyMove(board);
+    }
+
+    /**
+     * 期望最大搜索策略（单线程顺序搜索，只受深度限制）
+     * @param depth 搜索深度
+     * @param tableMegabytes 置换表内存上限（MB）
+     * @return 策略对象
+     */
+    static MovePolicy2048 expectimax(int depth, int tableMegabytes) {
+        Expectimax2048 solver = new Expectimax2048(depth, 0, tableMegabytes, null);
+        return (board, random) -> solver.search(board).move;
+    }
+
+    /**
+     * N元组网络策略：一步贪心，选合并得分加afterstate估值最大的方向
+     * @param network 已训练的网络（只读，可被多个线程共享）
+     * @return 策略对象
+     */
+    static MovePolicy2048 ntuple(NTuple2048 network) {
+        return (board, random) -> network.bestMove(board);
+    }
+}
@@ -0,0 +1,244 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 2048 N元组网络（afterstate估值函数）
+ * 使用4个6元组，每个元组按棋盘的8种对称变换共享同一张权重表，估值为32个特征权重之和。
+ * 每张权重表有16^6个float（64MB），全部权重约256MB，直接内存映射到文件：
+ * 打开时不读取、不反序列化到堆数组，训练中的修改由操作系统写回文件，下次打开即可继续训练。
+ *
+ * 文件格式（小端序）：64字节文件头（魔数、版本、元组数、元组长度、已训练局数），之后依次是各元组的权重表。
+ */
+public class NTuple2048 {
+    /** 默认权重文件（可用系统属性ntuple2048.weights指定其他路径） */
+    public static final String DEFAULT_WEIGHTS_FILE = "ntuple2048.weights";
+    /** 文件魔数 "N2T1" */
+    private static final int MAGIC = 0x4E325431;
+    /** 文件格式版本 */
+    private static final int VERSION = 1;
+    /** 文件头长度（字节） */
+    private static final int HEADER_BYTES = 64;
+    /** 文件头中已训练局数的位置 */
+    private static final int GAMES_OFFSET = 16;
+    /** 元组形状（格子下标为4*行+列） */
+    private static final int[][] TUPLES = {
+            {0, 1, 2, 3, 4, 5},
+            {4, 5, 6, 7, 8, 9},
+            {0, 1, 2, 4, 5, 6},
+            {4, 5, 6, 8, 9, 10},
+    };
+    /** 元组长度 */
+    private static final int TUPLE_LENGTH = 6;
+    /** 每张权重表的条目数（16^6） */
+    private static final int TABLE_SIZE = 1 << (4 * TUPLE_LENGTH);
+    /** 对称变换数 */
+    private static final int SYMMETRIES = 8;
+    /** 特征总数（元组数 x 对称变换数），更新时学习率按特征数平均分配 */
+    public static final int FEATURES = TUPLES.length * SYMMETRIES;
+    /** 每个特征各格子在位棋盘中的位移量（SHIFTS[特征][k] = 4*格子下标） */
+    private static final int[][] SHIFTS = new int[FEATURES][TUPLE_LENGTH];
+
+    static {
+        for (int t = 0; t < TUPLES.length; t++) {
+            for (int s = 0; s < SYMMETRIES; s++) {
+                for (int k = 0; k < TUPLE_LENGTH; k++) {
+                    int row = TUPLES[t][k] >> 2;
+                    int col = TUPLES[t][k] & 3;
+                    if ((s & 4) != 0) { int temp = row; row = col; col = temp; } // 转置
+                    if ((s & 1) != 0) row = 3 - row; // 上下翻转
+                    if ((s & 2) != 0) col = 3 - col; // 左右翻转
+                    SHIFTS[t * SYMMETRIES + s][k] = 4 * (4 * row + col);
+                }
+            }
+        }
+    }
+
+    /** 权重文件通道（映射建立后仍保持打开，用于更新文件头） */
+    private final FileChannel channel;
+    /** 文件头映射 */
+    private final MappedByteBuffer header;
+    /** 各元组权重表的内存映射（用于写回磁盘） */
+    private final MappedByteBuffer[] mapped = new MappedByteBuffer[TUPLES.length];
+    /** 各特征对应的权重表视图（同一元组的8个对称特征共享同一张表） */
+    private final FloatBuffer[] tables = new FloatBuffer[FEATURES];
+    /** 是否以可写方式打开 */
+    private final boolean writable;
+
+    private NTuple2048(FileChannel channel, boolean writable) throws IOException {
+        this.channel = channel;
+        this.writable = writable;
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        long tableBytes = 4L * TABLE_SIZE;
+        header = channel.map(mode, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        for (int t = 0; t < TUPLES.length; t++) {
+            mapped[t] = channel.map(mode, HEADER_BYTES + t * tableBytes, tableBytes);
+            FloatBuffer table = mapped[t].order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            for (int s = 0; s < SYMMETRIES; s++) {
+                tables[t * SYMMETRIES + s] = table;
+            }
+        }
+    }
+
+    /**
+     * 以只读方式打开权重文件（用于推理，多个线程可以共享同一个对象）
+     * @param path 权重文件
+     * @return 网络
+     * @throws IOException 文件不存在或格式不正确
+     */
+    public static NTuple2048 open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return checked(channel, false);
+    }
+
+    /**
+     * 以读写方式打开权重文件（用于训练），文件不存在时创建全零权重的新文件
+     * @param path 权重文件
+     * @return 网络
+     * @throws IOException 文件无法创建或格式不正确
+     */
+    public static NTuple2048 openForTraining(Path path) throws IOException {
+        boolean create = !Files.exists(path);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (create) {
+            // 文件系统支持稀疏文件时不会真正写入256MB的零
+            ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            head.putInt(MAGIC).putInt(VERSION).putInt(TUPLES.length).putInt(TUPLE_LENGTH).putLong(0L);
+            head.clear();
+            channel.write(head, 0);
+            channel.write(ByteBuffer.allocate(1), fileBytes() - 1);
+        }
+        return checked(channel, true);
+    }
+
+    /**
+     * 如果默认权重文件存在就以只读方式打开，否则返回null（界面中用于可选的N元组提示）
+     * @return 网络或null
+     */
+    public static NTuple2048 openDefault() {
+        Path path = Path.of(System.getProperty("ntuple2048.weights", DEFAULT_WEIGHTS_FILE));
+        if (!Files.isRegularFile(path)) return null;
+        try {
+            return open(path);
+        } catch (IOException e) {
+            System.err.println("无法加载N元组权重 " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static long fileBytes() {
+        return HEADER_BYTES + 4L * TABLE_SIZE * TUPLES.length;
+    }
+
+    private static NTuple2048 checked(FileChannel channel, boolean writable) throws IOException {
+        try {
+            if (channel.size() != fileBytes()) {
+                throw new IOException("权重文件大小不正确: " + channel.size());
+            }
+            NTuple2048 network = new NTuple2048(channel, writable);
+            if (network.header.getInt(0) != MAGIC || network.header.getInt(4) != VERSION
+                    || network.header.getInt(8) != TUPLES.length || network.header.getInt(12) != TUPLE_LENGTH) {
+                throw new IOException("不是N元组权重文件或版本不匹配");
+            }
+            return network;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 估值：afterstate（移动之后、生成新数字之前的棋盘）的期望未来得分
+     * @param board Board2048位棋盘
+     * @return 估值
+     */
+    public float evaluate(long board) {
+        float value = 0;
+        for (int f = 0; f < FEATURES; f++) {
+            value += tables[f].get(index(board, SHIFTS[f]));
+        }
+        return value;
+    }
+
+    /**
+     * 把所有特征的权重加上delta（TD更新；多个训练线程无锁并发更新，偶尔丢失一次更新不影响收敛）
+     * @param board afterstate棋盘
+     * @param delta 每个权重的增量
+     */
+    public void update(long board, float delta) {
+        for (int f = 0; f < FEATURES; f++) {
+            FloatBuffer table = tables[f];
+            int index = index(board, SHIFTS[f]);
+            table.put(index, table.get(index) + delta);
+        }
+    }
+
+    private static int index(long board, int[] shifts) {
+        int index = 0;
+        for (int shift : shifts) {
+            index = (index << 4) | (int) ((board >>> shift) & 0xF);
+        }
+        return index;
+    }
+
+    /**
+     * 选择合并得分加afterstate估值最大的方向
+     * @param board Board2048位棋盘
+     * @return 方向，无路可走时返回-1
+     */
+    public int bestMove(long board) {
+        int bestDirection = -1;
+        float bestValue = Float.NEGATIVE_INFINITY;
+        for (int direction = 0; direction < 4; direction++) {
+            long next = Board2048.move(board, direction);
+            if (next == board) continue;
+            float value = Board2048.mergeScore(board, direction) + evaluate(next);
+            if (value > bestValue) {
+                bestValue = value;
+                bestDirection = direction;
+            }
+        }
+        return bestDirection;
+    }
+
+    /** @return 权重文件中记录的已训练局数 */
+    public long gamesTrained() {
+        return header.getLong(GAMES_OFFSET);
+    }
+
+    /**
+     * 累加已训练局数（只由训练主线程调用）
+     * @param games 新完成的局数
+     */
+    public void addGamesTrained(long games) {
+        header.putLong(GAMES_OFFSET, gamesTrained() + games);
+    }
+
+    /**
+     * 把修改过的权重和文件头写回磁盘（只读打开时什么也不做）
+     */
+    public void flush() {
+        if (!writable) return;
+        for (MappedByteBuffer buffer : mapped) {
+            buffer.force();
+        }
+        header.force();
+    }
+
+    /**
+     * 写回并关闭文件通道（映射本身在对象被回收时才解除）
+     * @throws IOException 关闭失败
+     */
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 2048 N元组网络训练器（命令行入口，无界面）
+ * 用法：java NTupleTrainer2048 [权重文件] [局数] [线程数] [学习率] [随机种子]
+ * 使用TD(0) afterstate学习：每步按当前网络贪心选择方向，
+ * 用“下一步合并得分 + 下一个afterstate估值”修正上一个afterstate的估值。
+ * 所有工作线程直接无锁更新内存映射的权重，中途停止后再次运行会在已有权重上继续训练。
+ */
+public class NTupleTrainer2048 {
+    /** 进度输出（同时写回权重文件）的间隔（毫秒） */
+    private static final long REPORT_INTERVAL_MS = 5000;
+
+    /** 训练的网络（以可写方式映射） */
+    private final NTuple2048 network;
+    /** 总局数 */
+    private final long games;
+    /** 工作线程数 */
+    private final int threads;
+    /** 每个权重的学习率（总学习率按特征数平均分配） */
+    private final float learningRate;
+    /** 根随机数生成器（只在主线程中拆分） */
+    private final SplittableRandom rootRandom;
+    /** 下一个待领取的局号 */
+    private final AtomicLong nextGame = new AtomicLong();
+    /** 已完成局数 */
+    private final LongAdder finishedGames = new LongAdder();
+    /** 总步数 */
+    private final LongAdder totalMoves = new LongAdder();
+    /** 合并得分总和 */
+    private final LongAdder totalScore = new LongAdder();
+    /** 达到2048的局数 */
+    private final LongAdder reached2048 = new LongAdder();
+
+    /**
+     * 构造训练器
+     * @param network 可写的网络
+     * @param games 总局数
+     * @param threads 工作线程数
+     * @param learningRate 总学习率
+     * @param seed 随机种子
+     */
+    public NTupleTrainer2048(NTuple2048 network, long games, int threads, float learningRate, long seed) {
+        this.network = network;
+        this.games = games;
+        this.threads = threads;
+        this.learningRate = learningRate / NTuple2048.FEATURES;
+        this.rootRandom = new SplittableRandom(seed);
+    }
+
+    /**
+     * 运行训练，期间定时输出最近一段时间的平均得分和2048达成率
+     * @throws InterruptedException 主线程被中断
+     */
+    public void run() throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = rootRandom.split();
+            workers[i] = new Thread(() -> work(random), "ntuple2048-" + i);
+            workers[i].start();
+        }
+        long start = System.nanoTime();
+        long lastGames = 0, lastScore = 0, last2048 = 0;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                worker.join(REPORT_INTERVAL_MS);
+                long doneGames = finishedGames.sum();
+                long doneMoves = totalMoves.sum();
+                long doneScore = totalScore.sum();
+                long done2048 = reached2048.sum();
+                long intervalGames = doneGames - lastGames;
+                if (intervalGames > 0) {
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("已训练 %d 局  %.0f 步/秒  最近平均得分 %.0f  最近2048达成率 %.1f%%%n",
+                            doneGames, doneMoves / seconds, (double) (doneScore - lastScore) / intervalGames,
+                            100.0 * (done2048 - last2048) / intervalGames);
+                    network.addGamesTrained(intervalGames);
+                    network.flush();
+                }
+                lastGames = doneGames;
+                lastScore = doneScore;
+                last2048 = done2048;
+            }
+        }
+        network.addGamesTrained(finishedGames.sum() - lastGames);
+        network.flush();
+    }
+
+    /**
+     * 工作线程主循环：不断领取局号并训练，直到全部局数领完
+     * @param random 本线程专用随机数生成器
+     */
+    private void work(SplittableRandom random) {
+        while (nextGame.getAndIncrement() < games) {
+            trainOne(random);
+        }
+    }
+
+    /**
+     * 训练一局：边玩边更新上一个afterstate的估值
+     */
+    private void trainOne(SplittableRandom random) {
+        long board = Board2048.addRandomTile(Board2048.addRandomTile(0L, random), random);
+        long previousAfterstate = 0;
+        float previousValue = 0;
+        boolean hasPrevious = false;
+        long score = 0;
+        long moves = 0;
+        while (true) {
+            // 贪心选择：合并得分 + afterstate估值最大的方向
+            int bestDirection = -1;
+            long bestAfterstate = 0;
+            int bestReward = 0;
+            float bestAfterValue = 0;
+            float bestTotal = Float.NEGATIVE_INFINITY;
+            for (int direction = 0; direction < 4; direction++) {
+                long next = Board2048.move(board, direction);
+                if (next == board) continue;
+                int reward = Board2048.mergeScore(board, direction);
+                float afterValue = network.evaluate(next);
+                if (reward + afterValue > bestTotal) {
+                    bestTotal = reward + afterValue;
+                    bestDirection = direction;
+                    bestAfterstate = next;
+                    bestReward = reward;
+                    bestAfterValue = afterValue;
+                }
+            }
+            if (bestDirection < 0) {
+                // 终局：上一个afterstate之后不再有得分
+                if (hasPrevious) network.update(previousAfterstate, learningRate * -previousValue);
+                break;
+            }
+            if (hasPrevious) {
+                network.update(previousAfterstate, learningRate * (bestReward + bestAfterValue - previousValue));
+            }
+            previousAfterstate = bestAfterstate;
+            previousValue = network.evaluate(bestAfterstate); // 同一局面可能刚被更新过，重新估值
+            hasPrevious = true;
+            score += bestReward;
+            moves++;
+            board = Board2048.addRandomTile(bestAfterstate, random);
+        }
+        finishedGames.increment();
+        totalMoves.add(moves);
+        totalScore.add(score);
+        if (Board2048.maxExponent(board) >= 11) reached2048.increment();
+    }
+
+    /**
+     * 命令行入口
+     * @param args [权重文件] [局数] [线程数] [学习率] [随机种子]
+     * @throws IOException 权重文件无法打开
+     * @throws InterruptedException 主线程被中断
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path path = Path.of(args.length > 0 ? args[0] : NTuple2048.DEFAULT_WEIGHTS_FILE);
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 100_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        float learningRate = args.length > 3 ? Float.parseFloat(args[3]) : 0.1f;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        NTuple2048 network = NTuple2048.openForTraining(path);
+        System.out.println("权重文件: " + path + "（已训练 " + network.gamesTrained() + " 局）  局数: " + games
+                + "  线程: " + threads + "  学习率: " + learningRate + "  种子: " + seed);
+        new NTupleTrainer2048(network, games, threads, learningRate, seed).run();
+        System.out.println("训练完成，累计已训练 " + network.gamesTrained() + " 局");
+        network.close();
+    }
+}
@@ -0,0 +1,423 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * 无猜测扫雷局面生成器（无界面）
+ * 候选局面用MineField.placeMines随机布雷（起点周围3x3无雷，起点必然是一片空白），
+ * 再用确定性的逻辑求解器从起点开始推理，只有不需要任何猜测就能翻开所有安全格子的局面才保留。
+ * 高级难度往往要试几十次才成功一次，因此由后台工作线程并行生成，每种尺寸保留一个有界的现成局面池，
+ * 游戏从池中直接取用；池满时工作线程休眠，取走的局面确实用掉（consumed）后再补足，放回（offer）的不用补。
+ * 逻辑求解器只用三条规则：单个数字（剩余雷数为0或等于未翻开格子数）、两个数字的子集关系、全局剩余雷数。
+ */
+public class NoGuessGenerator {
+    /** 求解用的临时雷区状态：推理出是雷的格子 */
+    private static final byte MARKED = MineField.FLAGGED;
+
+    /** 每种尺寸保留的现成局面数 */
+    private final int poolSize;
+    /** 各尺寸的局面池（只在持有本对象锁时访问） */
+    private final List<Pool> pools = new ArrayList<>();
+    /** 生成局面的工作线程 */
+    private final Thread[] workers;
+
+    /**
+     * 创建生成器并启动工作线程（没有登记尺寸时线程休眠）
+     * @param threads 工作线程数
+     * @param poolSize 每种尺寸保留的现成局面数
+     */
+    public NoGuessGenerator(int threads, int poolSize) {
+        this.poolSize = poolSize;
+        SplittableRandom seeds = new SplittableRandom();
+        workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = seeds.split();
+            workers[i] = new Thread(() -> work(random), "noguess-" + i);
+            workers[i].setDaemon(true);
+            workers[i].setPriority(Thread.MIN_PRIORITY); // 不和界面线程抢CPU
+            workers[i].start();
+        }
+    }
+
+    /**
+     * 登记一种尺寸，工作线程开始为它填充局面池（重复登记无影响）
+     * @param rows 行数
+     * @param cols 列数
+     * @param mines 雷数
+     */
+    public synchronized void prepare(int rows, int cols, int mines) {
+        if (find(rows, cols, mines) == null) {
+            pools.add(new Pool(rows, cols, mines));
+            notifyAll();
+        }
+    }
+
+    /**
+     * 取出一个现成局面，用完后必须调用consumed或offer
+     * @param rows 行数
+     * @param cols 列数
+     * @param mines 雷数
+     * @return 局面，池中没有时返回null（尺寸未登记时顺便登记）
+     */
+    public synchronized Board take(int rows, int cols, int mines) {
+        Pool pool = find(rows, cols, mines);
+        if (pool == null) {
+            prepare(rows, cols, mines);
+            return null;
+        }
+        Board board = pool.ready.poll();
+        if (board != null) pool.lent++; // 可能还会放回，先不唤醒工作线程
+        return board;
+    }
+
+    /**
+     * 取出的局面已经用掉，唤醒工作线程补足
+     * @param board 局面
+     */
+    public synchronized void consumed(Board board) {
+        Pool pool = find(board.rows, board.cols, board.mines.length);
+        if (pool != null && pool.lent > 0) {
+            pool.lent--;
+            notifyAll();
+        }
+    }
+
+    /**
+     * 放回一个取出后没用上的局面（池已满时丢弃）
+     * @param board 局面
+     */
+    public synchronized void offer(Board board) {
+        Pool pool = find(board.rows, board.cols, board.mines.length);
+        if (pool == null) return;
+        if (pool.lent > 0) pool.lent--;
+        if (pool.ready.size() < poolSize) pool.ready.add(board);
+    }
+
+    /**
+     * @return 某种尺寸现成的局面数
+     */
+    public synchronized int readyCount(int rows, int cols, int mines) {
+        Pool pool = find(rows, cols, mines);
+        return pool == null ? 0 : pool.ready.size();
+    }
+
+    private Pool find(int rows, int cols, int mines) {
+        for (Pool pool : pools) {
+            if (pool.rows == rows && pool.cols == cols && pool.mines == mines) return pool;
+        }
+        return null;
+    }
+
+    /**
+     * 工作线程：挑现成局面最少的尺寸生成一个，放入局面池
+     */
+    private void work(SplittableRandom random) {
+        MineField field = new MineField();
+        try {
+            while (true) {
+                Pool pool;
+                synchronized (this) {
+                    while ((pool = neediest()) == null) {
+                        wait();
+                    }
+                    pool.inProgress++;
+                }
+                Board board = null;
+                while (board == null) {
+                    int start = random.nextInt(pool.rows * pool.cols);
+                    board = generate(field, pool.rows, pool.cols, pool.mines, start, random, 1);
+                }
+                synchronized (this) {
+                    pool.inProgress--;
+                    if (pool.ready.size() < poolSize) pool.ready.add(board); // 池已满（局面被放回）时丢弃
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return 现成局面（含正在生成的和取出后可能放回的）最少且未满的局面池，都满时返回null
+     */
+    private Pool neediest() {
+        Pool best = null;
+        for (Pool pool : pools) {
+            if (pool.pending() < poolSize && (best == null || pool.pending() < best.pending())) best = pool;
+        }
+        return best;
+    }
+
+    /**
+     * 在调用线程中生成无猜测局面
+     * @param field 临时雷区（会被覆盖）
+     * @param rows 行数
+     * @param cols 列数
+     * @param mines 雷数
+     * @param start 起点（第一次点击的格子）
+     * @param random 随机数生成器
+     * @param attempts 最多尝试次数
+     * @return 局面，尝试次数用完仍未成功时返回null
+     */
+    public static Board generate(MineField field, int rows, int cols, int mines, int start,
+                                 RandomGenerator random, int attempts) {
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            field.reset(rows, cols);
+            int placed = field.placeMines(mines, start, random);
+            if (placed == mines && solvable(field, mines, start)) return new Board(field, start);
+        }
+        return null;
+    }
+
+    /**
+     * 确定性逻辑求解：从起点开始只用推理能否翻开所有安全格子（结束后雷区状态恢复为全部未翻开）
+     * @param field 已布雷并算好周围雷数的雷区
+     * @param mines 雷数
+     * @param start 起点
+     * @return 是否不需要猜测
+     */
+    public static boolean solvable(MineField field, int mines, int start) {
+        if (field.isMine(start)) return false;
+        int safeCells = field.cellCount() - mines;
+        Solver solver = new Solver(field, mines);
+        solver.open(start);
+        while (solver.revealed < safeCells && (solver.singlePass() || solver.subsetPass() || solver.globalPass())) {
+            // 每轮只要有一条规则推出新结论就继续
+        }
+        boolean solved = solver.revealed == safeCells;
+        field.hideAll();
+        return solved;
+    }
+
+    /**
+     * 一次求解的状态（直接使用雷区的翻开/插旗状态，MARKED表示推理出的雷）
+     */
+    private static final class Solver {
+        final MineField field;
+        final int rows;
+        final int cols;
+        final int mines;
+        /** 已翻开的格子数 */
+        int revealed;
+        /** 已推理出的雷数 */
+        int marked;
+        /** 两个数字的未翻开邻居（子集规则用） */
+        final int[] hiddenA = new int[8];
+        final int[] hiddenB = new int[8];
+
+        Solver(MineField field, int mines) {
+            this.field = field;
+            this.rows = field.rows();
+            this.cols = field.cols();
+            this.mines = mines;
+        }
+
+        void open(int cell) {
+            revealed += field.reveal(cell);
+        }
+
+        void mark(int cell) {
+            if (field.state(cell) == MineField.HIDDEN) {
+                field.setState(cell, MARKED);
+                marked++;
+            }
+        }
+
+        /**
+         * 收集数字格的未翻开邻居
+         * @return 还需要的雷数（数字减去已推理出的邻居雷数）；hidden[0..count)为未翻开邻居，个数放在返回值的高16位
+         */
+        int collect(int cell, int[] hidden) {
+            int r = cell / cols;
+            int c = cell - r * cols;
+            int count = 0;
+            int need = field.count(cell);
+            for (int nr = Math.max(r - 1, 0); nr <= Math.min(r + 1, rows - 1); nr++) {
+                for (int nc = Math.max(c - 1, 0); nc <= Math.min(c + 1, cols - 1); nc++) {
+                    int neighbour = nr * cols + nc;
+                    byte state = field.state(neighbour);
+                    if (state == MineField.HIDDEN) {
+                        hidden[count++] = neighbour;
+                    } else if (state == MARKED) {
+                        need--;
+                    }
+                }
+            }
+            return count << 16 | need;
+        }
+
+        /**
+         * 单个数字：还需要0个雷时邻居都安全，还需要的雷数等于未翻开邻居数时邻居都是雷
+         */
+        boolean singlePass() {
+            boolean progress = false;
+            for (int cell = 0; cell < rows * cols; cell++) {
+                if (field.state(cell) != MineField.REVEALED || field.count(cell) == 0) continue;
+                int packed = collect(cell, hiddenA);
+                int count = packed >>> 16;
+                int need = (short) packed;
+                if (count == 0) continue;
+                if (need == 0) {
+                    for (int i = 0; i < count; i++) open(hiddenA[i]);
+                    progress = true;
+                } else if (need == count) {
+                    for (int i = 0; i < count; i++) mark(hiddenA[i]);
+                    progress = true;
+                }
+            }
+            return progress;
+        }
+
+        /**
+         * 两个数字：A的未翻开邻居都是B的邻居时，B多出来的格子里恰好有 needB - needA 个雷
+         */
+        boolean subsetPass() {
+            for (int a = 0; a < rows * cols; a++) {
+                if (field.state(a) != MineField.REVEALED || field.count(a) == 0) continue;
+                int packedA = collect(a, hiddenA);
+                int countA = packedA >>> 16;
+                if (countA == 0) continue;
+                int needA = (short) packedA;
+                int ar = a / cols;
+                int ac = a - ar * cols;
+                for (int br = Math.max(ar - 2, 0); br <= Math.min(ar + 2, rows - 1); br++) {
+                    for (int bc = Math.max(ac - 2, 0); bc <= Math.min(ac + 2, cols - 1); bc++) {
+                        int b = br * cols + bc;
+                        if (b == a || field.state(b) != MineField.REVEALED || field.count(b) == 0) continue;
+                        if (!allAdjacent(hiddenA, countA, br, bc)) continue;
+                        int packedB = collect(b, hiddenB);
+                        int countB = packedB >>> 16;
+                        int extra = countB - countA;
+                        if (extra == 0) continue;
+                        int extraMines = (short) packedB - needA;
+                        if (extraMines != 0 && extraMines != extra) continue;
+                        for (int i = 0; i < countB; i++) {
+                            int cell = hiddenB[i];
+                            if (Math.abs(cell / cols - ar) <= 1 && Math.abs(cell % cols - ac) <= 1) continue; // 也是A的邻居
+                            if (extraMines == 0) {
+                                open(cell);
+                            } else {
+                                mark(cell);
+                            }
+                        }
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return hidden中的格子是否都与(r, c)相邻
+         */
+        private boolean allAdjacent(int[] hidden, int count, int r, int c) {
+            for (int i = 0; i < count; i++) {
+                int cell = hidden[i];
+                if (Math.abs(cell / cols - r) > 1 || Math.abs(cell % cols - c) > 1) return false;
+            }
+            return true;
+        }
+
+        /**
+         * 全局雷数：剩余雷数为0时其余格子都安全
+         */
+        boolean globalPass() {
+            if (marked != mines) return false;
+            boolean progress = false;
+            for (int cell = 0; cell < rows * cols; cell++) {
+                if (field.state(cell) == MineField.HIDDEN) {
+                    open(cell);
+                    progress = true;
+                }
+            }
+            return progress;
+        }
+    }
+
+    /**
+     * 同一尺寸的局面池
+     */
+    private static final class Pool {
+        final int rows;
+        final int cols;
+        final int mines;
+        final ArrayDeque<Board> ready = new ArrayDeque<>();
+        /** 正在生成的局面数 */
+        int inProgress;
+        /** 取出后还没有用掉或放回的局面数 */
+        int lent;
+
+        Pool(int rows, int cols, int mines) {
+            this.rows = rows;
+            this.cols = cols;
+            this.mines = mines;
+        }
+
+        int pending() {
+            return ready.size() + inProgress + lent;
+        }
+    }
+
+    /**
+     * 一个无猜测局面（不可变）：雷的位置和生成时使用的起点
+     */
+    public static final class Board {
+        final int rows;
+        final int cols;
+        /** 雷所在的格子（升序） */
+        final int[] mines;
+        /** 生成时的起点（从这里开始一定能推理完） */
+        final int start;
+
+        Board(MineField field, int start) {
+            this.rows = field.rows();
+            this.cols = field.cols();
+            int count = 0;
+            int[] cells = new int[field.cellCount()];
+            for (int cell = 0; cell < field.cellCount(); cell++) {
+                if (field.isMine(cell)) cells[count++] = cell;
+            }
+            this.mines = Arrays.copyOf(cells, count);
+            this.start = start;
+        }
+
+        /**
+         * @return 不改变尺寸的对称变换个数（正方形8个，长方形4个：翻转与旋转180°）
+         */
+        public int symmetries() {
+            return rows == cols ? 8 : 4;
+        }
+
+        /**
+         * 按一个对称变换把局面布到雷区中（并算好周围雷数）
+         * @param field 雷区（会被重置）
+         * @param symmetry 变换编号（0为原样，小于symmetries()）
+         */
+        public void load(MineField field, int symmetry) {
+            field.reset(rows, cols);
+            for (int cell : mines) {
+                field.setMine(transform(cell, symmetry));
+            }
+            field.computeCounts();
+        }
+
+        /**
+         * @return 格子经过对称变换后的编号
+         */
+        public int transform(int cell, int symmetry) {
+            int r = cell / cols;
+            int c = cell % cols;
+            if ((symmetry & 1) != 0) r = rows - 1 - r;
+            if ((symmetry & 2) != 0) c = cols - 1 - c;
+            if ((symmetry & 4) != 0) {
+                int t = r; // 只有正方形会用到转置
+                r = c;
+                c = t;
+            }
+            return r * cols + c;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 2048无界面批量模拟器（命令行入口）
+ * 用法：java Simulator2048 [局数] [策略 random|greedy|expectimax[:深度]|ntuple[:权重文件]] [线程数] [随机种子]
+ * 多个工作线程各自持有从同一个种子拆分出的SplittableRandom，
+ * 每局结束只把结果累加进直方图，不保存任何单局数据，因此内存占用与局数无关。
+ */
+public class Simulator2048 {
+    /** 工作线程每模拟多少局（或每隔一个进度输出间隔）把本地统计合并到全局一次 */
+    private static final int MERGE_INTERVAL = 256;
+    /** 进度输出间隔（毫秒） */
+    private static final long REPORT_INTERVAL_MS = 2000;
+
+    /** 总局数 */
+    private final long games;
+    /** 工作线程数 */
+    private final int threads;
+    /** 每个工作线程创建自己的策略对象 */
+    private final Supplier<MovePolicy2048> policyFactory;
+    /** 根随机数生成器（只在主线程中拆分） */
+    private final SplittableRandom rootRandom;
+    /** 下一个待领取的局号 */
+    private final AtomicLong nextGame = new AtomicLong();
+    /** 全局统计（合并时加锁） */
+    private final Stats total = new Stats();
+
+    /**
+     * 构造模拟器
+     * @param games 总局数
+     * @param threads 工作线程数
+     * @param policyFactory 策略工厂（每个线程调用一次）
+     * @param seed 随机种子
+     */
+    public Simulator2048(long games, int threads, Supplier<MovePolicy2048> policyFactory, long seed) {
+        this.games = games;
+        this.threads = threads;
+        this.policyFactory = policyFactory;
+        this.rootRandom = new SplittableRandom(seed);
+    }
+
+    /**
+     * 运行全部对局，期间定时输出进度
+     * @return 最终统计
+     * @throws InterruptedException 主线程被中断
+     */
+    public Stats run() throws InterruptedException {
+        long start = System.nanoTime();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = rootRandom.split();
+            workers[i] = new Thread(() -> work(random), "sim2048-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                worker.join(REPORT_INTERVAL_MS);
+                if (worker.isAlive()) {
+                    synchronized (total) {
+                        System.out.println(total.format(System.nanoTime() - start));
+                    }
+                }
+            }
+        }
+        total.elapsedNanos = System.nanoTime() - start;
+        return total;
+    }
+
+    /**
+     * 工作线程主循环：不断领取局号并模拟，直到全部局数领完
+     * @param random 本线程专用随机数生成器
+     */
+    private void work(SplittableRandom random) {
+        MovePolicy2048 policy = policyFactory.get();
+        Stats local = new Stats();
+        long lastMerge = System.nanoTime();
+        while (nextGame.getAndIncrement() < games) {
+            playOne(policy, random, local);
+            // 快策略按局数合并，慢策略（如深度搜索）按时间合并，保证进度输出及时
+            if (local.games == MERGE_INTERVAL || System.nanoTime() - lastMerge > REPORT_INTERVAL_MS * 1_000_000L) {
+                mergeLocal(local);
+                lastMerge = System.nanoTime();
+            }
+        }
+        mergeLocal(local);
+    }
+
+    /**
+     * 模拟一局并把结果计入本地统计
+     */
+    private static void playOne(MovePolicy2048 policy, SplittableRandom random, Stats stats) {
+        long board = Board2048.addRandomTile(Board2048.addRandomTile(0L, random), random);
+        long score = 0;
+        long moves = 0;
+        while (true) {
+            int direction = policy.chooseMove(board, random);
+            if (direction < 0) break;
+            long next = Board2048.move(board, direction);
+            if (next == board) break; // 策略给出无效方向，按结束处理
+            score += Board2048.mergeScore(board, direction);
+            board = Board2048.addRandomTile(next, random);
+            moves++;
+            if (!Board2048.canMove(board)) break;
+        }
+        stats.record(Board2048.maxExponent(board), score, moves);
+    }
+
+    /**
+     * 把本地统计合并到全局并清空本地统计
+     */
+    private void mergeLocal(Stats local) {
+        synchronized (total) {
+            total.add(local);
+        }
+        local.clear();
+    }
+
+    /**
+     * 根据名称创建策略工厂
+     * @param name random / greedy / expectimax[:深度] / ntuple[:权重文件]
+     * @return 策略工厂
+     */
+    static Supplier<MovePolicy2048> policyByName(String name) {
+        if (name.equals("random")) return MovePolicy2048::random;
+        if (name.equals("greedy")) return MovePolicy2048::greedy;
+        if (name.startsWith("expectimax")) {
+            int depth = name.contains(":") ? Integer.parseInt(name.substring(name.indexOf(':') + 1)) : 3;
+            return () -> MovePolicy2048.expectimax(depth, 16);
+        }
+        if (name.startsWith("ntuple")) {
+            String file = name.contains(":") ? name.substring(name.indexOf(':') + 1) : NTuple2048.DEFAULT_WEIGHTS_FILE;
+            try {
+                NTuple2048 network = NTuple2048.open(Path.of(file)); // 只读映射，所有线程共享
+                return () -> MovePolicy2048.ntuple(network);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        throw new IllegalArgumentException("未知策略: " + name);
+    }
+
+    /**
+     * 命令行入口
+     * @param args [局数] [策略] [线程数] [随机种子]
+     * @throws InterruptedException 主线程被中断
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        String policy = args.length > 1 ? args[1] : "random";
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        System.out.println("局数: " + games + "  策略: " + policy + "  线程: " + threads + "  种子: " + seed);
+        Stats stats = new Simulator2048(games, threads, policyByName(policy), seed).run();
+        System.out.println(stats.format(stats.elapsedNanos));
+        System.out.println("最大数字分布:");
+        for (int exponent = 1; exponent < stats.maxTileHistogram.length; exponent++) {
+            long count = stats.maxTileHistogram[exponent];
+            if (count == 0) continue;
+            System.out.printf("  %6d: %10d (%.2f%%)%n", 1 << exponent, count, 100.0 * count / stats.games);
+        }
+        System.out.println("合并得分分位数: P10=" + stats.scores.percentile(0.10)
+                + "  P50=" + stats.scores.percentile(0.50)
+                + "  P90=" + stats.scores.percentile(0.90)
+                + "  P99=" + stats.scores.percentile(0.99)
+                + "  最高=" + stats.maxScore);
+    }
+
+    /**
+     * 聚合统计：最大数字直方图、得分直方图、总步数（大小固定，与局数无关）
+     */
+    public static class Stats {
+        /** 已完成局数 */
+        long games;
+        /** 总步数 */
+        long moves;
+        /** 单局最高合并得分 */
+        long maxScore;
+        /** 各局最大数字的指数分布 */
+        final long[] maxTileHistogram = new long[16];
+        /** 合并得分分布 */
+        final LogHistogram scores = new LogHistogram();
+        /** 总耗时（纳秒，仅最终结果有效） */
+        long elapsedNanos;
+
+        void record(int maxExponent, long score, long gameMoves) {
+            games++;
+            moves += gameMoves;
+            maxScore = Math.max(maxScore, score);
+            maxTileHistogram[maxExponent]++;
+            scores.record(score);
+        }
+
+        void add(Stats other) {
+            games += other.games;
+            moves += other.moves;
+            maxScore = Math.max(maxScore, other.maxScore);
+            for (int i = 0; i < maxTileHistogram.length; i++) {
+                maxTileHistogram[i] += other.maxTileHistogram[i];
+            }
+            scores.add(other.scores);
+        }
+
+        void clear() {
+            games = 0;
+            moves = 0;
+            maxScore = 0;
+            Arrays.fill(maxTileHistogram, 0);
+            scores.clear();
+        }
+
+        String format(long nanos) {
+            double seconds = Math.max(nanos, 1) / 1e9;
+            return String.format("已完成 %d 局  %d 步  %.0f 步/秒  %.1f 局/秒  得分中位数 %d",
+                    games, moves, moves / seconds, games / seconds, scores.percentile(0.5));
+        }
+    }
+}
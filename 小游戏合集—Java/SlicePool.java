@@ -0,0 +1,127 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 常驻线程的分段并行执行器（无界面）
+ * 把下标区间[0, count)按线程数切成连续的几段，调用线程自己处理第一段，其余各段交给常驻的守护线程；
+ * 线程之间用先自旋、后park/unpark的方式同步，每轮不创建任何对象，适合每秒调用成千上万次的“每步并行”。
+ * 一个实例只能被一个线程调用。
+ */
+public class SlicePool implements AutoCloseable {
+    /** 等待其他线程时先自旋多少次再挂起 */
+    private static final int SPIN_LIMIT = 1000;
+
+    /**
+     * 一段的处理逻辑
+     */
+    public interface Task {
+        /**
+         * @param from 起始下标（包含）
+         * @param to 结束下标（不包含）
+         */
+        void run(int from, int to);
+    }
+
+    /** 工作线程（第i个处理第i+1段） */
+    private final Thread[] workers;
+    /** 尚未完成本轮的工作线程数 */
+    private final AtomicInteger pending = new AtomicInteger();
+    /** 轮次计数（写入它即发布下面的本轮参数） */
+    private volatile int round;
+    /** 是否已关闭 */
+    private volatile boolean closed;
+    /** 调用run的线程（工作线程完成后唤醒它） */
+    private volatile Thread caller;
+    /** 本轮参数 */
+    private Task task;
+    private int count;
+
+    /**
+     * @param threads 线程数（包括调用线程）
+     * @param name 工作线程名前缀
+     */
+    public SlicePool(int threads, String name) {
+        workers = new Thread[Math.max(1, threads) - 1];
+        for (int i = 0; i < workers.length; i++) {
+            int slice = i + 1;
+            workers[i] = new Thread(() -> workLoop(slice), name + "-" + slice);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /** @return 线程数（包括调用线程） */
+    public int threads() {
+        return workers.length + 1;
+    }
+
+    /**
+     * 分段并行执行，所有段完成后返回
+     * @param count 下标个数
+     * @param task 每段的处理逻辑（应事先创建好并反复使用，避免每轮分配）
+     */
+    public void run(int count, Task task) {
+        if (closed) throw new IllegalStateException("线程池已关闭");
+        if (workers.length == 0 || count < 2) {
+            task.run(0, count);
+            return;
+        }
+        this.task = task;
+        this.count = count;
+        caller = Thread.currentThread();
+        pending.set(workers.length);
+        round++; // volatile写：发布本轮参数
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        runSlice(0);
+        for (int spins = 0; pending.get() != 0; spins++) {
+            if (spins < SPIN_LIMIT) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        this.task = null;
+    }
+
+    /**
+     * 工作线程：等待新的一轮，处理自己那一段，最后一个完成的线程唤醒调用方
+     */
+    private void workLoop(int slice) {
+        int seen = 0;
+        while (true) {
+            for (int spins = 0; round == seen && !closed; spins++) {
+                if (spins < SPIN_LIMIT) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            if (closed) return;
+            seen = round;
+            runSlice(slice);
+            if (pending.decrementAndGet() == 0) {
+                LockSupport.unpark(caller);
+            }
+        }
+    }
+
+    private void runSlice(int slice) {
+        int slices = workers.length + 1;
+        int from = (int) ((long) count * slice / slices);
+        int to = (int) ((long) count * (slice + 1) / slices);
+        if (from < to) task.run(from, to);
+    }
+
+    /**
+     * 停止工作线程
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 多蛇竞技场（无界面，同一时刻只能被一个线程调用）
+ * 成百上千条蛇（电脑控制或玩家控制）在同一块场地上同时移动。
+ * 整块场地共用一张占用表：每个格子记录占用它的蛇编号，食物编码成负数，
+ * 因此撞到别的蛇身体、两条蛇头对头相撞都只需查表，每步开销是O(蛇的条数)，与蛇长无关。
+ * 每步分五段（与tick()中的注释一一对应）：
+ * 1. 所有蛇并行决定方向并算出新头部位置（只读占用表，互不影响）；
+ * 2. 依次登记新头部：同一格被两条蛇争夺则双方都死，撞墙或撞到任何蛇身（包括尾巴，与单人规则一致）也死；
+ * 3. 依次移动存活的蛇：加头、吃到食物则变长并补一个食物，否则去尾；死掉的蛇释放身体；
+ * 4. 所有移动完成后，允许重生的死蛇在随机空地重生（不会占到本步别的蛇要走的格子）；
+ * 5. 场地满时没放下的食物，等有了空格再补上。
+ */
+public class SnakeArena {
+    /** 占用表：空格 */
+    public static final int EMPTY = -1;
+    /** 重生时的长度 */
+    public static final int INITIAL_LENGTH = 5;
+    /** 重生时最多尝试几个位置（失败则下一步再试） */
+    private static final int SPAWN_ATTEMPTS = 16;
+    /** 每个方向的x、y增量（下标为方向，与SnakeEngine一致） */
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {-1, 1, 0, 0};
+
+    /** 场地宽（格） */
+    private final int width;
+    /** 场地高（格） */
+    private final int height;
+    /**
+     * 占用表：EMPTY为空格，非负数为蛇编号，小于EMPTY为食物（值为EMPTY - 1 - 食物序号）
+     */
+    private final int[] grid;
+    /** 既没有蛇也没有食物的格子 */
+    private final FreeCellSet free;
+    /** 各食物所在格子（下标为食物序号，-1表示场地满时没放下） */
+    private final int[] foods;
+    /** 没放下的食物数（有空格后在tick()末尾补上） */
+    private int missingFoods;
+    /** 所有蛇 */
+    private final Snake[] snakes;
+    /** 第二段登记新头部时的步数印记（等于当前步数表示本步已被某条蛇登记） */
+    private final int[] claimStamp;
+    /** 本步登记该格的蛇编号 */
+    private final int[] claimOwner;
+    /** 放置食物和重生使用的随机数生成器 */
+    private final SplittableRandom random;
+    /** 第一段的并行执行器 */
+    private final SlicePool pool;
+    /** 第一段每段的处理逻辑（只创建一次） */
+    private final SlicePool.Task decideTask = this::decideRange;
+    /** 已经走过的步数 */
+    private int tickCount;
+    /** 存活的蛇数 */
+    private int alive;
+    /** 累计死亡次数 */
+    private long deaths;
+    /** 上一次tick()以来改动过的格子（依次为格子编号、新的占用值，供网络广播增量） */
+    private int[] changes = new int[256];
+    /** 改动记录数 */
+    private int changeCount;
+
+    /**
+     * 创建竞技场并放置所有蛇和食物（蛇默认都由电脑控制）
+     * @param width 场地宽（格）
+     * @param height 场地高（格）
+     * @param snakeCount 蛇的条数
+     * @param foodCount 场上同时存在的食物数
+     * @param threads 决定方向的线程数（包括调用线程）
+     * @param seed 随机种子
+     */
+    public SnakeArena(int width, int height, int snakeCount, int foodCount, int threads, long seed) {
+        this.width = width;
+        this.height = height;
+        int area = width * height;
+        this.grid = new int[area];
+        Arrays.fill(grid, EMPTY);
+        this.free = new FreeCellSet(area);
+        this.claimStamp = new int[area];
+        this.claimOwner = new int[area];
+        this.random = new SplittableRandom(seed);
+        this.pool = new SlicePool(Math.min(threads, snakeCount), "snake-arena");
+        this.snakes = new Snake[snakeCount];
+        for (int i = 0; i < snakeCount; i++) {
+            snakes[i] = new Snake(i, random.split());
+            spawn(i);
+        }
+        this.foods = new int[Math.min(foodCount, free.size())];
+        for (int i = 0; i < foods.length; i++) {
+            placeFood(i);
+        }
+    }
+
+    /**
+     * 前进一步
+     */
+    public void tick() {
+        tickCount++;
+        changeCount = 0;
+        // 第一段：并行决定方向、算出新头部（-1表示撞墙）
+        pool.run(snakes.length, decideTask);
+        // 第二段：登记新头部，解决头对头和撞身体
+        for (int id = 0; id < snakes.length; id++) {
+            Snake s = snakes[id];
+            if (!s.alive || s.nextHead < 0) continue;
+            int cell = s.nextHead;
+            if (grid[cell] >= 0) {
+                s.nextHead = -1;
+            } else if (claimStamp[cell] == tickCount) {
+                s.nextHead = -1;
+                snakes[claimOwner[cell]].nextHead = -1;
+            } else {
+                claimStamp[cell] = tickCount;
+                claimOwner[cell] = id;
+            }
+        }
+        // 第三段：移动或死亡
+        for (int id = 0; id < snakes.length; id++) {
+            Snake s = snakes[id];
+            if (!s.alive) continue;
+            if (s.nextHead < 0) {
+                kill(id);
+            } else {
+                move(id, s);
+            }
+        }
+        // 第四段：重生
+        for (int id = 0; id < snakes.length; id++) {
+            if (!snakes[id].alive && snakes[id].respawn) spawn(id);
+        }
+        // 第五段：场地满时没放下的食物，有空格后补上
+        for (int slot = 0; slot < foods.length && missingFoods > 0 && free.size() > 0; slot++) {
+            if (foods[slot] < 0) {
+                missingFoods--;
+                placeFood(slot);
+            }
+        }
+    }
+
+    private void decideRange(int from, int to) {
+        for (int id = from; id < to; id++) {
+            Snake s = snakes[id];
+            if (!s.alive) continue;
+            int direction = s.autopilot ? choose(s) : s.requested;
+            if (direction >= 0 && direction != (s.direction ^ 1)) {
+                s.direction = direction;
+            }
+            int head = s.head();
+            int x = head % width + DX[s.direction];
+            int y = head / width + DY[s.direction];
+            s.nextHead = x < 0 || x >= width || y < 0 || y >= height ? -1 : y * width + x;
+        }
+    }
+
+    /**
+     * 电脑控制：朝目标食物贪心前进，只走没有蛇的格子，
+     * 尽量避开别的蛇头旁边的格子（可能头对头相撞）和走过去以后没有退路的格子
+     * （只读占用表和各蛇头部，可以多条蛇并行调用）
+     */
+    private int choose(Snake s) {
+        if (s.target < 0 || grid[s.target] >= EMPTY) {
+            s.target = foods.length == 0 ? -1 : foods[s.random.nextInt(foods.length)];
+        }
+        int head = s.head();
+        int hx = head % width;
+        int hy = head / width;
+        int best = -1;
+        int bestScore = Integer.MAX_VALUE;
+        for (int d = 0; d < 4; d++) {
+            if (d == (s.direction ^ 1)) continue;
+            int x = hx + DX[d];
+            int y = hy + DY[d];
+            if (x < 0 || x >= width || y < 0 || y >= height || grid[y * width + x] >= 0) continue;
+            int exits = 0;
+            boolean contested = false;
+            for (int e = 0; e < 4; e++) {
+                int nx = x + DX[e];
+                int ny = y + DY[e];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+                int owner = grid[ny * width + nx];
+                if (owner < 0) {
+                    exits++;
+                } else if (owner != s.id && snakes[owner].head() == ny * width + nx) {
+                    contested = true;
+                }
+            }
+            // 没有退路的格子排在最后，可能被别的蛇头抢占的格子其次
+            int distance = s.target < 0 ? 0 : Math.abs(s.target % width - x) + Math.abs(s.target / width - y);
+            int score = (exits == 0 ? 1 << 26 : 0) + (contested ? 1 << 24 : 0) + distance * 4 + s.random.nextInt(4);
+            if (score < bestScore) {
+                bestScore = score;
+                best = d;
+            }
+        }
+        return best;
+    }
+
+    private void move(int id, Snake s) {
+        int cell = s.nextHead;
+        int content = grid[cell];
+        if (content < EMPTY) {
+            // 吃到食物：变长，在别处补一个食物
+            s.addHead(cell);
+            set(cell, id);
+            s.score++;
+            placeFood(EMPTY - 1 - content);
+        } else {
+            free.remove(cell);
+            s.addHead(cell);
+            set(cell, id);
+            int tail = s.removeTail();
+            set(tail, EMPTY);
+            free.add(tail);
+        }
+    }
+
+    /**
+     * 杀死一条蛇并释放身体
+     */
+    private void kill(int id) {
+        Snake s = snakes[id];
+        while (s.length > 0) {
+            int cell = s.removeTail();
+            set(cell, EMPTY);
+            free.add(cell);
+        }
+        s.alive = false;
+        alive--;
+        deaths++;
+    }
+
+    /**
+     * 在随机空地上放一条长度为INITIAL_LENGTH的直线蛇，头部朝着身体的反方向
+     */
+    private void spawn(int id) {
+        Snake s = snakes[id];
+        for (int attempt = 0; attempt < SPAWN_ATTEMPTS && free.size() > 0; attempt++) {
+            int head = free.random(random);
+            int direction = random.nextInt(4);
+            int back = direction ^ 1;
+            int x = head % width;
+            int y = head / width;
+            int tx = x + DX[back] * (INITIAL_LENGTH - 1);
+            int ty = y + DY[back] * (INITIAL_LENGTH - 1);
+            if (tx < 0 || tx >= width || ty < 0 || ty >= height) continue;
+            boolean clear = true;
+            for (int i = 0; i < INITIAL_LENGTH && clear; i++) {
+                clear = grid[(y + DY[back] * i) * width + x + DX[back] * i] == EMPTY;
+            }
+            if (!clear) continue;
+            s.reset();
+            for (int i = 0; i < INITIAL_LENGTH; i++) {
+                int cell = (y + DY[back] * i) * width + x + DX[back] * i;
+                s.addTail(cell);
+                set(cell, id);
+                free.remove(cell);
+            }
+            s.direction = direction;
+            s.requested = -1;
+            s.alive = true;
+            alive++;
+            return;
+        }
+    }
+
+    /**
+     * 修改占用表并记录改动
+     */
+    private void set(int cell, int value) {
+        if (changeCount * 2 == changes.length) changes = Arrays.copyOf(changes, changes.length * 2);
+        changes[changeCount * 2] = cell;
+        changes[changeCount * 2 + 1] = value;
+        changeCount++;
+        grid[cell] = value;
+    }
+
+    /**
+     * 在随机空格放置第slot个食物
+     */
+    private void placeFood(int slot) {
+        int cell = free.random(random);
+        foods[slot] = cell;
+        if (cell < 0) { // 场地已满
+            missingFoods++;
+            return;
+        }
+        free.remove(cell);
+        set(cell, EMPTY - 1 - slot);
+    }
+
+    /**
+     * 设置玩家控制的方向（与当前方向相反时忽略），只能在两步之间调用
+     * @param id 蛇编号
+     * @param direction 方向（SnakeEngine.UP等）
+     */
+    public void setDirection(int id, int direction) {
+        snakes[id].requested = direction;
+    }
+
+    /**
+     * @param id 蛇编号
+     * @param respawn 死后是否自动重生（默认是；玩家控制的蛇通常设为否，由界面决定结束还是重开）
+     */
+    public void setRespawn(int id, boolean respawn) {
+        snakes[id].respawn = respawn;
+    }
+
+    /**
+     * 立即让一条死蛇重生（场地太挤放不下时保持死亡）
+     * @param id 蛇编号
+     * @return 是否重生成功
+     */
+    public boolean respawn(int id) {
+        if (!snakes[id].alive) spawn(id);
+        return snakes[id].alive;
+    }
+
+    /**
+     * @param id 蛇编号
+     * @param autopilot true为电脑控制，false为玩家控制
+     */
+    public void setAutopilot(int id, boolean autopilot) {
+        snakes[id].autopilot = autopilot;
+        snakes[id].requested = -1;
+    }
+
+    /**
+     * @param cell 格子编号
+     * @return 占用该格子的蛇编号，EMPTY表示空格，小于EMPTY表示食物
+     */
+    public int owner(int cell) {
+        return grid[cell];
+    }
+
+    /**
+     * 上一次tick()以来的改动按顺序重放到一份占用表的副本上，即可得到同样的占用表
+     * （同一格子可能改动多次，例如尾巴离开后立即放上食物）
+     * @return 改动记录数
+     */
+    public int changeCount() {
+        return changeCount;
+    }
+
+    /**
+     * @param index 改动记录下标
+     * @return 改动的格子编号
+     */
+    public int changedCell(int index) {
+        return changes[index * 2];
+    }
+
+    /**
+     * @param index 改动记录下标
+     * @return 改动后的占用值（含义同owner）
+     */
+    public int changedOwner(int index) {
+        return changes[index * 2 + 1];
+    }
+
+    /**
+     * @param id 蛇编号
+     * @return 头部格子（蛇已死亡时返回-1）
+     */
+    public int head(int id) {
+        return snakes[id].alive ? snakes[id].head() : -1;
+    }
+
+    /** @return 蛇是否存活 */
+    public boolean isAlive(int id) {
+        return snakes[id].alive;
+    }
+
+    /** @return 蛇长 */
+    public int length(int id) {
+        return snakes[id].length;
+    }
+
+    /** @return 本条命吃到的食物数 */
+    public int score(int id) {
+        return snakes[id].score;
+    }
+
+    /** @return 蛇的条数 */
+    public int snakeCount() {
+        return snakes.length;
+    }
+
+    /** @return 存活的蛇数 */
+    public int aliveCount() {
+        return alive;
+    }
+
+    /** @return 累计死亡次数 */
+    public long deaths() {
+        return deaths;
+    }
+
+    /** @return 已经走过的步数 */
+    public int tickCount() {
+        return tickCount;
+    }
+
+    /** @return 场地宽（格） */
+    public int width() {
+        return width;
+    }
+
+    /** @return 场地高（格） */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * 停止并行线程
+     */
+    public void close() {
+        pool.close();
+    }
+
+    /**
+     * 一条蛇：身体存放在按需扩容的环形缓冲区中（头部在逻辑下标0），
+     * 是否被占用由竞技场的占用表记录，所以每条蛇的内存只和自己的长度有关
+     */
+    private static final class Snake {
+        /** 蛇编号 */
+        final int id;
+        /** 决定方向使用的随机数生成器（每条蛇一个，可以并行使用） */
+        final SplittableRandom random;
+        int[] cells = new int[16];
+        int headIndex;
+        int length;
+        int direction;
+        /** 玩家要求的方向（-1表示保持原方向） */
+        int requested = -1;
+        boolean autopilot = true;
+        boolean respawn = true;
+        boolean alive;
+        int score;
+        /** 本步的新头部（-1表示本步死亡） */
+        int nextHead;
+        /** 电脑控制时追踪的食物格子 */
+        int target = -1;
+
+        Snake(int id, SplittableRandom random) {
+            this.id = id;
+            this.random = random;
+        }
+
+        void reset() {
+            headIndex = 0;
+            length = 0;
+            score = 0;
+            target = -1;
+        }
+
+        int head() {
+            return cells[headIndex];
+        }
+
+        void addHead(int cell) {
+            if (length == cells.length) grow();
+            headIndex = headIndex == 0 ? cells.length - 1 : headIndex - 1;
+            cells[headIndex] = cell;
+            length++;
+        }
+
+        void addTail(int cell) {
+            if (length == cells.length) grow();
+            int index = headIndex + length;
+            if (index >= cells.length) index -= cells.length;
+            cells[index] = cell;
+            length++;
+        }
+
+        int removeTail() {
+            int index = headIndex + length - 1;
+            if (index >= cells.length) index -= cells.length;
+            length--;
+            return cells[index];
+        }
+
+        private void grow() {
+            int[] bigger = new int[cells.length * 2];
+            for (int i = 0; i < length; i++) {
+                int index = headIndex + i;
+                if (index >= cells.length) index -= cells.length;
+                bigger[i] = cells[index];
+            }
+            cells = bigger;
+            headIndex = 0;
+        }
+    }
+}
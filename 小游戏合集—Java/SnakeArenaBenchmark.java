@@ -0,0 +1,51 @@
+/**
+ * 多蛇竞技场无界面性能测试（命令行入口）
+ * 用法：java SnakeArenaBenchmark [最多蛇数] [场地边长] [线程数] [每档步数] [随机种子]
+ * 蛇数从16开始逐档翻倍，直到最多蛇数；每档先预热，再统计每步耗时的均值和分位数、
+ * 每条蛇每步的平均耗时以及死亡频率，用来确认每步开销随蛇数线性增长、与蛇长无关。
+ */
+public class SnakeArenaBenchmark {
+    /** 第一档的蛇数 */
+    private static final int FIRST_COUNT = 16;
+    /** 每档预热步数 */
+    private static final int WARMUP_TICKS = 500;
+
+    /**
+     * 命令行入口
+     * @param args [最多蛇数] [场地边长] [线程数] [每档步数] [随机种子]
+     */
+    public static void main(String[] args) {
+        int maxSnakes = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int boardSize = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int ticks = args.length > 3 ? Integer.parseInt(args[3]) : 5000;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        System.out.println("场地: " + boardSize + "x" + boardSize + "  线程: " + threads + "  每档步数: " + ticks + "  种子: " + seed);
+        System.out.println("   蛇数   平均(微秒)   P50(微秒)   P99(微秒)   每蛇(纳秒)   死亡/千步   平均长度");
+        for (int count = FIRST_COUNT; count <= maxSnakes; count *= 2) {
+            SnakeArena arena = new SnakeArena(boardSize, boardSize, count, count, threads, seed);
+            for (int i = 0; i < WARMUP_TICKS; i++) {
+                arena.tick();
+            }
+            LogHistogram tickNanos = new LogHistogram();
+            long deathsBefore = arena.deaths();
+            long total = 0;
+            for (int i = 0; i < ticks; i++) {
+                long start = System.nanoTime();
+                arena.tick();
+                long nanos = System.nanoTime() - start;
+                tickNanos.record(nanos);
+                total += nanos;
+            }
+            long lengthSum = 0;
+            for (int id = 0; id < count; id++) {
+                lengthSum += arena.length(id);
+            }
+            System.out.printf("%7d %12.1f %11.1f %11.1f %12.1f %11.1f %10.1f%n", count,
+                    total / 1e3 / ticks, tickNanos.percentile(0.5) / 1e3, tickNanos.percentile(0.99) / 1e3,
+                    (double) total / ticks / count, (arena.deaths() - deathsBefore) * 1000.0 / ticks,
+                    (double) lengthSum / Math.max(arena.aliveCount(), 1));
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+
+/**
+ * 多蛇竞技场窗口：玩家控制0号蛇，和几百条电脑控制的蛇在同一块场地上抢食物。
+ * 规则和并行推进由无界面的SnakeArena完成，本窗口只负责按键、计时和绘制玩家附近的视口；
+ * 电脑控制的蛇死后自动重生，玩家的蛇死后由玩家选择重新出生还是返回主页。
+ */
+public class SnakeArenaGame extends JFrame {
+    private MainFrame mainFrame; // 主菜单窗口引用，用于返回主页
+    private static final int ARENA_SIZE = 200; // 场地边长（格）
+    private static final int AI_SNAKES = 300; // 电脑控制的蛇数
+    private static final int PLAYER = 0; // 玩家控制的蛇编号
+    private static final int VIEW_SIZE = 25; // 视口边长（格）
+    private static final int CELL_SIZE = 20; // 每格像素大小
+    private static final Color[] SNAKE_COLORS = { // 电脑控制的蛇按编号轮流使用的颜色
+            new Color(70, 130, 180), new Color(186, 85, 211), new Color(255, 140, 0),
+            new Color(0, 139, 139), new Color(205, 92, 92), new Color(128, 128, 0)};
+    private static final Color[] SNAKE_HEAD_COLORS = new Color[SNAKE_COLORS.length]; // 电脑控制的蛇的蛇头颜色（预先算好，绘制时不再分配）
+    private static final Color PLAYER_COLOR = Color.GREEN; // 玩家的蛇的颜色
+    private static final Color PLAYER_HEAD_COLOR = PLAYER_COLOR.darker(); // 玩家的蛇头颜色
+    private static final Color GRID_COLOR = new Color(230, 230, 230); // 网格线颜色
+
+    static {
+        for (int i = 0; i < SNAKE_COLORS.length; i++) {
+            SNAKE_HEAD_COLORS[i] = SNAKE_COLORS[i].darker();
+        }
+    }
+
+    private final SnakeArena arena; // 竞技场（只在界面线程中调用）
+    private final Timer tickTimer; // 移动计时器（竞技场只能单线程访问，步进和绘制都在界面线程中进行，见构造方法）
+    private boolean autopilot = false; // 玩家的蛇是否交给电脑控制
+    private int cameraX = 0; // 视口左上角在场地中的列
+    private int cameraY = 0; // 视口左上角在场地中的行
+    private int bestLength = 0; // 本局最大长度
+    private long tickNanos = 0; // 最近一步的耗时（纳秒）
+    private JLabel statusLabel; // 长度、存活数和每步耗时
+    private JButton autoBtn; // 自动驾驶按钮
+
+    /**
+     * 构造方法
+     * @param mainFrame 主菜单窗口引用，用于返回主页
+     * @param difficulty 游戏难度（"初级"/"中级"/"高级"，决定移动间隔）
+     */
+    public SnakeArenaGame(MainFrame mainFrame, String difficulty) {
+        this.mainFrame = mainFrame;
+        int delay;
+        switch (difficulty) {
+            case "初级": delay = 300; break;
+            case "高级": delay = 100; break;
+            default: delay = 200; // 中级
+        }
+        arena = new SnakeArena(ARENA_SIZE, ARENA_SIZE, AI_SNAKES + 1, AI_SNAKES,
+                Runtime.getRuntime().availableProcessors(), System.nanoTime());
+        arena.setAutopilot(PLAYER, false);
+        arena.setRespawn(PLAYER, false);
+        setTitle("贪吃蛇竞技场 - " + ARENA_SIZE + "x" + ARENA_SIZE + "，" + (AI_SNAKES + 1) + "条蛇");
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(VIEW_SIZE * CELL_SIZE + 40, VIEW_SIZE * CELL_SIZE + 100);
+        setLocationRelativeTo(mainFrame);
+        initUI();
+        followPlayer();
+        // 这里保留Swing计时器而不用SnakeGame那样的模拟线程：SnakeArena不是线程安全的，视口绘制直接读它的占用表，
+        // 玩家方向也只能在两步之间设置；tick()的主要计算已经分给SlicePool的工作线程，界面线程只负责调度，
+        // 而几百毫秒的移动间隔下计时器的抖动也感觉不到
+        tickTimer = new Timer(delay, e -> onTick());
+        tickTimer.start();
+    }
+
+    /**
+     * 初始化界面：状态栏、视口面板和键盘监听
+     */
+    private void initUI() {
+        JPanel statusPanel = new JPanel();
+        statusLabel = new JLabel();
+        statusLabel.setFont(new Font("宋体", Font.BOLD, 16));
+        statusPanel.add(statusLabel);
+        autoBtn = new JButton("自动驾驶");
+        autoBtn.addActionListener(e -> {
+            toggleAutopilot();
+            requestFocusInWindow();
+        });
+        statusPanel.add(autoBtn);
+
+        JPanel viewPanel = new ViewPanel();
+        viewPanel.setPreferredSize(new Dimension(VIEW_SIZE * CELL_SIZE, VIEW_SIZE * CELL_SIZE));
+        setLayout(new BorderLayout());
+        add(statusPanel, BorderLayout.NORTH);
+        add(viewPanel, BorderLayout.CENTER);
+        updateStatus();
+
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                // 反向移动由竞技场忽略
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_UP: arena.setDirection(PLAYER, SnakeEngine.UP); break;
+                    case KeyEvent.VK_DOWN: arena.setDirection(PLAYER, SnakeEngine.DOWN); break;
+                    case KeyEvent.VK_LEFT: arena.setDirection(PLAYER, SnakeEngine.LEFT); break;
+                    case KeyEvent.VK_RIGHT: arena.setDirection(PLAYER, SnakeEngine.RIGHT); break;
+                    case KeyEvent.VK_A: toggleAutopilot(); break;
+                    case KeyEvent.VK_ESCAPE: pause(); break;
+                }
+            }
+        });
+        setFocusable(true);
+    }
+
+    /**
+     * 切换玩家的蛇由电脑控制还是手动控制
+     */
+    private void toggleAutopilot() {
+        autopilot = !autopilot;
+        arena.setAutopilot(PLAYER, autopilot);
+        autoBtn.setText(autopilot ? "手动" : "自动驾驶");
+    }
+
+    /**
+     * 走一步：推进整个竞技场，玩家的蛇死亡时结束本局
+     */
+    private void onTick() {
+        long start = System.nanoTime();
+        arena.tick();
+        tickNanos = System.nanoTime() - start;
+        if (!arena.isAlive(PLAYER)) {
+            tickTimer.stop();
+            repaint();
+            gameOver();
+            return;
+        }
+        bestLength = Math.max(bestLength, arena.length(PLAYER));
+        followPlayer();
+        updateStatus();
+        repaint();
+    }
+
+    /**
+     * 视口以玩家的蛇头为中心（不超出场地）
+     */
+    private void followPlayer() {
+        int head = arena.head(PLAYER);
+        if (head < 0) return;
+        cameraX = Math.max(0, Math.min(head % ARENA_SIZE - VIEW_SIZE / 2, ARENA_SIZE - VIEW_SIZE));
+        cameraY = Math.max(0, Math.min(head / ARENA_SIZE - VIEW_SIZE / 2, ARENA_SIZE - VIEW_SIZE));
+    }
+
+    private void updateStatus() {
+        statusLabel.setText(String.format("长度：%d  最长：%d  存活：%d/%d  每步：%.0f微秒",
+                arena.length(PLAYER), bestLength, arena.aliveCount(), arena.snakeCount(), tickNanos / 1e3));
+    }
+
+    /**
+     * 暂停并显示选项
+     */
+    private void pause() {
+        tickTimer.stop();
+        Object[] options = {"继续", "返回主页"};
+        int choice = JOptionPane.showOptionDialog(this, "游戏已暂停", "暂停",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
+        if (choice == 1) {
+            dispose();
+            mainFrame.setVisible(true);
+        } else {
+            tickTimer.start();
+        }
+    }
+
+    /**
+     * 玩家的蛇死亡：重新出生（竞技场中的其他蛇继续）或返回主页
+     */
+    private void gameOver() {
+        Object[] options = {"重新出生", "返回主页"};
+        int choice = JOptionPane.showOptionDialog(this, "你的蛇撞死了！本局最长：" + bestLength, "提示",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
+        if (choice == 0 && arena.respawn(PLAYER)) {
+            bestLength = arena.length(PLAYER);
+            followPlayer();
+            updateStatus();
+            tickTimer.start();
+        } else {
+            dispose();
+            mainFrame.setVisible(true);
+        }
+    }
+
+    /**
+     * 关闭窗口时停止计时器和竞技场的并行线程
+     */
+    @Override
+    public void dispose() {
+        tickTimer.stop();
+        arena.close();
+        super.dispose();
+    }
+
+    /**
+     * 视口面板：只绘制玩家附近VIEW_SIZE x VIEW_SIZE格，逐格查占用表决定颜色
+     */
+    private class ViewPanel extends JPanel {
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            g.setColor(GRID_COLOR);
+            for (int i = 0; i <= VIEW_SIZE; i++) {
+                g.drawLine(i * CELL_SIZE, 0, i * CELL_SIZE, VIEW_SIZE * CELL_SIZE);
+                g.drawLine(0, i * CELL_SIZE, VIEW_SIZE * CELL_SIZE, i * CELL_SIZE);
+            }
+            for (int y = 0; y < VIEW_SIZE; y++) {
+                for (int x = 0; x < VIEW_SIZE; x++) {
+                    int cell = (cameraY + y) * ARENA_SIZE + cameraX + x;
+                    int owner = arena.owner(cell);
+                    if (owner == SnakeArena.EMPTY) continue;
+                    if (owner < SnakeArena.EMPTY) {
+                        g.setColor(Color.RED);
+                        g.fillOval(x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE - 1, CELL_SIZE - 1);
+                        continue;
+                    }
+                    boolean head = arena.head(owner) == cell;
+                    if (owner == PLAYER) {
+                        g.setColor(head ? PLAYER_HEAD_COLOR : PLAYER_COLOR);
+                    } else {
+                        g.setColor(head ? SNAKE_HEAD_COLORS[owner % SNAKE_COLORS.length] : SNAKE_COLORS[owner % SNAKE_COLORS.length]);
+                    }
+                    g.fillRect(x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE - 1, CELL_SIZE - 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,651 @@
+import java.util.Arrays;
+
+/**
+ * 贪吃蛇自动驾驶（无界面，一个对象只能被一个线程使用）
+ * 以一条哈密顿回路为骨架：给每个格子按回路顺序编号，只要蛇身从蛇尾到蛇头按回路顺序排列，
+ * 蛇头沿回路往前到蛇尾之间的格子就都是空的，一直沿回路走永远不会撞到自己。
+ * 每步按以下顺序决策：
+ * 1. 蛇身按回路顺序排列时，只走不越过蛇尾的捷径（吃食物那一步蛇尾不动，要多留一格）：
+ *    a. 蛇长不到回路一半时，A*寻找到食物的最短路，模拟整条路径（含最后一步变长）每一步都满足上述条件才采用，
+ *       采用后沿路径走完，不再每步重新搜索；
+ *    b. 否则在满足条件的相邻格子中选回路上最靠前、但不越过食物的一格（至少是回路的下一格）；
+ *    c. 黑色食物挡在回路前方时，在走到它之前的最后一个机会跳过它，实在跳不过才吃掉（蛇身减半，顺序不变）；
+ * 2. 蛇身不按回路顺序排列（开局或吃了黑色食物之外的意外情况）时，沿回路走下一步（走完之后仍有足够空间时），
+ *    走满一个蛇长之后蛇身就排好了；
+ * 3. 再否则追着蛇尾走（选走完之后仍能到达蛇尾、且离蛇尾最远的方向）；
+ * 4. 都不行时选择走完之后可达空间最大的方向。
+ * 宽高至少一个为偶数时回路经过所有格子；都为奇数时回路去掉左下角，左下角和它斜上方的格子共用回路上的一个位置，
+ * 谁是食物或在蛇身中就用谁，所以左下角也能吃到；但回路比格子数少一格，只剩最后一两个空格时，
+ * 只有最后的空格恰好挨着左下角（或它斜上方的格子）才能吃满，否则无路可走。
+ * 搜索共用一个“时间戳”标记数组（A*的步数和来向也存在里面），不需要每步清空；A*展开节点数设有上限，开放列表按上限分配，
+ * 2000x2000的场地上标记数组占16MB、开放列表占1.6MB（蛇身不按回路顺序排列时，计算可达空间的队列随蛇长增长）。
+ */
+public class SnakeAutopilot {
+    /** A*最多展开的节点数（超过则放弃寻路，改用回路上的捷径） */
+    private static final int MAX_EXPANSIONS = 50_000;
+    /** A*失败后至少再走这么多步才重新寻路（食物换了位置时立即重新寻路） */
+    private static final int REPLAN_STEPS = 32;
+    /** 走捷径后蛇头到蛇尾至少还要隔开的格数（除蛇长以外额外留出的余量，给之后变长留空间） */
+    private static final int SHORTCUT_MARGIN = 4;
+    /** 跳过黑色食物后可以接受的撞死概率上限（见isRiskyJump） */
+    private static final double JUMP_RISK = 1e-4;
+    /** 同一个食物最多为了绕开黑色食物越过几次（再被挡住就吃掉黑色食物，免得一直绕圈） */
+    private static final int MAX_SKIPS = 3;
+    /** 标记数组中时间戳所在的位移（高10位） */
+    private static final int STAMP_SHIFT = 22;
+    /** 时间戳的上限（用完后清空标记数组重新开始） */
+    private static final int STAMP_LIMIT = 1 << (32 - STAMP_SHIFT);
+    /** 标记数组中来向所在的位移（2位） */
+    private static final int DIRECTION_SHIFT = 20;
+    /** 堆元素和标记数组中g值字段的掩码（g不会超过展开上限） */
+    private static final int G_MASK = (1 << 20) - 1;
+    /** 堆元素中格子字段的掩码 */
+    private static final long CELL_MASK = (1L << 22) - 1;
+    /** 每个方向的x、y增量（下标为方向，与SnakeEngine一致） */
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {-1, 1, 0, 0};
+    /** 回路形状：没有回路（场地只有一行或一列） */
+    private static final int NO_CYCLE = 0;
+    /** 回路形状：第0列留作回程，其余列按行蛇形往返（高为偶数） */
+    private static final int ROW_CYCLE = 1;
+    /** 回路形状：上一种转置（宽为偶数、高为奇数） */
+    private static final int COLUMN_CYCLE = 2;
+    /** 回路形状：宽高都为奇数，最后两行按列往返，去掉左下角 */
+    private static final int ODD_CYCLE = 3;
+
+    /** 场地宽 */
+    private int width;
+    /** 场地高 */
+    private int height;
+    /** 回路形状 */
+    private int cycleShape;
+    /** 回路长度（没有回路时为0） */
+    private int cycleLength;
+    /** 宽高都为奇数时不在基本回路上的左下角 */
+    private int corner = -1;
+    /** 和左下角共用回路位置的格子（左下角斜上方） */
+    private int cornerMate = -1;
+    /**
+     * 搜索标记：高10位为时间戳（等于当前stamp表示本次搜索已访问），
+     * A*中另存到达该格的方向（2位）和已走步数（低20位）
+     */
+    private int[] marks = new int[0];
+    /** 当前搜索的时间戳 */
+    private int stamp = 0;
+    /** A*的开放列表（二叉堆，元素见heapKey，容量按展开上限分配） */
+    private long[] heap = new long[0];
+    /** 可达空间搜索用的队列 */
+    private int[] queue = new int[1024];
+    /** A*找到的路径（path[0]是第一步，最后一个是食物） */
+    private int[] path = new int[1024];
+    /** 正在沿着走的路径长度（0表示没有） */
+    private int pathLength;
+    /** 下一步要走的路径下标 */
+    private int pathPos;
+    /** 规划路径时的蛇头、蛇长、食物、黑色食物和回路形态（有一个变了就重新规划） */
+    private int pathStart = -1;
+    private int pathBodyLength;
+    private int pathFood = -1;
+    private int pathBlackFood = -1;
+    private boolean pathCorner;
+    /** 决策次数（控制A*失败后的重试间隔） */
+    private long moves;
+    /** 上一次A*失败时的决策次数和食物 */
+    private long failedAt = Long.MIN_VALUE;
+    private int failedFood = -1;
+    /** 上一次为了绕开黑色食物而越过的食物，以及它已经被越过的次数 */
+    private int skippedFood = -1;
+    private int skipCount;
+    /** 上一步按回路顺序走完之后预期的蛇头、蛇尾和蛇长（相符时不用重新检查蛇身顺序） */
+    private int trustedHead = -1;
+    private int trustedTail = -1;
+    private int trustedLength;
+
+    /**
+     * 为当前局面选择方向
+     * @param engine 规则引擎（只读）
+     * @return 方向（SnakeEngine.UP/DOWN/LEFT/RIGHT）
+     */
+    public int chooseMove(SnakeEngine engine) {
+        prepare(engine.width(), engine.height());
+        moves++;
+        SnakeBody body = engine.body();
+        int head = body.head();
+        int food = engine.food();
+        int blackFood = engine.blackFood();
+
+        if (cycleLength > 0) {
+            boolean cornerIn = cornerInCycle(body, food);
+            // 1. 蛇身按回路顺序排列：只走不越过蛇尾的捷径
+            if (isOrdered(body, cornerIn)) {
+                int next = orderedMove(body, head, food, blackFood, cornerIn);
+                if (next >= 0) {
+                    trust(body, next, food, blackFood);
+                    return directionTo(head, next);
+                }
+            }
+            // 2. 沿回路走，直到蛇身排好
+            int next = cycleNext(head, cornerIn);
+            if (next >= 0) {
+                int direction = directionTo(head, next);
+                if (isLegal(body, head, direction, blackFood) && isSafe(body, head, direction, food, blackFood)) {
+                    return direction;
+                }
+            }
+        }
+        // 3. 追蛇尾；4. 可达空间最大的方向（实在无路时才吃黑色食物）
+        int tail = body.get(body.length() - 1);
+        int best = -1;
+        long bestScore = -1;
+        for (int direction = 0; direction < 4; direction++) {
+            if (!isLegal(body, head, direction, blackFood)) continue;
+            int space = reachableSpace(body, head, direction, food, blackFood, body.length() + 1);
+            // 能到达蛇尾的方向优先，其中离蛇尾越远越好（给蛇尾留出移开的时间）
+            long score = space == Integer.MAX_VALUE
+                    ? (1L << 32) + manhattan(neighbor(head, direction), tail % width, tail / width)
+                    : space;
+            if (score > bestScore) {
+                bestScore = score;
+                best = direction;
+            }
+        }
+        if (best >= 0) return best;
+        if (blackFood >= 0) {
+            for (int direction = 0; direction < 4; direction++) {
+                if (isLegal(body, head, direction, -1)) return direction;
+            }
+        }
+        return engine.direction(); // 必死，保持原方向
+    }
+
+    private void prepare(int width, int height) {
+        if (this.width == width && this.height == height) return;
+        this.width = width;
+        this.height = height;
+        int area = width * height;
+        marks = new int[area];
+        stamp = 0;
+        heap = new long[4 * Math.min(area, MAX_EXPANSIONS) + 4];
+        corner = cornerMate = -1;
+        if (height % 2 == 0 && width >= 2) {
+            cycleShape = ROW_CYCLE;
+            cycleLength = area;
+        } else if (width % 2 == 0 && height >= 2) {
+            cycleShape = COLUMN_CYCLE;
+            cycleLength = area;
+        } else if (width >= 3 && height >= 3) {
+            cycleShape = ODD_CYCLE;
+            cycleLength = area - 1;
+            corner = (height - 1) * width;
+            cornerMate = (height - 2) * width + 1;
+        } else {
+            cycleShape = NO_CYCLE;
+            cycleLength = 0;
+        }
+        pathLength = 0;
+        trustedHead = -1;
+    }
+
+    private int nextStamp() {
+        if (++stamp == STAMP_LIMIT) {
+            Arrays.fill(marks, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    private boolean isMarked(int cell, int mark) {
+        return marks[cell] >>> STAMP_SHIFT == mark;
+    }
+
+    private void mark(int cell, int mark) {
+        marks[cell] = mark << STAMP_SHIFT;
+    }
+
+    /**
+     * 宽高都为奇数时，左下角在蛇身中、或者它斜上方的格子不在蛇身中而食物在左下角，就让左下角占用回路上的那个位置
+     * （两者都不在蛇身中时换哪一个都不影响蛇身的顺序）
+     */
+    private boolean cornerInCycle(SnakeBody body, int food) {
+        if (cycleShape != ODD_CYCLE) return false;
+        return body.contains(corner) || (food == corner && !body.contains(cornerMate));
+    }
+
+    /**
+     * @return 格子在回路上的序号（0 ~ cycleLength - 1），不在回路上返回-1
+     */
+    private int cycleIndex(int cell, boolean cornerIn) {
+        int x = cell % width;
+        int y = cell / width;
+        switch (cycleShape) {
+            case ROW_CYCLE: return serpentineIndex(x, y, width, height);
+            case COLUMN_CYCLE: return serpentineIndex(y, x, height, width);
+            case ODD_CYCLE: return oddIndex(x, y, cornerIn);
+            default: return -1;
+        }
+    }
+
+    /**
+     * 第0行从左到右，第1行起第1~w-1列按行蛇形往返，最后沿第0列回到起点（h为偶数）
+     */
+    private static int serpentineIndex(int x, int y, int w, int h) {
+        if (y == 0) return x;
+        if (x == 0) return w + (h - 1) * (w - 1) + (h - 1 - y);
+        int offset = w + (y - 1) * (w - 1);
+        return y % 2 == 0 ? offset + x - 1 : offset + w - 1 - x;
+    }
+
+    /**
+     * 宽高都为奇数：前h-2行同serpentineIndex，最后两行的第1~w-1列从右往左按列上下往返，
+     * 最后沿第0列回到起点；左下角不在回路上（cornerIn时和它斜上方的格子互换）
+     */
+    private int oddIndex(int x, int y, boolean cornerIn) {
+        int w = width;
+        int h = height;
+        if (x == 0 && y == h - 1) return cornerIn ? oddIndex(1, h - 2, false) : -1;
+        if (x == 1 && y == h - 2 && cornerIn) return -1;
+        if (y == 0) return x;
+        if (x == 0) return w + (h - 1) * (w - 1) + (h - 2 - y);
+        if (y <= h - 3) {
+            int offset = w + (y - 1) * (w - 1);
+            return y % 2 == 0 ? offset + x - 1 : offset + w - 1 - x;
+        }
+        int column = w - 1 - x; // 从右往左数第几列（偶数列向下，奇数列向上）
+        boolean first = (y == h - 2) == (column % 2 == 0);
+        return w + (h - 3) * (w - 1) + 2 * column + (first ? 0 : 1);
+    }
+
+    /**
+     * @return 沿回路从序号from往前走到序号to的步数
+     */
+    private int distance(int from, int to) {
+        int d = to - from;
+        return d < 0 ? d + cycleLength : d;
+    }
+
+    /**
+     * @return 回路上head的下一格，head不在回路上返回-1
+     */
+    private int cycleNext(int head, boolean cornerIn) {
+        int index = cycleIndex(head, cornerIn);
+        if (index < 0) return -1;
+        int target = index + 1 == cycleLength ? 0 : index + 1;
+        for (int direction = 0; direction < 4; direction++) {
+            int next = neighbor(head, direction);
+            if (next >= 0 && cycleIndex(next, cornerIn) == target) return next;
+        }
+        return -1;
+    }
+
+    /**
+     * 蛇身是否从蛇尾到蛇头按回路顺序排列（绕回路不到一圈）；上一步按顺序走过来时直接认定，否则逐节检查
+     */
+    private boolean isOrdered(SnakeBody body, boolean cornerIn) {
+        int length = body.length();
+        int tail = body.get(length - 1);
+        if (body.head() == trustedHead && tail == trustedTail && length == trustedLength) return true;
+        int previous = cycleIndex(tail, cornerIn);
+        if (previous < 0) return false;
+        long span = 0;
+        for (int i = length - 2; i >= 0; i--) {
+            int current = cycleIndex(body.get(i), cornerIn);
+            if (current < 0) return false;
+            span += distance(previous, current);
+            if (span >= cycleLength) return false;
+            previous = current;
+        }
+        return true;
+    }
+
+    /**
+     * 记下按回路顺序走完这一步之后的蛇头、蛇尾和蛇长（吃黑色食物会截断蛇身，下一步重新检查）
+     */
+    private void trust(SnakeBody body, int next, int food, int blackFood) {
+        int length = body.length();
+        if (next == blackFood || length < 2) {
+            trustedHead = -1;
+            return;
+        }
+        boolean eating = next == food;
+        trustedHead = next;
+        trustedLength = eating ? length + 1 : length;
+        trustedTail = body.get(eating ? length - 1 : length - 2);
+    }
+
+    /**
+     * 走一步是否保持蛇身按回路顺序排列
+     * @param step 沿回路从蛇头到新蛇头的步数
+     * @param toTail 沿回路从蛇头到蛇尾的步数
+     * @param length 走之前的蛇长
+     * @param eating 这一步是否吃到食物（蛇尾不动）
+     * @param margin 捷径是否要求前方留出余量（绕开黑色食物时不要求）
+     */
+    private boolean keepsOrder(int step, int toTail, int length, boolean eating, boolean margin) {
+        if (eating && length + 1 == width * height) return true; // 吃完就通关
+        int after = toTail - step;
+        // 不吃食物时蛇尾会往前移，新蛇头只要在蛇尾之前；吃到时蛇尾不动，新蛇头前面还要留一个空格
+        if (after < (eating ? 2 : 1)) return false;
+        // 捷径会在身后留下空格，只在前方还有足够空间时才走
+        return step == 1 || !margin || after >= length + SHORTCUT_MARGIN;
+    }
+
+    /**
+     * 蛇身按回路顺序排列时选下一格：先沿A*路径，再走回路上不越过食物的最远捷径
+     * @return 下一格，没有保持顺序的走法时返回-1
+     */
+    private int orderedMove(SnakeBody body, int head, int food, int blackFood, boolean cornerIn) {
+        int length = body.length();
+        // 最后一个空格就在旁边（宽高都为奇数时它可能不在回路上）：直接吃掉通关
+        if (body.freeCount() == 1 && food >= 0 && manhattan(head, food % width, food / width) == 1) return food;
+        int headIndex = cycleIndex(head, cornerIn);
+        int toTail = distance(headIndex, cycleIndex(body.get(length - 1), cornerIn));
+        int foodIndex = food >= 0 ? cycleIndex(food, cornerIn) : -1;
+        boolean shortcuts = length * 2 < cycleLength;
+        if (foodIndex >= 0 && shortcuts) {
+            boolean onPath = pathPos < pathLength && food == pathFood && blackFood == pathBlackFood
+                    && length == pathBodyLength && cornerIn == pathCorner
+                    && head == (pathPos == 0 ? pathStart : path[pathPos - 1]);
+            if (!onPath) {
+                pathLength = 0;
+                if (food != failedFood || moves - failedAt >= REPLAN_STEPS) planPath(body, head, food, blackFood, cornerIn);
+            }
+            if (pathPos < pathLength) return path[pathPos++];
+        }
+        // 回路上的捷径：不越过食物（没有能吃的食物时只走回路的下一格）
+        int limit = foodIndex >= 0 ? distance(headIndex, foodIndex) : 1;
+        // 黑色食物在回路前方、食物之前时要跳过它（不要求余量）：等到它成了回路的下一格时往往已经没有别的路了，
+        // 所以在沿回路走到它之前的最后一个机会跳（跳得越晚，越过的空格越少）；
+        // 先只找不越过食物的跳法，一直都没有时宁可越过食物多绕一圈也不吃它（吃了蛇身减半，损失大得多），
+        // 但同一个食物只越过一次
+        int blackIndex = blackFood >= 0 ? cycleIndex(blackFood, cornerIn) : -1;
+        int toBlack = blackIndex >= 0 && (foodIndex < 0 || distance(headIndex, blackIndex) < limit)
+                ? distance(headIndex, blackIndex) : Integer.MAX_VALUE;
+        int best = -1;
+        int bestStep = 0;
+        int jump = -1;
+        int jumpStep = Integer.MAX_VALUE;
+        int farJump = -1;
+        int farJumpStep = Integer.MAX_VALUE;
+        boolean blackAllowed = false;
+        for (int direction = 0; direction < 4; direction++) {
+            int next = neighbor(head, direction);
+            if (next < 0 || body.contains(next)) continue;
+            int index = cycleIndex(next, cornerIn);
+            if (index < 0) continue;
+            int step = distance(headIndex, index);
+            boolean eating = next == food;
+            if (next == blackFood) {
+                // 黑色食物会截掉一半蛇身（顺序不变），只在没有别的走法时才吃
+                blackAllowed = length / 2 >= 4 && keepsOrder(step, toTail, length, false, false);
+                continue;
+            }
+            if (step <= limit && (step == 1 || shortcuts) && keepsOrder(step, toTail, length, eating, true)
+                    && step > bestStep) {
+                best = next;
+                bestStep = step;
+            }
+            if (step <= toBlack || !keepsOrder(step, toTail, length, eating, false)
+                    || isRiskyJump(toTail - step - 1, step - 1, length)) continue;
+            if (foodIndex < 0 || step <= limit) {
+                if (step < jumpStep) {
+                    jump = next;
+                    jumpStep = step;
+                }
+            } else if (step < farJumpStep) {
+                farJump = next;
+                farJumpStep = step;
+            }
+        }
+        if (bestStep < toBlack && (jump >= 0 || farJump >= 0)) {
+            int maxStep = foodIndex < 0 ? Integer.MAX_VALUE : limit;
+            if (!canJumpLater(body, head, headIndex, toBlack, maxStep, blackFood, cornerIn)) {
+                if (jump >= 0) return jump;
+                if (farJump >= 0 && (food != skippedFood || skipCount < MAX_SKIPS || length / 2 < 4)
+                        && !canJumpLater(body, head, headIndex, toBlack, Integer.MAX_VALUE, blackFood, cornerIn)) {
+                    skipCount = food == skippedFood ? skipCount + 1 : 1;
+                    skippedFood = food;
+                    return farJump;
+                }
+            }
+        }
+        if (best >= 0) return best;
+        return blackAllowed ? blackFood : -1;
+    }
+
+    /**
+     * 跳过的空格要等蛇尾过去（大约空走一个蛇长）才能再走到，这期间只能吃前方的食物，吃一个前方就少一格；
+     * 新食物在所有空格中随机出现，落在跳过的空格里时蛇只需空走等蛇尾过去，
+     * 而接连都落在前方直到前方只剩一格时就无路可走，这个概率是(skipped + 1) / C(ahead + skipped, skipped)。
+     * 前方空格较多时，把它们吃完平均要空走约ahead * ahead / 4步，远超过一个蛇长，蛇尾早就过去了，不算危险
+     * @param ahead 跳完之后蛇头前方的空格数
+     * @param skipped 跳过的空格数
+     * @param length 蛇长
+     * @return 撞死的概率是否超过JUMP_RISK
+     */
+    private static boolean isRiskyJump(int ahead, int skipped, int length) {
+        if (ahead < 1) return true;
+        if ((long) ahead * ahead > 8L * length) return false;
+        double combinations = 1; // C(ahead + skipped, skipped)，超过阈值就不用再算了
+        for (int i = 1; i <= skipped; i++) {
+            combinations = combinations * (ahead + i) / i;
+            if (combinations * JUMP_RISK > skipped + 1) return false;
+        }
+        return combinations * JUMP_RISK <= skipped + 1;
+    }
+
+    /**
+     * 沿回路从蛇头的下一格走到黑色食物之前，途中是否还有跳过黑色食物的机会（蛇身按现在的位置算）
+     * @param toBlack 沿回路从蛇头到黑色食物的步数
+     * @param limit 跳到的格子沿回路离蛇头最多这么多步（不越过食物）
+     */
+    private boolean canJumpLater(SnakeBody body, int head, int headIndex, int toBlack, int limit, int blackFood,
+                                 boolean cornerIn) {
+        int cell = head;
+        for (int i = 1; i < toBlack; i++) {
+            cell = cycleNext(cell, cornerIn);
+            if (cell < 0) return false;
+            for (int direction = 0; direction < 4; direction++) {
+                int next = neighbor(cell, direction);
+                if (next < 0 || next == blackFood || body.contains(next)) continue;
+                int index = cycleIndex(next, cornerIn);
+                if (index < 0) continue;
+                int step = distance(headIndex, index);
+                if (step > toBlack && step <= limit) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A*寻找到食物的路径，并模拟沿路径走到食物（含最后一步变长）的每一步都保持蛇身按回路顺序排列，满足才采用
+     */
+    private void planPath(SnakeBody body, int head, int food, int blackFood, boolean cornerIn) {
+        int length = pathToFood(body, head, food, blackFood);
+        if (length > 0 && pathKeepsOrder(body, head, length, cornerIn)) {
+            pathLength = length;
+            pathPos = 0;
+            pathStart = head;
+            pathBodyLength = body.length();
+            pathFood = food;
+            pathBlackFood = blackFood;
+            pathCorner = cornerIn;
+        } else {
+            failedAt = moves;
+            failedFood = food;
+        }
+    }
+
+    /**
+     * 模拟沿path走：第i步之前的蛇尾是旧蛇身的倒数第i + 1节（走过蛇长步之后是路径上的格子），
+     * 每一步都要满足keepsOrder，最后一步按吃到食物计算
+     * @param length 路径长度
+     */
+    private boolean pathKeepsOrder(SnakeBody body, int head, int length, boolean cornerIn) {
+        int bodyLength = body.length();
+        int previous = cycleIndex(head, cornerIn);
+        for (int i = 0; i < length; i++) {
+            int index = cycleIndex(path[i], cornerIn);
+            if (index < 0) return false;
+            int tail = i < bodyLength ? body.get(bodyLength - 1 - i) : path[i - bodyLength];
+            int toTail = distance(previous, cycleIndex(tail, cornerIn));
+            if (!keepsOrder(distance(previous, index), toTail, bodyLength, i == length - 1, true)) return false;
+            previous = index;
+        }
+        return true;
+    }
+
+    /**
+     * @return 从cell向direction走一步到达的格子，出界返回-1
+     */
+    private int neighbor(int cell, int direction) {
+        int x = cell % width + DX[direction];
+        int y = cell / width + DY[direction];
+        if (x < 0 || x >= width || y < 0 || y >= height) return -1;
+        return y * width + x;
+    }
+
+    /**
+     * 走这一步是否不会立即死亡（规则引擎先判碰撞再去尾，所以蛇尾也算障碍；黑色食物视为障碍，-1表示不避开）
+     */
+    private boolean isLegal(SnakeBody body, int head, int direction, int blackFood) {
+        int next = neighbor(head, direction);
+        return next >= 0 && next != blackFood && !body.contains(next);
+    }
+
+    /**
+     * @return 从cell走到相邻格子next的方向
+     */
+    private int directionTo(int cell, int next) {
+        if (next == cell - width) return SnakeEngine.UP;
+        if (next == cell + width) return SnakeEngine.DOWN;
+        return next == cell - 1 ? SnakeEngine.LEFT : SnakeEngine.RIGHT;
+    }
+
+    /**
+     * A*寻路（曼哈顿距离为启发函数），找到的路径存入path
+     * @return 路径长度，找不到或超出展开上限返回-1
+     */
+    private int pathToFood(SnakeBody body, int head, int food, int blackFood) {
+        int mark = nextStamp();
+        int fx = food % width;
+        int fy = food / width;
+        int heapSize = 0;
+        mark(head, mark);
+        heap[heapSize++] = heapKey(manhattan(head, fx, fy), 0, head);
+        int expansions = 0;
+        while (heapSize > 0 && expansions++ < MAX_EXPANSIONS) {
+            long top = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heapSize);
+            int cell = (int) (top & CELL_MASK);
+            if (cell == food) return tracePath(head, food);
+            int g = marks[cell] & G_MASK;
+            if ((top >>> 42) > g + manhattan(cell, fx, fy)) continue; // 过期的堆元素
+            for (int direction = 0; direction < 4; direction++) {
+                int next = neighbor(cell, direction);
+                if (next < 0 || next == blackFood) continue;
+                if (body.contains(next)) continue;
+                if (isMarked(next, mark) && (marks[next] & G_MASK) <= g + 1) continue;
+                marks[next] = mark << STAMP_SHIFT | direction << DIRECTION_SHIFT | (g + 1);
+                if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+                heap[heapSize] = heapKey(g + 1 + manhattan(next, fx, fy), g + 1, next);
+                siftUp(heapSize++);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 堆元素：f值（高21位）、按g从大到小排的次关键字（20位）、格子（低22位，场地最大2000x2000）
+     * f相同时优先展开走得更远的节点，空旷场地上只需展开大约路径长度个节点，而不是整个矩形区域
+     */
+    private static long heapKey(int f, int g, int cell) {
+        return ((long) f << 42) | ((long) (G_MASK - g) << 22) | cell;
+    }
+
+    private int manhattan(int cell, int x, int y) {
+        return Math.abs(cell % width - x) + Math.abs(cell / width - y);
+    }
+
+    /**
+     * 从终点沿标记数组中的来向回溯到起点，把路径按顺序写入path
+     * @return 路径长度
+     */
+    private int tracePath(int head, int target) {
+        int length = marks[target] & G_MASK;
+        if (path.length < length) path = new int[Math.max(length, path.length * 2)];
+        int cell = target;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = cell;
+            int direction = (marks[cell] >>> DIRECTION_SHIFT) & 3;
+            cell = cell - DX[direction] - DY[direction] * width;
+        }
+        return length;
+    }
+
+    private void siftUp(int i) {
+        long value = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= value) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    private void siftDown(int size) {
+        if (size == 0) return;
+        long value = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= value) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    /**
+     * 安全检查：走一步之后，新蛇头能到达蛇尾，或可达空间不小于蛇长
+     */
+    private boolean isSafe(SnakeBody body, int head, int direction, int food, int blackFood) {
+        return reachableSpace(body, head, direction, food, blackFood, body.length() + 1) > body.length();
+    }
+
+    /**
+     * 走一步之后从新蛇头出发的可达空间（能到达蛇尾时直接视为无限大）
+     * @param limit 数到这么多格就停止（只关心空间够不够）
+     */
+    private int reachableSpace(SnakeBody body, int head, int direction, int food, int blackFood, int limit) {
+        int start = neighbor(head, direction);
+        boolean eating = start == food;
+        // 不吃食物时蛇尾这一步移开，新的蛇尾是倒数第二节
+        int oldTail = body.get(body.length() - 1);
+        int tail = eating ? oldTail : body.get(Math.max(body.length() - 2, 0));
+        int mark = nextStamp();
+        mark(head, mark); // 旧蛇头变成身体
+        mark(start, mark);
+        if (queue.length < limit + 4) queue = new int[limit + 4];
+        int read = 0;
+        int write = 0;
+        queue[write++] = start;
+        while (read < write) {
+            int cell = queue[read++];
+            for (int d = 0; d < 4; d++) {
+                int next = neighbor(cell, d);
+                if (next < 0 || isMarked(next, mark) || next == blackFood) continue;
+                // 蛇头紧挨蛇尾时下一步不能走进蛇尾（引擎先判碰撞再去尾），要从更远处绕到蛇尾
+                if (next == tail && cell != start) return Integer.MAX_VALUE;
+                if (body.contains(next) && (eating || next != oldTail)) continue;
+                mark(next, mark);
+                if (write >= limit) return write;
+                queue[write++] = next;
+            }
+        }
+        return write;
+    }
+}
@@ -0,0 +1,183 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 贪吃蛇自动驾驶无界面批量测试（命令行入口）
+ * 用法：java SnakeBenchmark [局数] [场地边长] [线程数] [随机种子]
+ * 每个工作线程持有自己的规则引擎和自动驾驶，不断领取局号对局，
+ * 统计每秒步数、平均长度、通关率以及每步决策耗时的分位数（决策必须远小于最快移动间隔50ms）。
+ */
+public class SnakeBenchmark {
+    /** 工作线程每完成多少局把本地统计合并到全局一次 */
+    private static final int MERGE_INTERVAL = 16;
+    /** 进度输出间隔（毫秒） */
+    private static final long REPORT_INTERVAL_MS = 2000;
+    /** 初始移动间隔（毫秒，只影响黑色食物周期的游戏时间） */
+    private static final int INITIAL_DELAY_MS = 200;
+
+    /** 总局数 */
+    private final long games;
+    /** 场地边长 */
+    private final int boardSize;
+    /** 工作线程数 */
+    private final int threads;
+    /** 根随机数生成器（只在主线程中拆分） */
+    private final SplittableRandom rootRandom;
+    /** 下一个待领取的局号 */
+    private final AtomicLong nextGame = new AtomicLong();
+    /** 全局统计（合并时加锁） */
+    private final Stats total = new Stats();
+
+    /**
+     * @param games 总局数
+     * @param boardSize 场地边长
+     * @param threads 工作线程数
+     * @param seed 随机种子
+     */
+    public SnakeBenchmark(long games, int boardSize, int threads, long seed) {
+        this.games = games;
+        this.boardSize = boardSize;
+        this.threads = threads;
+        this.rootRandom = new SplittableRandom(seed);
+    }
+
+    /**
+     * 运行全部对局，期间定时输出进度
+     * @return 最终统计
+     * @throws InterruptedException 主线程被中断
+     */
+    public Stats run() throws InterruptedException {
+        long start = System.nanoTime();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = rootRandom.split();
+            workers[i] = new Thread(() -> work(random), "snake-bench-" + i);
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                worker.join(REPORT_INTERVAL_MS);
+                if (worker.isAlive()) {
+                    synchronized (total) {
+                        System.out.println(total.format(System.nanoTime() - start));
+                    }
+                }
+            }
+        }
+        total.elapsedNanos = System.nanoTime() - start;
+        return total;
+    }
+
+    private void work(SplittableRandom random) {
+        SnakeEngine engine = new SnakeEngine(boardSize, boardSize, random);
+        SnakeAutopilot pilot = new SnakeAutopilot();
+        Stats local = new Stats();
+        while (nextGame.getAndIncrement() < games) {
+            playOne(engine, pilot, local);
+            if (local.games == MERGE_INTERVAL) {
+                synchronized (total) {
+                    total.add(local);
+                }
+                local.clear();
+            }
+        }
+        synchronized (total) {
+            total.add(local);
+        }
+    }
+
+    /**
+     * 模拟一局（长时间吃不到食物视为陷入循环，提前结束）
+     */
+    private void playOne(SnakeEngine engine, SnakeAutopilot pilot, Stats stats) {
+        engine.reset(INITIAL_DELAY_MS);
+        long stallLimit = 4L * boardSize * boardSize;
+        long sinceFood = 0;
+        int lastScore = 0;
+        long ticks = 0;
+        while (engine.status() == SnakeEngine.RUNNING && sinceFood < stallLimit) {
+            long start = System.nanoTime();
+            int direction = pilot.chooseMove(engine);
+            long nanos = System.nanoTime() - start;
+            stats.planNanos.record(nanos);
+            stats.maxPlanNanos = Math.max(stats.maxPlanNanos, nanos);
+            engine.step(direction);
+            ticks++;
+            sinceFood = engine.score() == lastScore ? sinceFood + 1 : 0;
+            lastScore = engine.score();
+        }
+        stats.record(engine, ticks);
+    }
+
+    /**
+     * 命令行入口
+     * @param args [局数] [场地边长] [线程数] [随机种子]
+     * @throws InterruptedException 主线程被中断
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        int boardSize = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        System.out.println("局数: " + games + "  场地: " + boardSize + "x" + boardSize + "  线程: " + threads + "  种子: " + seed);
+        Stats stats = new SnakeBenchmark(games, boardSize, threads, seed).run();
+        System.out.println(stats.format(stats.elapsedNanos));
+        System.out.printf("通关 %d 局  撞死 %d 局  陷入循环 %d 局  最长 %d%n",
+                stats.wins, stats.deaths, stats.games - stats.wins - stats.deaths, stats.maxLength);
+        System.out.printf("每步决策耗时(微秒): P50=%.1f  P99=%.1f  P99.9=%.1f  最大=%.1f%n",
+                stats.planNanos.percentile(0.5) / 1e3, stats.planNanos.percentile(0.99) / 1e3,
+                stats.planNanos.percentile(0.999) / 1e3, stats.maxPlanNanos / 1e3);
+    }
+
+    /**
+     * 聚合统计（大小固定，与局数无关）
+     */
+    public static class Stats {
+        long games;
+        long ticks;
+        long lengthSum;
+        long scoreSum;
+        long wins;
+        long deaths;
+        long maxLength;
+        long maxPlanNanos;
+        /** 每步决策耗时分布（纳秒） */
+        final LogHistogram planNanos = new LogHistogram();
+        /** 总耗时（纳秒，仅最终结果有效） */
+        long elapsedNanos;
+
+        void record(SnakeEngine engine, long gameTicks) {
+            games++;
+            ticks += gameTicks;
+            lengthSum += engine.body().length();
+            scoreSum += engine.score();
+            maxLength = Math.max(maxLength, engine.body().length());
+            if (engine.status() == SnakeEngine.WON) wins++;
+            if (engine.status() == SnakeEngine.DEAD) deaths++;
+        }
+
+        void add(Stats other) {
+            games += other.games;
+            ticks += other.ticks;
+            lengthSum += other.lengthSum;
+            scoreSum += other.scoreSum;
+            wins += other.wins;
+            deaths += other.deaths;
+            maxLength = Math.max(maxLength, other.maxLength);
+            maxPlanNanos = Math.max(maxPlanNanos, other.maxPlanNanos);
+            planNanos.add(other.planNanos);
+        }
+
+        void clear() {
+            games = ticks = lengthSum = scoreSum = wins = deaths = maxLength = maxPlanNanos = 0;
+            planNanos.clear();
+        }
+
+        String format(long nanos) {
+            double seconds = Math.max(nanos, 1) / 1e9;
+            return String.format("已完成 %d 局  %d 步  %.0f 步/秒  平均长度 %.1f  平均得分 %.1f  决策中位数 %.1f微秒",
+                    games, ticks, ticks / seconds, (double) lengthSum / Math.max(games, 1),
+                    (double) scoreSum / Math.max(games, 1), planNanos.percentile(0.5) / 1e3);
+        }
+    }
+}
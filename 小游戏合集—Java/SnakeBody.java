@@ -0,0 +1,128 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * 贪吃蛇身体模型（无界面）
+ * 身体按“格子编号 = y * 宽度 + x”压缩成int，存放在按需扩容的环形缓冲区中（头部在逻辑下标0，内存与蛇长成正比），
+ * 另用空闲格子集合记录每个格子是否被身体占用：
+ * 碰撞检测是O(1)；加头、去尾和随机取空格要更新或查找空闲集合的树状数组，是O(log(格子数))；
+ * 截断只和去掉的节数有关，与蛇长无关。
+ */
+public class SnakeBody {
+    /** 环形缓冲区（满了就翻倍，最多等于格子总数） */
+    private int[] cells;
+    /** 不属于身体的格子 */
+    private final FreeCellSet free;
+    /** 头部在环形缓冲区中的下标 */
+    private int headIndex = 0;
+    /** 当前长度 */
+    private int length = 0;
+
+    /**
+     * @param cellCount 棋盘格子总数（宽 x 高）
+     */
+    public SnakeBody(int cellCount) {
+        this.cells = new int[Math.min(cellCount, 64)];
+        this.free = new FreeCellSet(cellCount);
+    }
+
+    /**
+     * 清空身体
+     */
+    public void clear() {
+        while (length > 0) removeTail();
+        headIndex = 0;
+    }
+
+    /**
+     * 在头部前面加一节（新的头）
+     * @param cell 格子编号（调用方保证未被占用）
+     */
+    public void addHead(int cell) {
+        if (length == cells.length) grow();
+        headIndex = headIndex == 0 ? cells.length - 1 : headIndex - 1;
+        cells[headIndex] = cell;
+        free.remove(cell);
+        length++;
+    }
+
+    /**
+     * 在尾部后面加一节（只用于初始化身体）
+     * @param cell 格子编号
+     */
+    public void addTail(int cell) {
+        if (length == cells.length) grow();
+        int index = headIndex + length;
+        if (index >= cells.length) index -= cells.length;
+        cells[index] = cell;
+        free.remove(cell);
+        length++;
+    }
+
+    /**
+     * 去掉尾部一节
+     * @return 被去掉的格子编号
+     */
+    public int removeTail() {
+        int index = headIndex + length - 1;
+        if (index >= cells.length) index -= cells.length;
+        int cell = cells[index];
+        free.add(cell);
+        length--;
+        return cell;
+    }
+
+    /**
+     * @param cell 格子编号
+     * @return 该格子是否被身体占用
+     */
+    public boolean contains(int cell) {
+        return !free.contains(cell);
+    }
+
+    /** @return 不属于身体的格子数（为0时蛇已占满棋盘） */
+    public int freeCount() {
+        return free.size();
+    }
+
+    /**
+     * 随机取一个不属于身体、也不等于exclude的格子
+     * @param random 随机数生成器
+     * @param exclude 要避开的格子编号（-1表示不避开）
+     * @return 格子编号，没有符合条件的格子时返回-1
+     */
+    public int randomFreeCell(RandomGenerator random, int exclude) {
+        return free.random(random, exclude);
+    }
+
+    /** @return 头部格子编号 */
+    public int head() {
+        return cells[headIndex];
+    }
+
+    /**
+     * @param i 从头部开始数的第几节（0为头部）
+     * @return 该节的格子编号
+     */
+    public int get(int i) {
+        int index = headIndex + i;
+        if (index >= cells.length) index -= cells.length;
+        return cells[index];
+    }
+
+    /** @return 当前长度 */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * 容量翻倍，按逻辑顺序搬到新数组开头
+     */
+    private void grow() {
+        int[] larger = new int[cells.length * 2];
+        for (int i = 0; i < length; i++) {
+            larger[i] = get(i);
+        }
+        cells = larger;
+        headIndex = 0;
+    }
+}
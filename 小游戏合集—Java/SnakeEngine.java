@@ -0,0 +1,297 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * 贪吃蛇规则引擎（无界面，只能被一个线程使用）
+ * 包含移动、碰撞、吃食物、每10分加速、黑色食物（30分后显示30秒/隐藏10秒，吃到后长度减半、扣60%分数）的全部规则。
+ * 黑色食物的周期按游戏时间（每步累加当前移动间隔）计算，与界面线程、暂停和对话框无关，
+ * 因此同样的随机种子和操作序列总能得到同样的结果，界面、自动驾驶和批量模拟共用这一份规则。
+ */
+public class SnakeEngine {
+    /** 方向：上 */
+    public static final int UP = 0;
+    /** 方向：下 */
+    public static final int DOWN = 1;
+    /** 方向：左 */
+    public static final int LEFT = 2;
+    /** 方向：右 */
+    public static final int RIGHT = 3;
+    /** 状态：进行中 */
+    public static final int RUNNING = 0;
+    /** 状态：撞墙、撞到自己或被黑色食物缩得太短 */
+    public static final int DEAD = 1;
+    /** 状态：蛇占满整个棋盘 */
+    public static final int WON = 2;
+    /** 初始长度 */
+    public static final int INITIAL_LENGTH = 5;
+    /** 每多少分加速一次 */
+    public static final int SPEED_UP_SCORE = 10;
+    /** 每次加速缩短的移动间隔（毫秒） */
+    public static final int SPEED_UP_STEP_MS = 20;
+    /** 最小移动间隔（毫秒） */
+    public static final int MIN_DELAY_MS = 50;
+    /** 达到多少分后开始出现黑色食物 */
+    public static final int BLACK_FOOD_SCORE = 30;
+    /** 黑色食物显示时长（毫秒） */
+    public static final int BLACK_FOOD_DURATION_MS = 30000;
+    /** 黑色食物隐藏时长（毫秒） */
+    public static final int BLACK_FOOD_HIDE_DURATION_MS = 10000;
+    /** 每个方向的x、y增量（下标为方向） */
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {-1, 1, 0, 0};
+
+    /** 棋盘宽（格） */
+    private final int width;
+    /** 棋盘高（格） */
+    private final int height;
+    /** 蛇身 */
+    private final SnakeBody body;
+    /** 生成食物使用的随机数生成器 */
+    private final RandomGenerator random;
+    /** 普通食物所在格子（-1表示没有） */
+    private int food;
+    /** 黑色食物所在格子（-1表示尚未生成） */
+    private int blackFood;
+    /** 黑色食物是否显示 */
+    private boolean blackFoodActive;
+    /** 黑色食物周期当前是否处于“显示”阶段 */
+    private boolean blackFoodShowing;
+    /** 下一次检查黑色食物周期的游戏时间（毫秒） */
+    private long blackFoodEventMs;
+    /** 黑色食物周期的当前间隔（毫秒） */
+    private int blackFoodPeriodMs;
+    /** 当前移动方向 */
+    private int direction;
+    /** 当前分数 */
+    private int score;
+    /** 当前移动间隔（毫秒） */
+    private int delayMs;
+    /** 游戏时间（毫秒，每步累加移动间隔） */
+    private long clockMs;
+    /** 当前状态 */
+    private int status;
+    /** 上一步新增的头部格子（-1表示没有移动） */
+    private int lastHead;
+    /** 上一步从尾部去掉的节数 */
+    private int lastRemoved;
+
+    /**
+     * @param width 棋盘宽（格）
+     * @param height 棋盘高（格）
+     * @param random 随机数生成器
+     */
+    public SnakeEngine(int width, int height, RandomGenerator random) {
+        this.width = width;
+        this.height = height;
+        this.body = new SnakeBody(width * height);
+        this.random = random;
+    }
+
+    /**
+     * 开始新的一局：蛇在棋盘中心向右，长度5
+     * @param initialDelayMs 初始移动间隔（毫秒，由难度决定）
+     */
+    public void reset(int initialDelayMs) {
+        body.clear();
+        int startX = width / 2;
+        int startY = height / 2;
+        for (int i = 0; i < INITIAL_LENGTH; i++) {
+            body.addTail(startY * width + startX - i);
+        }
+        direction = RIGHT;
+        score = 0;
+        delayMs = initialDelayMs;
+        clockMs = 0;
+        status = RUNNING;
+        food = body.randomFreeCell(random, -1);
+        blackFood = -1;
+        blackFoodActive = false;
+        blackFoodShowing = false;
+        blackFoodEventMs = 0;
+        blackFoodPeriodMs = BLACK_FOOD_DURATION_MS + BLACK_FOOD_HIDE_DURATION_MS;
+        lastHead = -1;
+        lastRemoved = 0;
+    }
+
+    /**
+     * 前进一步
+     * @param requested 期望的方向（-1或与当前方向相反时保持原方向）
+     * @return 移动后的状态
+     */
+    public int step(int requested) {
+        if (status != RUNNING) return status;
+        lastHead = -1;
+        lastRemoved = 0;
+        updateBlackFood();
+        int tickMs = delayMs;
+        if (requested >= 0 && requested != (direction ^ 1)) {
+            direction = requested;
+        }
+        int head = body.head();
+        int x = head % width + DX[direction];
+        int y = head / width + DY[direction];
+        // 碰撞检测（O(1)）
+        if (x < 0 || x >= width || y < 0 || y >= height || body.contains(y * width + x)) {
+            status = DEAD;
+            return status;
+        }
+        int newHead = y * width + x;
+        body.addHead(newHead);
+        lastHead = newHead;
+        if (newHead == food) {
+            score++;
+            if (score % SPEED_UP_SCORE == 0) {
+                delayMs = Math.max(delayMs - SPEED_UP_STEP_MS, MIN_DELAY_MS);
+            }
+            if (body.freeCount() == 0) {
+                // 蛇占满整个棋盘：没有地方再放食物，直接获胜
+                food = -1;
+                status = WON;
+                return status;
+            }
+            food = body.randomFreeCell(random, -1);
+        } else if (newHead == blackFood && blackFoodActive) {
+            int newLength = body.length() / 2;
+            if (newLength < 4) {
+                status = DEAD;
+                return status;
+            }
+            // 截断蛇的长度（只和去掉的节数有关）
+            while (body.length() > newLength) {
+                body.removeTail();
+                lastRemoved++;
+            }
+            score = (int) (score * 0.4); // 扣除60%分数
+            blackFoodActive = false;
+        } else {
+            body.removeTail();
+            lastRemoved = 1;
+        }
+        clockMs += tickMs;
+        return status;
+    }
+
+    /**
+     * 处理到期的黑色食物周期事件（与原先的Swing计时器相同：分数不足时按原间隔继续检查）
+     */
+    private void updateBlackFood() {
+        while (clockMs >= blackFoodEventMs) {
+            if (score >= BLACK_FOOD_SCORE) {
+                if (blackFoodShowing) {
+                    blackFoodActive = false;
+                    blackFoodPeriodMs = BLACK_FOOD_HIDE_DURATION_MS;
+                } else {
+                    // 没有可放置的空格时本轮不显示
+                    blackFood = body.randomFreeCell(random, food);
+                    blackFoodActive = blackFood >= 0;
+                    blackFoodPeriodMs = BLACK_FOOD_DURATION_MS;
+                }
+                blackFoodShowing = !blackFoodShowing;
+            }
+            blackFoodEventMs += blackFoodPeriodMs;
+        }
+    }
+
+    /**
+     * 上一步的变化（新头部、去尾节数、食物、分数等），供其他线程绘制或网络广播
+     * @return 不可变的变化记录
+     */
+    public Tick tick() {
+        return new Tick(null, lastHead, lastRemoved, food, blackFoodActive ? blackFood : -1, score, delayMs, status);
+    }
+
+    /**
+     * 完整状态（新的一局开始时使用）
+     * @return 带完整蛇身的不可变记录
+     */
+    public Tick fullTick() {
+        int[] cells = new int[body.length()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = body.get(i);
+        }
+        return new Tick(cells, -1, 0, food, blackFoodActive ? blackFood : -1, score, delayMs, status);
+    }
+
+    /** @return 棋盘宽（格） */
+    public int width() {
+        return width;
+    }
+
+    /** @return 棋盘高（格） */
+    public int height() {
+        return height;
+    }
+
+    /** @return 蛇身（只读使用） */
+    public SnakeBody body() {
+        return body;
+    }
+
+    /** @return 普通食物所在格子（-1表示没有） */
+    public int food() {
+        return food;
+    }
+
+    /** @return 显示中的黑色食物所在格子（-1表示没有） */
+    public int blackFood() {
+        return blackFoodActive ? blackFood : -1;
+    }
+
+    /** @return 当前移动方向 */
+    public int direction() {
+        return direction;
+    }
+
+    /** @return 当前分数 */
+    public int score() {
+        return score;
+    }
+
+    /** @return 当前移动间隔（毫秒） */
+    public int delayMs() {
+        return delayMs;
+    }
+
+    /** @return 游戏时间（毫秒） */
+    public long clockMs() {
+        return clockMs;
+    }
+
+    /** @return 当前状态（RUNNING / DEAD / WON） */
+    public int status() {
+        return status;
+    }
+
+    /**
+     * 一步的变化记录（不可变，可以安全地交给绘制线程）
+     * 蛇身的变化只有“头部加一格、尾部去掉若干节”两种，接收方按同样顺序重放即可得到同样的蛇身。
+     */
+    public static final class Tick {
+        /** 完整蛇身（头部在前；只有新的一局开始时非null） */
+        public final int[] body;
+        /** 新增的头部格子（-1表示没有移动） */
+        public final int head;
+        /** 从尾部去掉的节数 */
+        public final int removed;
+        /** 普通食物所在格子（-1表示没有） */
+        public final int food;
+        /** 显示中的黑色食物所在格子（-1表示没有） */
+        public final int blackFood;
+        /** 分数 */
+        public final int score;
+        /** 移动间隔（毫秒） */
+        public final int delayMs;
+        /** 状态 */
+        public final int status;
+
+        Tick(int[] body, int head, int removed, int food, int blackFood, int score, int delayMs, int status) {
+            this.body = body;
+            this.head = head;
+            this.removed = removed;
+            this.food = food;
+            this.blackFood = blackFood;
+            this.score = score;
+            this.delayMs = delayMs;
+            this.status = status;
+        }
+    }
+}
@@ -1,35 +1,54 @@
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
+import java.awt.image.VolatileImage;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * 贪吃蛇游戏主窗口类，继承自JFrame，实现游戏的核心逻辑和界面显示。
- * 包含游戏初始化、蛇的移动控制、碰撞检测、分数计算、难度调整等功能。
+ * 贪吃蛇游戏主窗口类，继承自JFrame，负责界面显示和按键处理。
+ * 移动、碰撞、食物、加速等规则由无界面的SnakeEngine完成，并在独立的模拟线程中按固定时间步长推进；
+ * 模拟线程每步把不可变的变化记录（SnakeEngine.Tick）交给界面线程，界面线程据此更新自己的蛇身镜像并重绘，
+ * 因此界面卡顿（对话框、重绘）不会影响移动节奏。
  */
 public class SnakeGame extends JFrame {
     private MainFrame mainFrame; // 主菜单窗口引用，用于返回主页
-    private final int BOARD_SIZE = 25; // 游戏棋盘尺寸（25x25格）
+    private final int boardSize; // 场地尺寸（boardSize x boardSize格，最大2000）
+    private final int viewSize; // 视口尺寸（场地大于25x25时只显示头部附近的25x25格）
     private final int CELL_SIZE = 20; // 每格像素大小（20x20像素）
-    private ArrayList<Point> snake; // 蛇的身体坐标集合（头部在索引0）
-    private Point food; // 普通食物的位置
-    private Point blackFood; // 黑色食物的位置
-    private boolean isBlackFoodActive = false; // 黑色食物是否显示
-    private Timer blackFoodTimer; // 控制黑色食物周期的计时器（显示/隐藏切换）
-    private final int BLACK_FOOD_DURATION = 30000; // 黑色食物显示时长（30秒）
-    private final int BLACK_FOOD_HIDE_DURATION = 10000; // 黑色食物隐藏时长（10秒）
-    private Direction direction; // 当前移动方向
-    private Direction nextDirection; // 临时存储下一个方向（避免连续按键丢失）
-    private Timer timer; // 游戏主循环计时器（控制移动速度）
-    private boolean isRunning; // 游戏是否运行中
-    private boolean isPaused; // 游戏是否暂停
+    private static final int MAX_VIEW_SIZE = 25; // 视口最大边长（格）
+    private static final int CAMERA_MARGIN = 6; // 头部离视口边缘不足这么多格时视口跟随滚动
+    private static final long SPIN_NANOS = 1_000_000L; // 距离下一步不足1ms时改为自旋等待，减小唤醒误差
+    private static final Font COUNTDOWN_FONT = new Font("宋体", Font.BOLD, 80); // 倒计时字体（只创建一次）
+    private static final int MAX_DIRTY_CELLS = 64; // 单次刷新最多单独重绘的格子数，超过则整体重绘
+    private SnakeBody snake; // 界面线程上的蛇身镜像（按变化记录重放，头部在下标0）
+    private int food = -1; // 普通食物所在格子编号
+    private int blackFood = -1; // 显示中的黑色食物所在格子编号（-1表示没有）
+    private static final int INPUT_CAPACITY = 3; // 最多排队的按键数
+    private final DirectionQueue inputs = new DirectionQueue(INPUT_CAPACITY, SnakeEngine.RIGHT); // 按键方向队列（界面线程放入，模拟线程每步取一个）
+    private volatile int movingDirection = SnakeEngine.RIGHT; // 蛇当前的方向（模拟线程写，界面线程读）
+    private volatile boolean autopilot = false; // 是否由自动驾驶控制方向
+    private final SnakeAutopilot pilot = new SnakeAutopilot(); // 自动驾驶（只由模拟线程使用）
+    private volatile boolean isPaused; // 游戏是否暂停
     private int countdown; // 初始倒计时变量（3秒）
+    private Timer countdownTimer; // 倒计时计时器
+    private Timer scoreUpdateTimer; // 同步分数显示和节拍抖动统计的计时器（关闭窗口时停止）
     private int score = 0; // 当前分数
     private int difficultyDelay = 200; // 默认中级难度延迟（移动间隔200ms）
+    private final Random random = new Random(); // 生成食物使用的随机数生成器
+    private final SnakeEngine engine; // 规则引擎（开局后只由模拟线程访问）
+    private SimulationLoop loop; // 当前局的模拟线程
+    private final ConcurrentLinkedQueue<SnakeEngine.Tick> ticks = new ConcurrentLinkedQueue<>(); // 待界面线程处理的变化记录
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(); // 是否已安排界面线程处理变化记录
+    private BoardPanel gamePanel; // 游戏主面板
+    private final int[] dirtyCells = new int[MAX_DIRTY_CELLS]; // 本次需要重绘的格子
+    private int dirtyCount = 0; // 需要重绘的格子数
+    private boolean fullRepaint = true; // 是否需要整体重绘（新的一局、格子太多、视口滚动）
+    private int cameraX = 0; // 视口左上角在场地中的列
+    private int cameraY = 0; // 视口左上角在场地中的行
 
     /**
      * 构造方法，初始化游戏窗口和难度参数
@@ -37,12 +56,25 @@ public class SnakeGame extends JFrame {
      * @param difficulty 游戏难度（"初级"/"中级"/"高级"）
      */
     public SnakeGame(MainFrame mainFrame, String difficulty) {
+        this(mainFrame, difficulty, 25);
+    }
+
+    /**
+     * 构造方法，指定场地大小（场地大于视口时视口跟随蛇头滚动）
+     * @param mainFrame 主菜单窗口引用，用于返回主页
+     * @param difficulty 游戏难度（"初级"/"中级"/"高级"）
+     * @param boardSize 场地边长（格，25~2000，与主菜单的选项一致）
+     */
+    public SnakeGame(MainFrame mainFrame, String difficulty, int boardSize) {
         this.mainFrame = mainFrame;
-        setTitle("贪吃蛇");
+        this.boardSize = boardSize;
+        this.viewSize = Math.min(boardSize, MAX_VIEW_SIZE);
+        this.engine = new SnakeEngine(boardSize, boardSize, random);
+        setTitle("贪吃蛇 - " + boardSize + "x" + boardSize);
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-        // 调整窗口尺寸为棋盘大小+适当边框空间
-        // 调整窗口尺寸为棋盘大小+固定边距（上下各30，左右各20）
-        setSize(BOARD_SIZE * CELL_SIZE + 40, BOARD_SIZE * CELL_SIZE + 100);
+        // 调整窗口尺寸为视口大小+适当边框空间
+        // 调整窗口尺寸为视口大小+固定边距（上下各30，左右各20）
+        setSize(viewSize * CELL_SIZE + 40, viewSize * CELL_SIZE + 100);
         setLocationRelativeTo(mainFrame);
         setLocationRelativeTo(mainFrame);
         // 使用传入的难度参数设置延迟
@@ -56,67 +88,38 @@ public class SnakeGame extends JFrame {
     }
 
     /**
-     * 初始化游戏核心状态：蛇的初始位置、食物生成、倒计时和游戏计时器
+     * 初始化游戏核心状态：停止上一局的模拟线程、重置规则引擎、开始倒计时并启动新的模拟线程
      */
     private void initGame() {
         // 移除重复的难度选择对话框，使用构造方法传入的难度参数
 
-        snake = new ArrayList<>();
-        score = 0; // 初始化分数
-        // 固定初始位置为棋盘中心（原点）
-        int startX = BOARD_SIZE / 2;
-        int startY = BOARD_SIZE / 2;
-        for (int i = 0; i < 5; i++) {
-            snake.add(new Point(startX - i, startY)); // 沿x轴正向生成5个连续点
-        }
-        direction = Direction.RIGHT;
-        nextDirection = Direction.RIGHT; // 初始化临时方向
-        generateFood();
-        isRunning = true;
+        // 先停止上一局的模拟线程，之后引擎只在本线程中被重置
+        if (loop != null) loop.stop();
+        if (countdownTimer != null) countdownTimer.stop();
+        ticks.clear();
+        engine.reset(difficultyDelay); // 蛇固定在棋盘中心，长度5，向右
+        apply(engine.fullTick());
+        // 视口以蛇头为中心
+        cameraX = clampCamera(snake.head() % boardSize - viewSize / 2);
+        cameraY = clampCamera(snake.head() / boardSize - viewSize / 2);
+        inputs.reset(SnakeEngine.RIGHT); // 清空上一局残留的按键（模拟线程已停止）
+        movingDirection = SnakeEngine.RIGHT;
         isPaused = true; // 初始状态为暂停（倒计时期间不可操作）
-        // 停止旧计时器避免重复运行
-        if(timer != null) timer.stop();
-        timer = new Timer(difficultyDelay, new GameLoop());
         // 初始化倒计时为3秒
         countdown = 3;
-        isPaused = true; // 倒计时期间保持暂停状态
         // 倒计时计时器（每秒递减）
-        Timer countdownTimer = new Timer(1000, e -> {
+        countdownTimer = new Timer(1000, e -> {
             if (countdown > 0) {
                 countdown--;
                 repaint();
             } else {
                 ((Timer)e.getSource()).stop();
-                isPaused = false; // 倒计时结束后恢复可操作状态
-                move(); // 立即触发一次移动确保流畅启动
+                setPaused(false); // 倒计时结束后恢复可操作状态，模拟线程立即走第一步
             }
         });
         countdownTimer.start();
-        timer.start();
-
-        // 初始化黑色食物计时器
-        blackFoodTimer = new Timer(BLACK_FOOD_DURATION + BLACK_FOOD_HIDE_DURATION, new ActionListener() {
-            private boolean showing = false;
-
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (score >= 30) {
-                    if (showing) {
-                        // 隐藏黑色食物
-                        isBlackFoodActive = false;
-                        ((Timer) e.getSource()).setDelay(BLACK_FOOD_HIDE_DURATION);
-                    } else {
-                        // 生成并显示黑色食物
-                        generateBlackFood();
-                        isBlackFoodActive = true;
-                        ((Timer) e.getSource()).setDelay(BLACK_FOOD_DURATION);
-                    }
-                    showing = !showing;
-                }
-            }
-        });
-        blackFoodTimer.setInitialDelay(0); // 初始延迟为0
-        blackFoodTimer.start();
+        loop = new SimulationLoop();
+        loop.start();
     }
 
     /**
@@ -128,55 +131,29 @@ public class SnakeGame extends JFrame {
         JLabel scoreLabel = new JLabel("分数：0");
         scoreLabel.setFont(new Font("宋体", Font.BOLD, 20));
         scorePanel.add(scoreLabel);
+        JButton autoBtn = new JButton("自动驾驶");
+        autoBtn.addActionListener(e -> {
+            toggleAutopilot();
+            autoBtn.setText(autopilot ? "手动" : "自动驾驶");
+            requestFocusInWindow();
+        });
+        scorePanel.add(autoBtn);
+        JLabel jitterLabel = new JLabel();
+        scorePanel.add(jitterLabel);
 
         // 游戏主面板
-        JPanel gamePanel = new JPanel() {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                // 绘制棋盘
-                g.setColor(Color.BLACK);
-                for (int i = 0; i <= BOARD_SIZE; i++) {
-                    g.drawLine(i * CELL_SIZE, 0, i * CELL_SIZE, BOARD_SIZE * CELL_SIZE);
-                    g.drawLine(0, i * CELL_SIZE, BOARD_SIZE * CELL_SIZE, i * CELL_SIZE);
-                }
-                // 绘制蛇
-                g.setColor(Color.GREEN);
-                for (Point p : snake) {
-                    g.fillRect(p.x * CELL_SIZE, p.y * CELL_SIZE, CELL_SIZE - 1, CELL_SIZE - 1);
-                }
-                // 绘制食物
-                if (isBlackFoodActive && blackFood != null) {
-                    g.setColor(Color.BLACK);
-                    g.fillOval(blackFood.x * CELL_SIZE, blackFood.y * CELL_SIZE, CELL_SIZE - 1, CELL_SIZE - 1);
-                } else {
-                    g.setColor(Color.RED);
-                    g.fillOval(food.x * CELL_SIZE, food.y * CELL_SIZE, CELL_SIZE - 1, CELL_SIZE - 1);
-                }
-
-                // 绘制倒计时
-                if (countdown > 0) {
-                    g.setFont(new Font("宋体", Font.BOLD, 80));
-                    g.setColor(Color.BLUE);
-                    String text = String.valueOf(countdown);
-                    // 计算文本居中位置
-                    FontMetrics fm = g.getFontMetrics();
-                    int x = (BOARD_SIZE * CELL_SIZE - fm.stringWidth(text)) / 2;
-                    int y = (BOARD_SIZE * CELL_SIZE + fm.getAscent()) / 2;
-                    g.drawString(text, x, y);
-                }
-            }
-        };
-        gamePanel.setPreferredSize(new Dimension(BOARD_SIZE * CELL_SIZE, BOARD_SIZE * CELL_SIZE));
+        gamePanel = new BoardPanel();
+        gamePanel.setPreferredSize(new Dimension(viewSize * CELL_SIZE, viewSize * CELL_SIZE));
 
         // 调整窗口布局
         setLayout(new BorderLayout());
         add(scorePanel, BorderLayout.NORTH);
         add(gamePanel, BorderLayout.CENTER);
 
-        // 同步分数显示
-        Timer scoreUpdateTimer = new Timer(100, e -> {
+        // 同步分数显示和节拍抖动统计
+        scoreUpdateTimer = new Timer(100, e -> {
             scoreLabel.setText("分数：" + score);
+            jitterLabel.setText(loop.formatJitter());
         });
         scoreUpdateTimer.start();
 
@@ -184,19 +161,24 @@ public class SnakeGame extends JFrame {
         addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
+                // 反向移动由规则引擎忽略
                 switch (e.getKeyCode()) {
-                    case KeyEvent.VK_UP: if (countdown <= 0 && direction != Direction.DOWN) nextDirection = Direction.UP; break;
-                    case KeyEvent.VK_DOWN: if (countdown <= 0 && direction != Direction.UP) nextDirection = Direction.DOWN; break;
-                    case KeyEvent.VK_LEFT: if (countdown <= 0 && direction != Direction.RIGHT) nextDirection = Direction.LEFT; break;
-                    case KeyEvent.VK_RIGHT: if (countdown <= 0 && direction != Direction.LEFT) nextDirection = Direction.RIGHT; break;
-                    case KeyEvent.VK_ESCAPE: 
-    isPaused = !isPaused; 
+                    case KeyEvent.VK_UP: queueDirection(SnakeEngine.UP); break;
+                    case KeyEvent.VK_DOWN: queueDirection(SnakeEngine.DOWN); break;
+                    case KeyEvent.VK_LEFT: queueDirection(SnakeEngine.LEFT); break;
+                    case KeyEvent.VK_RIGHT: queueDirection(SnakeEngine.RIGHT); break;
+                    case KeyEvent.VK_A:
+                        toggleAutopilot();
+                        autoBtn.setText(autopilot ? "手动" : "自动驾驶");
+                        break;
+                    case KeyEvent.VK_ESCAPE:
+    setPaused(!isPaused);
     if (isPaused) {
         Object[] options = {"继续", "重新开始并选择难度", "返回主页"};
         int choice = JOptionPane.showOptionDialog(SnakeGame.this, "游戏已暂停", "暂停",
                 JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
         if (choice == 0) {
-            isPaused = false;
+            setPaused(false);
         } else if (choice == 1) {
             String[] difficulties = {"初级", "中级", "高级"};
             String selected = (String) JOptionPane.showInputDialog(SnakeGame.this, "选择难度:", "贪吃蛇难度",
@@ -208,8 +190,8 @@ public class SnakeGame extends JFrame {
                     case "高级": difficultyDelay = 100; break;
                     default: difficultyDelay = 200;
                 }
-                initGame(); // initGame内部已处理timer启动
-                isPaused = false;
+                initGame(); // initGame内部已处理模拟线程启动
+                setPaused(false);
             }
         } else {
             dispose();
@@ -223,88 +205,145 @@ public class SnakeGame extends JFrame {
         setFocusable(true);
     }
 
-    private void generateFood() {
-        Random random = new Random();
-        Point newFood;
-        do {
-            newFood = new Point(random.nextInt(BOARD_SIZE), random.nextInt(BOARD_SIZE));
-        } while (snake.contains(newFood));
-        food = newFood;
+    /**
+     * 按键方向排队（倒计时和自动驾驶期间忽略；与最后排队的方向相同或相反时由队列丢弃）
+     */
+    private void queueDirection(int direction) {
+        if (countdown <= 0 && !autopilot) inputs.offer(direction, System.nanoTime());
+    }
+
+    /**
+     * 切换自动驾驶（切回手动时以蛇当前的方向为准，开启期间残留的按键由模拟线程丢弃）
+     */
+    private void toggleAutopilot() {
+        autopilot = !autopilot;
+        if (!autopilot) inputs.setLast(movingDirection);
+    }
+
+    /**
+     * 暂停或继续（继续时唤醒模拟线程）
+     * @param paused true表示暂停
+     */
+    private void setPaused(boolean paused) {
+        isPaused = paused;
+        if (!paused && loop != null) loop.wake();
     }
 
-    private void generateBlackFood() {
-        Random random = new Random();
-        Point newBlackFood;
-        do {
-            newBlackFood = new Point(random.nextInt(BOARD_SIZE), random.nextInt(BOARD_SIZE));
-        } while (snake.contains(newBlackFood) || newBlackFood.equals(food));
-        blackFood = newBlackFood;
+    /**
+     * 模拟线程调用：把一步的变化记录交给界面线程（多步只安排一次处理）
+     */
+    private void publish(SnakeEngine.Tick tick) {
+        ticks.add(tick);
+        if (drainScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::drainTicks);
+        }
     }
 
     /**
-     * 游戏核心移动逻辑：更新蛇的位置、检测碰撞、处理食物交互
-     * 1. 更新移动方向（避免反向移动）
-     * 2. 计算新头部坐标
-     * 3. 检测边界碰撞和自碰撞
-     * 4. 根据是否吃到食物决定是否增长蛇身
-     * 5. 处理黑色食物特殊逻辑（缩短蛇身并扣分）
+     * 界面线程：按顺序处理积压的变化记录，然后重绘；游戏结束时弹出结束对话框
      */
-    private void move() {
-        // 更新当前方向为临时方向（避免连续按键丢失）
-        if (nextDirection != direction) {
-            direction = nextDirection;
+    private void drainTicks() {
+        drainScheduled.set(false);
+        SnakeEngine.Tick tick;
+        SnakeEngine.Tick last = null;
+        while ((tick = ticks.poll()) != null) {
+            apply(tick);
+            last = tick;
         }
-        Point head = snake.get(0);
-        Point newHead = new Point();
-        switch (direction) {
-            case UP: newHead.setLocation(head.x, head.y - 1); break;
-            case DOWN: newHead.setLocation(head.x, head.y + 1); break;
-            case LEFT: newHead.setLocation(head.x - 1, head.y); break;
-            case RIGHT: newHead.setLocation(head.x + 1, head.y); break;
+        if (last == null) return;
+        followHead();
+        flushRepaint();
+        if (last.status == SnakeEngine.DEAD) {
+            gameOver("游戏结束！得分：" + score);
+        } else if (last.status == SnakeEngine.WON) {
+            gameOver("恭喜！蛇已占满整个棋盘！得分：" + score);
         }
+    }
 
-        // 碰撞检测
-        if (newHead.x < 0 || newHead.x >= BOARD_SIZE || newHead.y < 0 || newHead.y >= BOARD_SIZE
-                || snake.contains(newHead)) {
-            gameOver();
-            return;
+    /**
+     * 把一步的变化重放到界面线程的蛇身镜像上，并记录需要重绘的格子（新头部、空出的尾部、食物）
+     */
+    private void apply(SnakeEngine.Tick tick) {
+        if (snake == null) snake = new SnakeBody(boardSize * boardSize);
+        if (tick.body != null) {
+            snake.clear();
+            for (int cell : tick.body) snake.addTail(cell);
+            fullRepaint = true;
+        }
+        if (tick.head >= 0) {
+            snake.addHead(tick.head);
+            markDirty(tick.head);
         }
+        for (int i = 0; i < tick.removed; i++) markDirty(snake.removeTail());
+        if (tick.food != food || tick.blackFood != blackFood) {
+            // 黑色食物显示时普通食物不画，两者任一变化都要重绘两处
+            markDirty(food);
+            markDirty(blackFood);
+            markDirty(tick.food);
+            markDirty(tick.blackFood);
+        }
+        food = tick.food;
+        blackFood = tick.blackFood;
+        score = tick.score;
+    }
 
-        snake.add(0, newHead);
-        if (newHead.equals(food)) {
-            score++; // 分数增加
-            // 检查是否需要加速
-            if (score % 10 == 0) {
-                difficultyDelay = Math.max(difficultyDelay - 20, 50); // 最小延迟50ms
-                timer.setDelay(difficultyDelay);
-            }
-            generateFood();
-        } else if (newHead.equals(blackFood) && isBlackFoodActive) {
-            // 处理黑色食物碰撞
-            int newLength = snake.size() / 2;
-            if (newLength < 4) {
-                gameOver();
-                return;
-            }
-            // 截断蛇的长度
-            while (snake.size() > newLength) {
-                snake.remove(snake.size() - 1);
-            }
-            score = (int) (score * 0.4); // 扣除60%分数
-            isBlackFoodActive = false; // 隐藏黑色食物
+    /**
+     * 蛇头接近视口边缘时滚动视口（滚动时整体重绘视口，开销只与视口大小有关）
+     */
+    private void followHead() {
+        if (snake.length() == 0) return;
+        int x = snake.head() % boardSize;
+        int y = snake.head() / boardSize;
+        int margin = Math.min(CAMERA_MARGIN, viewSize / 3);
+        int newX = clampCamera(Math.min(Math.max(cameraX, x + margin + 1 - viewSize), x - margin));
+        int newY = clampCamera(Math.min(Math.max(cameraY, y + margin + 1 - viewSize), y - margin));
+        if (newX != cameraX || newY != cameraY) {
+            cameraX = newX;
+            cameraY = newY;
+            fullRepaint = true;
+        }
+    }
+
+    private int clampCamera(int value) {
+        return Math.max(0, Math.min(value, boardSize - viewSize));
+    }
+
+    private void markDirty(int cell) {
+        if (cell < 0) return;
+        if (dirtyCount < dirtyCells.length) {
+            dirtyCells[dirtyCount++] = cell;
+        } else {
+            fullRepaint = true;
+        }
+    }
+
+    /**
+     * 重绘变化的格子：每个格子单独立即重绘（RepaintManager会把分散的repaint合并成一个大矩形，
+     * 头尾相距很远时几乎等于整块重绘），格子太多或新的一局时整体重绘
+     */
+    private void flushRepaint() {
+        if (fullRepaint || gamePanel == null) {
+            if (gamePanel != null) gamePanel.repaint();
         } else {
-            snake.remove(snake.size() - 1);
+            Rectangle rect = new Rectangle(0, 0, CELL_SIZE, CELL_SIZE);
+            for (int i = 0; i < dirtyCount; i++) {
+                int x = dirtyCells[i] % boardSize - cameraX;
+                int y = dirtyCells[i] / boardSize - cameraY;
+                if (x < 0 || x >= viewSize || y < 0 || y >= viewSize) continue; // 视口外的格子不用画
+                rect.setLocation(x * CELL_SIZE, y * CELL_SIZE);
+                gamePanel.paintImmediately(rect);
+            }
         }
-        repaint();
+        dirtyCount = 0;
+        fullRepaint = false;
     }
 
     /**
-     * 游戏结束处理逻辑：停止计时器、显示得分、提供重新开始/返回主页选项
+     * 游戏结束处理逻辑：显示得分、提供重新开始/返回主页选项（模拟线程此时已经结束）
+     * @param message 结束提示（失败或占满棋盘获胜）
      */
-    private void gameOver() {
-        isRunning = false;
-        timer.stop();
-        JOptionPane.showMessageDialog(this, "游戏结束！得分：" + score, "提示", JOptionPane.INFORMATION_MESSAGE);
+    private void gameOver(String message) {
+        JOptionPane.showMessageDialog(this, message, "提示", JOptionPane.INFORMATION_MESSAGE);
         Object[] options = {"重新开始", "返回主页"};
         int choice = JOptionPane.showOptionDialog(this, "是否重新开始？", "提示",
                 JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE, null, options, options[0]);
@@ -319,7 +358,6 @@ public class SnakeGame extends JFrame {
                     default: difficultyDelay = 200;
                 }
                 initGame();
-                timer.start();
             }
         } else {
             dispose();
@@ -328,21 +366,239 @@ public class SnakeGame extends JFrame {
     }
 
     /**
-     * 移动方向枚举类，定义上下左右四个方向
+     * 关闭窗口时停止模拟线程、状态刷新和倒计时
+     */
+    @Override
+    public void dispose() {
+        if (loop != null) loop.stop();
+        if (scoreUpdateTimer != null) scoreUpdateTimer.stop();
+        if (countdownTimer != null) countdownTimer.stop();
+        super.dispose();
+    }
+
+    /**
+     * 游戏主面板：网格预先画在缓存的背景图（VolatileImage，显存丢失时重画）上，
+     * 每次只绘制视口中裁剪区域内的格子，绘制开销与蛇长和场地大小无关
      */
-    private enum Direction {
-        UP, DOWN, LEFT, RIGHT
+    private class BoardPanel extends JPanel {
+        private VolatileImage background;
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            drawBackground(g);
+            // 只检查裁剪区域内的格子
+            int x0 = Math.max(clip.x / CELL_SIZE, 0);
+            int y0 = Math.max(clip.y / CELL_SIZE, 0);
+            int x1 = Math.min((clip.x + clip.width - 1) / CELL_SIZE, viewSize - 1);
+            int y1 = Math.min((clip.y + clip.height - 1) / CELL_SIZE, viewSize - 1);
+            // 绘制蛇
+            g.setColor(Color.GREEN);
+            for (int y = y0; y <= y1; y++) {
+                int rowStart = (cameraY + y) * boardSize + cameraX;
+                for (int x = x0; x <= x1; x++) {
+                    if (snake.contains(rowStart + x)) {
+                        g.fillRect(x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE - 1, CELL_SIZE - 1);
+                    }
+                }
+            }
+            // 绘制食物
+            if (blackFood >= 0) {
+                g.setColor(Color.BLACK);
+                fillCellOval(g, blackFood);
+            } else if (food >= 0) {
+                g.setColor(Color.RED);
+                fillCellOval(g, food);
+            }
+
+            // 绘制倒计时
+            if (countdown > 0) {
+                g.setFont(COUNTDOWN_FONT);
+                g.setColor(Color.BLUE);
+                String text = String.valueOf(countdown);
+                // 计算文本居中位置
+                FontMetrics fm = g.getFontMetrics();
+                int x = (viewSize * CELL_SIZE - fm.stringWidth(text)) / 2;
+                int y = (viewSize * CELL_SIZE + fm.getAscent()) / 2;
+                g.drawString(text, x, y);
+            }
+        }
+
+        /**
+         * 在场地格子处画圆（不在视口内时不画）
+         */
+        private void fillCellOval(Graphics g, int cell) {
+            int x = cell % boardSize - cameraX;
+            int y = cell / boardSize - cameraY;
+            if (x < 0 || x >= viewSize || y < 0 || y >= viewSize) return;
+            g.fillOval(x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE - 1, CELL_SIZE - 1);
+        }
+
+        /**
+         * 绘制缓存的网格背景（首次使用、显卡配置变化或显存内容丢失时重新生成）
+         */
+        private void drawBackground(Graphics g) {
+            int size = viewSize * CELL_SIZE + 1;
+            do {
+                int state = background == null ? VolatileImage.IMAGE_INCOMPATIBLE
+                        : background.validate(getGraphicsConfiguration());
+                if (state == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    background = createVolatileImage(size, size);
+                    if (background == null) return; // 尚未显示
+                    renderBackground();
+                } else if (state == VolatileImage.IMAGE_RESTORED) {
+                    renderBackground();
+                }
+                g.drawImage(background, 0, 0, null);
+            } while (background.contentsLost());
+        }
+
+        private void renderBackground() {
+            Graphics2D g = background.createGraphics();
+            g.setColor(getBackground());
+            g.fillRect(0, 0, background.getWidth(), background.getHeight());
+            // 绘制棋盘
+            g.setColor(Color.BLACK);
+            for (int i = 0; i <= viewSize; i++) {
+                g.drawLine(i * CELL_SIZE, 0, i * CELL_SIZE, viewSize * CELL_SIZE);
+                g.drawLine(0, i * CELL_SIZE, viewSize * CELL_SIZE, i * CELL_SIZE);
+            }
+            g.dispose();
+        }
     }
 
     /**
-     * 游戏主循环监听器，控制游戏定时移动（通过Timer触发）
+     * 模拟线程：固定时间步长推进规则引擎
+     * 下一步的时间 = 上一步的计划时间 + 当前移动间隔（不累积误差，加速后立即按新间隔计算），
+     * 并统计实际执行时间相对计划时间的延迟（节拍抖动）。
      */
-    private class GameLoop implements ActionListener {
+    private class SimulationLoop implements Runnable {
+        private final Thread thread = new Thread(this, "snake-simulation");
+        private volatile boolean stopped = false;
+        /** 已执行步数（以下统计只由模拟线程写入） */
+        private volatile long tickCount = 0;
+        /** 延迟总和（纳秒） */
+        private volatile long jitterSum = 0;
+        /** 最大延迟（纳秒） */
+        private volatile long jitterMax = 0;
+        /** 自动驾驶决策次数 */
+        private volatile long planCount = 0;
+        /** 自动驾驶决策耗时总和（纳秒） */
+        private volatile long planSum = 0;
+        /** 自动驾驶最大决策耗时（纳秒） */
+        private volatile long planMax = 0;
+        /** 生效的按键数 */
+        private volatile long inputCount = 0;
+        /** 按键到移动的延迟总和（纳秒） */
+        private volatile long inputLatencySum = 0;
+        /** 按键到移动的最大延迟（纳秒） */
+        private volatile long inputLatencyMax = 0;
+
+        void start() {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /** 唤醒等待中的模拟线程（继续游戏或停止时调用） */
+        void wake() {
+            LockSupport.unpark(thread);
+        }
+
+        /** 停止模拟线程并等待其结束 */
+        void stop() {
+            stopped = true;
+            wake();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
         @Override
-        public void actionPerformed(ActionEvent e) {
-            if (isRunning && !isPaused) {
-                move();
+        public void run() {
+            long next = 0;
+            boolean scheduled = false;
+            while (!stopped) {
+                if (isPaused) {
+                    // 暂停期间不推进游戏时间，继续后从当前时刻重新排期
+                    LockSupport.park(this);
+                    scheduled = false;
+                    continue;
+                }
+                if (!scheduled) {
+                    next = System.nanoTime();
+                    scheduled = true;
+                }
+                if (!waitUntil(next)) continue;
+                long lateness = System.nanoTime() - next;
+                int direction = inputs.poll(); // 每步最多执行一个按键
+                boolean manual = !autopilot;
+                if (!manual) {
+                    long planStart = System.nanoTime();
+                    direction = pilot.chooseMove(engine);
+                    recordPlan(System.nanoTime() - planStart);
+                }
+                int status = engine.step(direction);
+                movingDirection = engine.direction();
+                if (manual && direction >= 0) recordInput(System.nanoTime() - inputs.polledAt());
+                publish(engine.tick());
+                recordJitter(lateness);
+                if (status != SnakeEngine.RUNNING) break;
+                next += engine.delayMs() * 1_000_000L;
+            }
+        }
+
+        /**
+         * 等待到指定时刻（先休眠，最后1ms自旋）
+         * @return false表示等待期间被暂停或停止
+         */
+        private boolean waitUntil(long deadline) {
+            while (true) {
+                if (stopped || isPaused) return false;
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) return true;
+                if (remaining > SPIN_NANOS) {
+                    LockSupport.parkNanos(this, remaining - SPIN_NANOS);
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+
+        private void recordJitter(long lateness) {
+            tickCount++;
+            jitterSum += lateness;
+            if (lateness > jitterMax) jitterMax = lateness;
+        }
+
+        private void recordPlan(long nanos) {
+            planCount++;
+            planSum += nanos;
+            if (nanos > planMax) planMax = nanos;
+        }
+
+        private void recordInput(long latency) {
+            inputCount++;
+            inputLatencySum += latency;
+            if (latency > inputLatencyMax) inputLatencyMax = latency;
+        }
+
+        /** @return 节拍抖动（以及按键延迟、自动驾驶决策耗时）统计文本（界面线程定时调用） */
+        String formatJitter() {
+            long count = tickCount;
+            if (count == 0) return "";
+            String text = String.format("节拍延迟 平均%.2fms 最大%.2fms", jitterSum / 1e6 / count, jitterMax / 1e6);
+            long keys = inputCount;
+            if (keys > 0) {
+                text += String.format("  按键到移动 平均%.1fms 最大%.1fms", inputLatencySum / 1e6 / keys, inputLatencyMax / 1e6);
             }
+            long plans = planCount;
+            if (plans == 0) return text;
+            return text + String.format("  决策 平均%.2fms 最大%.2fms", planSum / 1e6 / plans, planMax / 1e6);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,220 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * 多人贪吃蛇服务器本机压力测试（命令行入口）
+ * 用法：java SnakeLoadTest [客户端数] [秒数] [场地边长] [每步毫秒] [随机种子]
+ * 在本进程中启动SnakeServer（127.0.0.1，系统分配端口），再用一个Selector线程模拟多个客户端：
+ * 每个客户端随机转向，按协议解码快照和增量并维护自己的占用表副本。
+ * 统计每步服务器耗时、下行带宽、从服务器开始推进到客户端解码完成的延迟（同一进程内nanoTime可比），
+ * 结束后把每个客户端的占用表副本与服务器的最终状态逐格比较。
+ */
+public class SnakeLoadTest {
+    /** 每步每个客户端转向的概率（1/N） */
+    private static final int TURN_ODDS = 4;
+
+    /**
+     * 命令行入口
+     * @param args [客户端数] [秒数] [场地边长] [每步毫秒] [随机种子]
+     * @throws Exception 网络错误或被中断
+     */
+    public static void main(String[] args) throws Exception {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 128;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int boardSize = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int tickMs = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        System.out.println("客户端: " + clientCount + "  时长: " + seconds + "秒  场地: " + boardSize + "x" + boardSize
+                + "  每步: " + tickMs + "ms  种子: " + seed);
+
+        SnakeServer server = new SnakeServer(0, boardSize, clientCount, tickMs, seed);
+        Thread serverThread = new Thread(server, "snake-server");
+        serverThread.start();
+
+        SplittableRandom random = new SplittableRandom(seed);
+        LogHistogram latency = new LogHistogram();
+        Selector selector = Selector.open();
+        Client[] clients = new Client[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.port()));
+            channel.socket().setTcpNoDelay(true);
+            channel.configureBlocking(false);
+            clients[i] = new Client(channel);
+            channel.register(selector, SelectionKey.OP_READ, clients[i]);
+        }
+        // 等服务器接受全部连接后再开始计时（之前积压的增量不计入延迟）
+        while (server.clientCount() < clientCount && serverThread.isAlive()) {
+            Thread.sleep(1);
+        }
+
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long nextTurn = start;
+        long bytesReceived = 0;
+        ByteBuffer command = ByteBuffer.allocate(1);
+        int open = clientCount;
+        boolean stopping = false;
+        while (open > 0) {
+            long now = System.nanoTime();
+            if (!stopping && now >= end) {
+                // 停止服务器：它会关闭所有连接，客户端读完剩余数据后退出循环
+                server.stop();
+                stopping = true;
+            }
+            if (!stopping && now >= nextTurn) {
+                for (Client client : clients) {
+                    if (client.channel.isOpen() && random.nextInt(TURN_ODDS) == 0) {
+                        command.clear();
+                        command.put((byte) random.nextInt(4));
+                        command.flip();
+                        client.channel.write(command);
+                    }
+                }
+                nextTurn += tickMs * 1_000_000L;
+            }
+            selector.select(Math.max(1, tickMs / 2));
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                Client client = (Client) key.attachment();
+                int n;
+                try {
+                    n = client.read(latency, start);
+                } catch (IOException e) {
+                    n = -1;
+                }
+                if (n < 0) {
+                    key.cancel();
+                    client.channel.close();
+                    open--;
+                } else {
+                    bytesReceived += n;
+                }
+            }
+        }
+        serverThread.join();
+        selector.close();
+        if (server.failure() != null) throw new IOException("服务器异常停止", server.failure());
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        // 服务器已停止，可以安全读取它的最终状态
+        SnakeArena arena = server.arena();
+        int area = arena.width() * arena.height();
+        int upToDate = 0;
+        int matched = 0;
+        for (Client client : clients) {
+            if (client.tick != arena.tickCount()) continue;
+            upToDate++;
+            boolean same = true;
+            for (int cell = 0; cell < area && same; cell++) {
+                same = client.grid[cell] == SnakeServer.code(arena.owner(cell));
+            }
+            if (same) matched++;
+        }
+        long ticks = server.tickCount();
+        LogHistogram tickCost = server.tickCost();
+        System.out.printf("服务器: %d 步  每步耗时 P50=%.1f微秒 P99=%.1f微秒  断开慢客户端 %d%n",
+                ticks, tickCost.percentile(0.5) / 1e3, tickCost.percentile(0.99) / 1e3, server.slowClientsDropped());
+        System.out.printf("下行: 共 %.1f KB  %.1f KB/秒  每客户端每步 %.1f 字节%n",
+                server.bytesSent() / 1024.0, server.bytesSent() / 1024.0 / elapsed,
+                (double) bytesReceived / Math.max(ticks, 1) / clientCount);
+        System.out.printf("推进到客户端解码的延迟: P50=%.2fms P99=%.2fms P99.9=%.2fms%n",
+                latency.percentile(0.5) / 1e6, latency.percentile(0.99) / 1e6, latency.percentile(0.999) / 1e6);
+        System.out.println("校验: " + matched + "/" + upToDate + " 个收到最后一步的客户端与服务器最终状态逐格一致");
+    }
+
+    /**
+     * 一个模拟客户端：按协议拆帧并重放快照和增量
+     */
+    private static final class Client {
+        final SocketChannel channel;
+        /** 接收缓冲区（写模式） */
+        ByteBuffer in = ByteBuffer.allocate(64 << 10);
+        /** 占用表副本（值为占用码） */
+        int[] grid = new int[0];
+        /** 已应用的最后一步 */
+        long tick = -1;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * 读取并处理所有完整的消息
+         * @param latency 延迟统计
+         * @param measureFrom 只统计服务器在此时刻之后推进的步
+         * @return 读到的字节数，连接关闭时返回-1
+         */
+        int read(LogHistogram latency, long measureFrom) throws IOException {
+            if (!in.hasRemaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+                in.flip();
+                bigger.put(in);
+                in = bigger;
+            }
+            int n = channel.read(in);
+            if (n <= 0) return n;
+            in.flip();
+            while (true) {
+                int frameStart = in.position();
+                if (!hasVarint(in, frameStart + 1)) break;
+                byte type = in.get();
+                int length = SnakeServer.getVarint(in);
+                if (in.remaining() < length) {
+                    in.position(frameStart);
+                    break;
+                }
+                int payloadEnd = in.position() + length;
+                if (type == SnakeServer.MSG_SNAPSHOT) {
+                    applySnapshot();
+                } else if (type == SnakeServer.MSG_TICK) {
+                    applyTick(latency, measureFrom);
+                }
+                in.position(payloadEnd);
+            }
+            in.compact();
+            return n;
+        }
+
+        private void applySnapshot() {
+            int width = SnakeServer.getVarint(in);
+            int height = SnakeServer.getVarint(in);
+            SnakeServer.getVarint(in); // 自己的蛇编号
+            tick = SnakeServer.getVarint(in);
+            grid = new int[width * height];
+            int count = SnakeServer.getVarint(in);
+            for (int i = 0; i < count; i++) {
+                int cell = SnakeServer.getVarint(in);
+                grid[cell] = SnakeServer.getVarint(in);
+            }
+        }
+
+        private void applyTick(LogHistogram latency, long measureFrom) {
+            tick = SnakeServer.getVarint(in);
+            long sentAt = in.getLong();
+            int count = SnakeServer.getVarint(in);
+            for (int i = 0; i < count; i++) {
+                int cell = SnakeServer.getVarint(in);
+                grid[cell] = SnakeServer.getVarint(in);
+            }
+            if (sentAt >= measureFrom) latency.record(System.nanoTime() - sentAt);
+        }
+
+        /**
+         * @return 从from开始是否已有一个完整的变长整数
+         */
+        private static boolean hasVarint(ByteBuffer buffer, int from) {
+            for (int i = from; i < buffer.limit(); i++) {
+                if ((buffer.get(i) & 0x80) == 0) return true;
+            }
+            return false;
+        }
+    }
+}
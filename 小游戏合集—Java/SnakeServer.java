@@ -0,0 +1,415 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * 多人贪吃蛇服务器（单线程NIO Selector）
+ * 用法：java SnakeServer [端口] [场地边长] [蛇数] [每步毫秒]
+ * 服务器以SnakeArena为权威状态按固定节拍推进，每个连接的客户端接管一条蛇，空位由电脑控制。
+ * 新连接先收到一次完整快照，之后每步只收到增量：本步改动过的格子及其新的占用值
+ * （加头、去尾、死亡清空、食物移动都表现为格子改动），整块场地从不重复发送。
+ *
+ * 协议（所有整数为无符号变长编码，每字节低7位有效、最高位表示后面还有）：
+ * 服务器 → 客户端，每条消息为 [类型1字节][内容长度][内容]：
+ *   快照 SNAPSHOT：宽、高、你的蛇编号、步数、格子数，随后每个非空格子为（格子编号、占用码）
+ *   增量 TICK：步数、服务器发送时刻（8字节System.nanoTime()，只用于本机测延迟）、改动数，随后每个改动为（格子编号、占用码）
+ *   占用码：0为空格，1为食物，n+2为第n条蛇
+ * 客户端 → 服务器：每个字节是一个方向（SnakeEngine.UP等），下一步生效，反方向被忽略。
+ */
+public class SnakeServer implements Runnable {
+    /** 消息类型：完整快照 */
+    public static final byte MSG_SNAPSHOT = 1;
+    /** 消息类型：一步的增量 */
+    public static final byte MSG_TICK = 2;
+    /** 占用码：空格 */
+    public static final int CODE_EMPTY = 0;
+    /** 占用码：食物 */
+    public static final int CODE_FOOD = 1;
+    /** 占用码：蛇编号的偏移 */
+    public static final int CODE_SNAKE = 2;
+    /** 每个客户端积压的待发送数据上限（超过说明客户端太慢，断开） */
+    private static final int MAX_BACKLOG = 4 << 20;
+    /** 每个客户端发送缓冲区的初始大小 */
+    private static final int INITIAL_OUT_SIZE = 64 << 10;
+
+    /** 权威状态（只由服务器线程访问） */
+    private final SnakeArena arena;
+    /** 每步间隔（纳秒） */
+    private final long tickNanos;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    /** 各蛇对应的连接（null表示由电脑控制） */
+    private final Client[] owners;
+    /** 本步增量的内容 */
+    private ByteBuffer tickPayload = ByteBuffer.allocate(INITIAL_OUT_SIZE);
+    /** 本步增量消息（编码一次，复制给所有客户端） */
+    private ByteBuffer tickMessage = ByteBuffer.allocate(INITIAL_OUT_SIZE);
+    /** 读取客户端方向用的缓冲区 */
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(256);
+    private volatile boolean stopped;
+    /** 服务器线程因网络错误停止时的异常（正常停止时为null） */
+    private volatile IOException failure;
+    /** 以下统计只由服务器线程写入 */
+    private volatile int clients;
+    private volatile long ticks;
+    private volatile long bytesSent;
+    private volatile long slowClientsDropped;
+    /** 每步耗时分布（推进+编码+发送，纳秒；只由服务器线程写入，停止后读取） */
+    private final LogHistogram tickCost = new LogHistogram();
+
+    /**
+     * 创建服务器并监听127.0.0.1上的端口
+     * @param port 端口（0表示由系统分配）
+     * @param boardSize 场地边长
+     * @param slots 蛇的条数（最多同时连接的客户端数）
+     * @param tickMs 每步间隔（毫秒）
+     * @param seed 随机种子
+     * @throws IOException 监听失败
+     */
+    public SnakeServer(int port, int boardSize, int slots, int tickMs, long seed) throws IOException {
+        arena = new SnakeArena(boardSize, boardSize, slots, slots, 1, seed);
+        tickNanos = tickMs * 1_000_000L;
+        owners = new Client[slots];
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("127.0.0.1", port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /** @return 实际监听的端口 */
+    public int port() {
+        return ((InetSocketAddress) serverChannel.socket().getLocalSocketAddress()).getPort();
+    }
+
+    /**
+     * 服务器线程主循环：在两步之间处理网络事件，到时间就推进一步并广播
+     * 选择器出错时关闭所有连接并结束，异常保存在failure()中供启动它的线程检查
+     */
+    @Override
+    public void run() {
+        long next = System.nanoTime() + tickNanos;
+        try {
+            while (!stopped) {
+                long remaining = next - System.nanoTime();
+                if (remaining > 0) {
+                    selector.select(Math.max(1, remaining / 1_000_000L));
+                } else {
+                    selector.selectNow();
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    handle(key);
+                }
+                if (System.nanoTime() - next >= 0) {
+                    tick();
+                    next += tickNanos;
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            for (Client client : owners) {
+                if (client != null) closeQuietly(client);
+            }
+            try {
+                selector.close();
+                serverChannel.close();
+            } catch (IOException ignored) {
+            }
+            arena.close();
+        }
+    }
+
+    /**
+     * 停止服务器线程（关闭所有连接）
+     */
+    public void stop() {
+        stopped = true;
+        selector.wakeup();
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid()) return;
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Client client = (Client) key.attachment();
+        try {
+            if (key.isReadable()) read(client);
+            if (key.isValid() && key.isWritable()) flush(client);
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    /**
+     * 接受新连接：分配一条由电脑控制的蛇交给它，发送完整快照（没有空位时直接断开）
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        int id = 0;
+        while (id < owners.length && owners[id] != null) id++;
+        if (id == owners.length) {
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Client client = new Client(channel, id);
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+        owners[id] = client;
+        clients++;
+        arena.setAutopilot(id, false);
+        ByteBuffer snapshot = encodeSnapshot(id);
+        send(client, snapshot);
+    }
+
+    /**
+     * 读取方向字节（一步之内多次按键以最后一个为准）
+     */
+    private void read(Client client) throws IOException {
+        readBuffer.clear();
+        int n = client.channel.read(readBuffer);
+        if (n < 0) {
+            disconnect(client);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            int direction = readBuffer.get(i);
+            if (direction >= 0 && direction < 4) arena.setDirection(client.id, direction);
+        }
+    }
+
+    /**
+     * 推进一步，把增量编码一次后复制给每个客户端
+     */
+    private void tick() {
+        long start = System.nanoTime();
+        arena.tick();
+        encodeTick(start);
+        for (Client client : owners) {
+            if (client != null) send(client, tickMessage);
+        }
+        ticks++;
+        tickCost.record(System.nanoTime() - start);
+    }
+
+    /**
+     * 把消息追加到客户端的发送缓冲区并尽量立即写出（写不完时等待OP_WRITE）
+     */
+    private void send(Client client, ByteBuffer message) {
+        ByteBuffer out = client.out;
+        if (out.remaining() < message.remaining()) {
+            int needed = out.position() + message.remaining();
+            if (needed > MAX_BACKLOG) {
+                slowClientsDropped++;
+                disconnect(client);
+                return;
+            }
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(needed, out.capacity() * 2));
+            out.flip();
+            bigger.put(out);
+            client.out = out = bigger;
+        }
+        int position = message.position();
+        out.put(message);
+        message.position(position); // 同一条消息还要复制给其他客户端
+        try {
+            flush(client);
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    private void flush(Client client) throws IOException {
+        ByteBuffer out = client.out;
+        out.flip();
+        bytesSent += client.channel.write(out);
+        boolean pending = out.hasRemaining();
+        out.compact();
+        if (client.key.isValid()) {
+            client.key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * 断开连接，这条蛇交还电脑控制
+     */
+    private void disconnect(Client client) {
+        if (owners[client.id] != client) return;
+        owners[client.id] = null;
+        clients--;
+        arena.setAutopilot(client.id, true);
+        closeQuietly(client);
+    }
+
+    private void closeQuietly(Client client) {
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private ByteBuffer encodeSnapshot(int id) {
+        int area = arena.width() * arena.height();
+        int count = 0;
+        for (int cell = 0; cell < area; cell++) {
+            if (arena.owner(cell) != SnakeArena.EMPTY) count++;
+        }
+        // 每个格子最多10字节（两个变长整数），外加头部
+        ByteBuffer payload = ByteBuffer.allocate(32 + count * 10);
+        putVarint(payload, arena.width());
+        putVarint(payload, arena.height());
+        putVarint(payload, id);
+        putVarint(payload, arena.tickCount());
+        putVarint(payload, count);
+        for (int cell = 0; cell < area; cell++) {
+            int owner = arena.owner(cell);
+            if (owner == SnakeArena.EMPTY) continue;
+            putVarint(payload, cell);
+            putVarint(payload, code(owner));
+        }
+        payload.flip();
+        ByteBuffer message = ByteBuffer.allocate(payload.remaining() + 6);
+        message.put(MSG_SNAPSHOT);
+        putVarint(message, payload.remaining());
+        message.put(payload);
+        message.flip();
+        return message;
+    }
+
+    /**
+     * 编码本步增量到tickMessage（复用缓冲区，只有改动特别多时才扩容）
+     */
+    private void encodeTick(long sentAt) {
+        int count = arena.changeCount();
+        int maxSize = 32 + count * 10;
+        if (tickPayload.capacity() < maxSize) {
+            tickPayload = ByteBuffer.allocate(maxSize * 2);
+            tickMessage = ByteBuffer.allocate(maxSize * 2 + 6);
+        }
+        ByteBuffer payload = tickPayload;
+        payload.clear();
+        putVarint(payload, arena.tickCount());
+        payload.putLong(sentAt);
+        putVarint(payload, count);
+        for (int i = 0; i < count; i++) {
+            putVarint(payload, arena.changedCell(i));
+            putVarint(payload, code(arena.changedOwner(i)));
+        }
+        payload.flip();
+        tickMessage.clear();
+        tickMessage.put(MSG_TICK);
+        putVarint(tickMessage, payload.remaining());
+        tickMessage.put(payload);
+        tickMessage.flip();
+    }
+
+    static int code(int owner) {
+        if (owner == SnakeArena.EMPTY) return CODE_EMPTY;
+        return owner < SnakeArena.EMPTY ? CODE_FOOD : owner + CODE_SNAKE;
+    }
+
+    /**
+     * 写入无符号变长整数
+     */
+    static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * 读取无符号变长整数
+     */
+    static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+
+    /** @return 当前连接数 */
+    public int clientCount() {
+        return clients;
+    }
+
+    /** @return 已推进的步数 */
+    public long tickCount() {
+        return ticks;
+    }
+
+    /** @return 已发送的字节数 */
+    public long bytesSent() {
+        return bytesSent;
+    }
+
+    /** @return 因积压太多被断开的客户端数 */
+    public long slowClientsDropped() {
+        return slowClientsDropped;
+    }
+
+    /** @return 服务器线程因网络错误停止时的异常，正常停止或仍在运行时为null（线程结束后读取） */
+    public IOException failure() {
+        return failure;
+    }
+
+    /** @return 每步耗时分布（纳秒，服务器停止后读取） */
+    LogHistogram tickCost() {
+        return tickCost;
+    }
+
+    /** @return 权威状态（服务器停止后用于校验） */
+    SnakeArena arena() {
+        return arena;
+    }
+
+    /**
+     * 命令行入口
+     * @param args [端口] [场地边长] [蛇数] [每步毫秒]
+     * @throws IOException 监听失败或服务器因网络错误停止
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9527;
+        int boardSize = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int slots = args.length > 2 ? Integer.parseInt(args[2]) : 128;
+        int tickMs = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        SnakeServer server = new SnakeServer(port, boardSize, slots, tickMs, System.nanoTime());
+        System.out.println("贪吃蛇服务器监听 127.0.0.1:" + server.port() + "  场地: " + boardSize + "x" + boardSize
+                + "  蛇数: " + slots + "  每步: " + tickMs + "ms");
+        server.run();
+        if (server.failure() != null) throw server.failure();
+    }
+
+    /**
+     * 一个客户端连接
+     */
+    private static final class Client {
+        final SocketChannel channel;
+        /** 控制的蛇编号 */
+        final int id;
+        SelectionKey key;
+        /** 待发送的数据（写模式） */
+        ByteBuffer out = ByteBuffer.allocate(INITIAL_OUT_SIZE);
+
+        Client(SocketChannel channel, int id) {
+            this.channel = channel;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+/**
+ * 贪吃蛇批量强化学习环境（无界面，Gym风格）
+ * 同时推进N个相互独立的SnakeEngine（规则与界面完全相同，包括每10分加速和黑色食物减半），
+ * 动作、奖励、结束标志都是基本类型数组，观测写入调用方提供并反复使用的float[]或ByteBuffer。
+ * 观测布局：[环境][通道][格子]，通道依次为身体、头部、普通食物、黑色食物，值为0或1。
+ * 连续传入同一个观测缓冲区时只改写每步变化的几个格子，预热之后每步不分配任何对象；
+ * 某个环境结束后立即自动开始新的一局，观测中是新一局的初始状态。
+ * 环境按连续区间由SlicePool分给常驻工作线程（调用线程自己处理第一段）。
+ * 一个实例只能被一个线程调用。
+ */
+public class SnakeVecEnv implements AutoCloseable {
+    /** 观测通道数 */
+    public static final int CHANNELS = 4;
+    /** 通道：身体（包括头部） */
+    public static final int CHANNEL_BODY = 0;
+    /** 通道：头部 */
+    public static final int CHANNEL_HEAD = 1;
+    /** 通道：普通食物 */
+    public static final int CHANNEL_FOOD = 2;
+    /** 通道：显示中的黑色食物 */
+    public static final int CHANNEL_BLACK_FOOD = 3;
+    /** 结束标志：未结束 */
+    public static final byte RUNNING = 0;
+    /** 结束标志：撞死 */
+    public static final byte DEAD = 1;
+    /** 结束标志：占满棋盘 */
+    public static final byte WON = 2;
+    /** 结束标志：长时间吃不到食物被截断 */
+    public static final byte TRUNCATED = 3;
+    /** 撞死的奖励（其余情况奖励等于分数变化：吃到食物+1，黑色食物扣掉的分数为负） */
+    public static final float DEATH_REWARD = -1f;
+    /** 连续多少倍格子数的步数吃不到食物就截断（防止策略原地绕圈） */
+    private static final int STALL_FACTOR = 4;
+
+    /** 各环境的规则引擎 */
+    private final SnakeEngine[] engines;
+    /** 各环境连续没吃到食物的步数 */
+    private final int[] sinceFood;
+    /** 棋盘格子数 */
+    private final int area;
+    /** 初始移动间隔（毫秒，只影响黑色食物周期的游戏时间） */
+    private final int initialDelayMs;
+    /** 截断步数 */
+    private final int stallLimit;
+    /** 分段并行执行器 */
+    private final SlicePool pool;
+    /** 每段的处理逻辑（只创建一次） */
+    private final SlicePool.Task sliceTask = this::runRange;
+    /** 本轮参数：动作、观测、奖励、结束标志 */
+    private int[] actions;
+    private float[] floatObs;
+    private ByteBuffer byteObs;
+    private float[] rewards;
+    private byte[] dones;
+    /** 本轮是否需要完整写入观测（换了缓冲区或reset） */
+    private boolean fullWrite;
+    /** 上一次写入的观测缓冲区（换了缓冲区时要完整重写） */
+    private Object lastObs;
+
+    /**
+     * @param count 环境个数
+     * @param boardSize 场地边长
+     * @param initialDelayMs 初始移动间隔（毫秒，相当于难度）
+     * @param threads 线程数（包括调用线程，不超过环境个数）
+     * @param seed 随机种子（同样的种子和动作序列得到同样的结果）
+     */
+    public SnakeVecEnv(int count, int boardSize, int initialDelayMs, int threads, long seed) {
+        this.area = boardSize * boardSize;
+        this.initialDelayMs = initialDelayMs;
+        this.stallLimit = STALL_FACTOR * area;
+        this.engines = new SnakeEngine[count];
+        this.sinceFood = new int[count];
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int i = 0; i < count; i++) {
+            engines[i] = new SnakeEngine(boardSize, boardSize, root.split());
+        }
+        this.pool = new SlicePool(Math.min(threads, count), "snake-env");
+    }
+
+    /** @return 环境个数 */
+    public int count() {
+        return engines.length;
+    }
+
+    /** @return 每个环境的观测长度（CHANNELS x 格子数） */
+    public int observationSize() {
+        return CHANNELS * area;
+    }
+
+    /**
+     * @param env 环境下标
+     * @return 该环境的规则引擎（只读使用，例如查询分数和长度）
+     */
+    public SnakeEngine engine(int env) {
+        return engines[env];
+    }
+
+    /**
+     * 所有环境开始新的一局，并完整写入观测
+     * @param obs 观测缓冲区（长度至少为count() x observationSize()）
+     */
+    public void reset(float[] obs) {
+        run(null, obs, null, null, null, true);
+    }
+
+    /**
+     * 所有环境开始新的一局，并完整写入观测
+     * @param obs 观测缓冲区（按绝对下标写入字节，容量至少为count() x observationSize()）
+     */
+    public void reset(ByteBuffer obs) {
+        run(null, null, obs, null, null, true);
+    }
+
+    /**
+     * 所有环境各走一步
+     * @param actions 各环境的方向（SnakeEngine.UP等，-1或反方向表示保持原方向）
+     * @param obs 观测缓冲区（写入走完这一步后的观测）
+     * @param rewards 写入各环境这一步的奖励
+     * @param dones 写入各环境的结束标志（RUNNING / DEAD / WON / TRUNCATED，结束的环境已自动重开）
+     */
+    public void step(int[] actions, float[] obs, float[] rewards, byte[] dones) {
+        run(actions, obs, null, rewards, dones, false);
+    }
+
+    /**
+     * 所有环境各走一步（观测以字节写入ByteBuffer，例如直接交给本地推理库）
+     * @param actions 各环境的方向
+     * @param obs 观测缓冲区
+     * @param rewards 写入各环境这一步的奖励
+     * @param dones 写入各环境的结束标志
+     */
+    public void step(int[] actions, ByteBuffer obs, float[] rewards, byte[] dones) {
+        run(actions, null, obs, rewards, dones, false);
+    }
+
+    /**
+     * 分段并行执行一轮
+     */
+    private void run(int[] actions, float[] floatObs, ByteBuffer byteObs, float[] rewards, byte[] dones, boolean reset) {
+        Object obs = floatObs != null ? floatObs : byteObs;
+        this.actions = actions;
+        this.floatObs = floatObs;
+        this.byteObs = byteObs;
+        this.rewards = rewards;
+        this.dones = dones;
+        this.fullWrite = reset || obs != lastObs;
+        this.lastObs = obs;
+        pool.run(engines.length, sliceTask);
+    }
+
+    private void runRange(int from, int to) {
+        boolean reset = actions == null;
+        for (int env = from; env < to; env++) {
+            if (reset) {
+                resetEnv(env);
+            } else {
+                stepEnv(env);
+            }
+        }
+    }
+
+    private void resetEnv(int env) {
+        engines[env].reset(initialDelayMs);
+        sinceFood[env] = 0;
+        writeFull(env);
+    }
+
+    /**
+     * 推进一个环境并增量更新它的观测
+     */
+    private void stepEnv(int env) {
+        SnakeEngine engine = engines[env];
+        SnakeBody body = engine.body();
+        int oldHead = body.head();
+        int oldLength = body.length();
+        int oldTail = body.get(oldLength - 1);
+        int oldFood = engine.food();
+        int oldBlackFood = engine.blackFood();
+        int oldScore = engine.score();
+        int status = engine.step(actions[env]);
+        int score = engine.score();
+        sinceFood[env] = score > oldScore ? 0 : sinceFood[env] + 1;
+        byte done;
+        if (status == SnakeEngine.DEAD) {
+            rewards[env] = DEATH_REWARD;
+            done = DEAD;
+        } else {
+            rewards[env] = score - oldScore;
+            done = status == SnakeEngine.WON ? WON : sinceFood[env] >= stallLimit ? TRUNCATED : RUNNING;
+        }
+        dones[env] = done;
+        if (done != RUNNING) {
+            resetEnv(env);
+            return;
+        }
+        if (fullWrite) {
+            writeFull(env);
+            return;
+        }
+        int base = env * CHANNELS * area;
+        int head = body.head();
+        put(base + CHANNEL_HEAD * area + oldHead, 0);
+        put(base + CHANNEL_HEAD * area + head, 1);
+        put(base + CHANNEL_BODY * area + head, 1);
+        int food = engine.food();
+        if (food != oldFood) {
+            if (oldFood >= 0) put(base + CHANNEL_FOOD * area + oldFood, 0);
+            if (food >= 0) put(base + CHANNEL_FOOD * area + food, 1);
+        }
+        int blackFood = engine.blackFood();
+        if (blackFood != oldBlackFood) {
+            if (oldBlackFood >= 0) put(base + CHANNEL_BLACK_FOOD * area + oldBlackFood, 0);
+            if (blackFood >= 0) put(base + CHANNEL_BLACK_FOOD * area + blackFood, 1);
+        }
+        if (body.length() == oldLength) {
+            // 普通的一步：去掉一节尾巴（吃到食物时长度加一，不去尾）
+            put(base + CHANNEL_BODY * area + oldTail, 0);
+        } else if (body.length() < oldLength) {
+            // 吃到黑色食物：去掉了一半身体，重写身体通道
+            writeBody(env);
+        }
+    }
+
+    /**
+     * 完整写入一个环境的观测
+     */
+    private void writeFull(int env) {
+        SnakeEngine engine = engines[env];
+        int base = env * CHANNELS * area;
+        for (int i = 0; i < CHANNELS * area; i++) {
+            put(base + i, 0);
+        }
+        SnakeBody body = engine.body();
+        for (int i = 0; i < body.length(); i++) {
+            put(base + CHANNEL_BODY * area + body.get(i), 1);
+        }
+        put(base + CHANNEL_HEAD * area + body.head(), 1);
+        if (engine.food() >= 0) put(base + CHANNEL_FOOD * area + engine.food(), 1);
+        if (engine.blackFood() >= 0) put(base + CHANNEL_BLACK_FOOD * area + engine.blackFood(), 1);
+    }
+
+    /**
+     * 重写一个环境的身体通道
+     */
+    private void writeBody(int env) {
+        int base = env * CHANNELS * area + CHANNEL_BODY * area;
+        for (int i = 0; i < area; i++) {
+            put(base + i, 0);
+        }
+        SnakeBody body = engines[env].body();
+        for (int i = 0; i < body.length(); i++) {
+            put(base + body.get(i), 1);
+        }
+    }
+
+    private void put(int index, int value) {
+        if (floatObs != null) {
+            floatObs[index] = value;
+        } else {
+            byteObs.put(index, (byte) value);
+        }
+    }
+
+    /**
+     * 停止工作线程
+     */
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    /**
+     * 命令行入口：用随机策略测量每秒环境步数
+     * @param args [环境个数] [场地边长] [线程数] [步数] [随机种子]
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int boardSize = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long steps = args.length > 3 ? Long.parseLong(args[3]) : 20_000_000L;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        System.out.println("环境: " + count + "  场地: " + boardSize + "x" + boardSize + "  线程: " + threads + "  种子: " + seed);
+        try (SnakeVecEnv env = new SnakeVecEnv(count, boardSize, 200, threads, seed)) {
+            int[] actions = new int[count];
+            float[] obs = new float[count * env.observationSize()];
+            float[] rewards = new float[count];
+            byte[] dones = new byte[count];
+            SplittableRandom random = new SplittableRandom(seed);
+            env.reset(obs);
+            long episodes = 0;
+            double rewardSum = 0;
+            long rounds = Math.max(1, steps / count);
+            long start = System.nanoTime();
+            for (long r = 0; r < rounds; r++) {
+                for (int i = 0; i < count; i++) {
+                    actions[i] = random.nextInt(4);
+                }
+                env.step(actions, obs, rewards, dones);
+                for (int i = 0; i < count; i++) {
+                    rewardSum += rewards[i];
+                    if (dones[i] != RUNNING) episodes++;
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d 步  %.2f 秒  %.0f 步/秒  结束 %d 局  平均奖励 %.3f/步%n",
+                    rounds * count, seconds, rounds * count / seconds, episodes, rewardSum / (rounds * count));
+        }
+    }
+}